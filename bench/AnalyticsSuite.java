@@ -0,0 +1,57 @@
+/**
+ * Cost of recording a sale, with sales spread evenly or mostly on 1% of the games,
+ * of reading the best sellers, and of a checkout with and without analytics attached.
+ */
+
+class AnalyticsSuite extends BenchmarkSuite {
+
+    AnalyticsSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Sales analytics ===");
+        for (int size : sizes) {
+            Game[] games = new Game[size];
+            for (int i = 0; i < size; i++) games[i] = game(i, 1_000_000);
+            int hot = Math.max(size / 100, 1);
+            Inventory inventory = new ConcurrentInventory();
+            for (Game g : games) inventory.addStock(g);
+
+            for (int threads : threadCounts) {
+                SalesAnalytics analytics = new SalesAnalytics();
+                long now = System.currentTimeMillis();
+                harness.run("recordSale", "uniform", size, threads, OPS_PER_CHECK, sink -> {
+                    int[] cursor = {seed()};
+                    return () -> analytics.recordSale(games[next(cursor, size)], 1, 999, now);
+                });
+                harness.run("recordSale", "skewed", size, threads, OPS_PER_CHECK, sink -> {
+                    int[] cursor = {seed()};
+                    return () -> analytics.recordSale(games[skewed(cursor, size, hot)], 1, 999, now);
+                });
+                harness.run("topSellers(10)", "analytics", size, threads, OPS_PER_CHECK, sink -> () -> sink.consume(analytics.topSellers(10)));
+                harness.run("byConsole", "analytics", size, threads, OPS_PER_CHECK, sink -> () -> sink.consume(analytics.byConsole()));
+
+                for (boolean attached : new boolean[] {false, true}) {
+                    inventory.setAnalytics(attached ? new SalesAnalytics() : null);
+                    CheckoutEngine engine = new CheckoutEngine(inventory);
+                    harness.run("checkout", attached ? "analytics" : "none", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        Customer[] customer = {newRichCustomer()};
+                        int[] bought = {0};
+                        return () -> {
+                            sink.consume(engine.checkout(customer[0], skewed(cursor, size, hot)));
+                            if (++bought[0] == 10_000) {
+                                customer[0] = newRichCustomer();
+                                bought[0] = 0;
+                            }
+                        };
+                    });
+                }
+                inventory.setAnalytics(null);
+            }
+        }
+        return true;
+    }
+}
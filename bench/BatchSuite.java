@@ -0,0 +1,36 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A delivery added one line at a time against a single addStockBatch call.
+ */
+
+class BatchSuite extends BenchmarkSuite {
+
+    BatchSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Bulk restock ===");
+        for (int lines : sizes) {
+            if (lines > 1_000_000) continue;
+            List<Game> delivery = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) delivery.add(game(i, 1 + i % 10));
+
+            for (String backend : new String[] {"inventory", "concurrent"}) {
+                harness.measureOnce("single addStock", backend, lines, sink -> {
+                    Inventory inventory = newInventory(backend, lines);
+                    for (Game line : delivery) {
+                        inventory.checkStockLimit(line.getQuantity());
+                        inventory.addStock(line);
+                    }
+                    sink.consume(inventory);
+                });
+                harness.measureOnce("addStockBatch", backend, lines, sink -> sink.consume(newInventory(backend, lines).addStockBatch(delivery)));
+            }
+        }
+        return true;
+    }
+}
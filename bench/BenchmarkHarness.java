@@ -0,0 +1,236 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Times benchmark operations and collects their results.
+ *
+ * Each operation runs timed warmup and measurement iterations and is recorded
+ * with its time per operation, throughput and bytes allocated per operation
+ * (the same figure as JMH's -prof gc gc.alloc.rate.norm). Results are printed
+ * as a table as they are measured and written as JSON at the end of a run.
+ * Operations hand their results to a Sink, so the JIT cannot drop the work that
+ * produced them as dead code.
+ */
+
+class BenchmarkHarness {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long iterationNanos;
+    private final List<String> results = new ArrayList<>();
+    private volatile long consumed; // everything the sinks took, kept so none of it is dead
+
+    /**
+     * Constructor to initialize a harness.
+     * @param iterationMillis Length of each timed iteration
+     */
+    BenchmarkHarness(long iterationMillis) {
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Runs timed warmup and measurement iterations of an operation on several threads.
+     * The factory is called once per thread so each thread has its own cursor state
+     * and its own sink.
+     * @param name Benchmark name
+     * @param backend Backend or variant measured
+     * @param size Catalog size
+     * @param threads Threads running the operation at once
+     * @param opsPerCheck Operations run between checks of the clock
+     * @param factory Makes each thread's operation, given the sink for its results
+     * @throws Exception if a benchmark thread fails
+     */
+    void run(String name, String backend, int size, int threads, int opsPerCheck,
+             Function<Sink, Runnable> factory) throws Exception {
+        PrintStream realOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // getAllGames prints
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                iteration(threads, opsPerCheck, factory);
+            }
+            long ops = 0;
+            long nanos = 0;
+            long allocated = 0;
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                long[] r = iteration(threads, opsPerCheck, factory);
+                ops += r[0];
+                nanos += r[1];
+                allocated += r[2];
+            }
+            record(realOut, name, backend, size, threads, ops, nanos, allocated);
+        } finally {
+            System.setOut(realOut);
+        }
+    }
+
+    /**
+     * Runs a piece of work once per iteration on this thread and records the fastest
+     * measured run, counting each of the size items as one operation.
+     * @param name Benchmark name
+     * @param backend Backend or variant measured
+     * @param size Items the work handles
+     * @param work Work to time, given the sink for its results
+     */
+    void measureOnce(String name, String backend, int size, Consumer<Sink> work) {
+        long best = Long.MAX_VALUE;
+        long bestAlloc = 0;
+        long id = Thread.currentThread().getId();
+        Sink sink = new Sink();
+        for (int round = 0; round < WARMUP_ITERATIONS + MEASURED_ITERATIONS; round++) {
+            long allocStart = THREADS.getThreadAllocatedBytes(id);
+            long start = System.nanoTime();
+            work.accept(sink);
+            long elapsed = System.nanoTime() - start;
+            long alloc = THREADS.getThreadAllocatedBytes(id) - allocStart;
+            if (round >= WARMUP_ITERATIONS && elapsed < best) {
+                best = elapsed;
+                bestAlloc = alloc;
+            }
+        }
+        consumed += sink.drain();
+        record(System.out, name, backend, size, 1, size, best, bestAlloc);
+    }
+
+    /**
+     * Prints and records one timing.
+     * @param out Stream to print the table row to
+     * @param name Benchmark name
+     * @param backend Backend or variant measured
+     * @param size Catalog size
+     * @param threads Threads that ran the operations
+     * @param ops Operations completed
+     * @param nanos Elapsed time
+     * @param allocated Bytes allocated by all threads
+     */
+    void record(PrintStream out, String name, String backend, int size, int threads,
+                long ops, long nanos, long allocated) {
+        double nsPerOp = (double) nanos * threads / Math.max(ops, 1);
+        double opsPerSec = ops / (nanos / 1e9);
+        double bytesPerOp = (double) allocated / Math.max(ops, 1);
+        out.println(String.format(Locale.ROOT, "%-24s %-11s %9d games %2d thr %12.1f ns/op %14.0f ops/s %10.1f B/op",
+                name, backend, size, threads, nsPerOp, opsPerSec, bytesPerOp));
+        addResult(String.format(Locale.ROOT,
+                "{\"benchmark\":\"%s\",\"backend\":\"%s\",\"size\":%d,\"threads\":%d,\"nsPerOp\":%.2f,\"opsPerSec\":%.1f,\"allocBytesPerOp\":%.2f}",
+                name, backend, size, threads, nsPerOp, opsPerSec, bytesPerOp));
+    }
+
+    /**
+     * Adds a result that is not a timing, such as a footprint or a correctness check.
+     * @param json One JSON object
+     */
+    void addResult(String json) {
+        results.add(json);
+    }
+
+    /**
+     * Writes every result recorded so far.
+     * @param file Path of the JSON file
+     * @throws IOException if the file cannot be written
+     */
+    void writeJson(String file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"timestamp\":\"").append(java.time.Instant.now())
+                .append("\",\"jvm\":\"").append(System.getProperty("java.vm.version"))
+                .append("\",\"cores\":").append(Runtime.getRuntime().availableProcessors())
+                .append(",\"results\":[\n");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append("  ").append(results.get(i)).append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        sb.append("]}\n");
+        Files.write(Paths.get(file), sb.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Results written to " + file);
+    }
+
+    // Returns {operations, elapsed nanos, bytes allocated}
+    private long[] iteration(int threads, int opsPerCheck, Function<Sink, Runnable> factory) throws Exception {
+        long[] ops = new long[threads];
+        long[] allocated = new long[threads];
+        Throwable[] failure = new Throwable[1];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        Sink[] sinks = new Sink[threads];
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            sinks[t] = new Sink();
+            Runnable op = factory.apply(sinks[t]);
+            workers[t] = new Thread(() -> {
+                try {
+                    ready.countDown();
+                    start.await();
+                    long id = Thread.currentThread().getId();
+                    long allocStart = THREADS.getThreadAllocatedBytes(id);
+                    long deadline = System.nanoTime() + iterationNanos;
+                    long n = 0;
+                    do {
+                        for (int k = 0; k < opsPerCheck; k++) op.run();
+                        n += opsPerCheck;
+                    } while (System.nanoTime() < deadline);
+                    allocated[slot] = THREADS.getThreadAllocatedBytes(id) - allocStart;
+                    ops[slot] = n;
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            workers[t].start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - begin;
+        if (failure[0] != null) throw new IllegalStateException("Benchmark thread failed", failure[0]);
+        for (Sink sink : sinks) consumed += sink.drain();
+        return new long[] {Arrays.stream(ops).sum(), elapsed, Arrays.stream(allocated).sum()};
+    }
+
+    /**
+     * Takes the results of one thread's operations. Each thread has its own sink,
+     * so consuming a result costs a field write and never contends.
+     */
+    static final class Sink {
+
+        private long sum;
+        private Object last;
+
+        void consume(long value) {
+            sum += value;
+        }
+
+        void consume(double value) {
+            sum += Double.doubleToRawLongBits(value);
+        }
+
+        void consume(boolean value) {
+            if (value) sum++;
+        }
+
+        void consume(Object value) {
+            last = value;
+        }
+
+        // Folds what was consumed into one number and starts again
+        private long drain() {
+            long total = sum + (last != null ? 1 : 0);
+            sum = 0;
+            last = null;
+            return total;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * One group of benchmarks, selected by name with InventoryBenchmark's suite option.
+ * Subclasses time their operations through the harness and share the catalog
+ * and cursor helpers below.
+ */
+
+abstract class BenchmarkSuite {
+
+    static final String[] CONSOLES = {"Switch", "PlayStation", "Xbox", "PC", "Wii"};
+    static final int OPS_PER_CHECK = 256;
+
+    protected final BenchmarkHarness harness;
+
+    /**
+     * Constructor to initialize a suite.
+     * @param harness Harness to time operations and record results with
+     */
+    protected BenchmarkSuite(BenchmarkHarness harness) {
+        this.harness = harness;
+    }
+
+    /**
+     * Runs the suite.
+     * @param sizes Catalog sizes requested
+     * @param threadCounts Thread counts requested
+     * @param backends Inventory backends requested
+     * @return false if a correctness check failed
+     * @throws Exception if a benchmark thread fails or a file cannot be used
+     */
+    abstract boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception;
+
+    // === Helpers ===
+
+    static Inventory newInventory(String backend, int size) {
+        switch (backend) {
+            case "inventory": return new Inventory(" ", 0, 0, " ", 0, 0);
+            case "concurrent": return new ConcurrentInventory();
+            case "compact": return new CompactInventory(size);
+            default: throw new IllegalArgumentException("Unknown backend " + backend);
+        }
+    }
+
+    static void fill(Inventory inventory, int games) {
+        for (int i = 0; i < games; i++) {
+            inventory.addStock(game(i, 1 + i % 10));
+        }
+    }
+
+    static Game game(int id, int quantity) {
+        // new console String per game, as with games entered through the menus
+        return new Game(id, "Game " + id, 1990 + id % 35, 500 + 100 * (id % 60), new String(CONSOLES[id % CONSOLES.length]), quantity);
+    }
+
+    // Titles of one to four words drawn from a 40,000 word vocabulary with
+    // Zipf-distributed popularity, so a few words appear in a large share of titles
+    static String[] titles(int count) {
+        String letters = "eeeeeeeeeeeeaaaaaaaaarrrrrrriiiiiiiooooooottttttnnnnnnssssssllllllcccccuuuudddpppmmmhhhgggbbffyywkvxzjq";
+        int[] cursor = {12345};
+        String[] words = new String[40_000];
+        double[] popularity = new double[words.length];
+        double total = 0;
+        for (int w = 0; w < words.length; w++) {
+            char[] word = new char[3 + next(cursor, 7)];
+            for (int c = 0; c < word.length; c++) word[c] = letters.charAt(next(cursor, letters.length()));
+            word[0] = Character.toUpperCase(word[0]);
+            words[w] = new String(word);
+            total += 1.0 / (w + 1);
+            popularity[w] = total;
+        }
+        String[] titles = new String[count];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            if (next(cursor, 5) == 0) sb.append("The ");
+            int length = 1 + next(cursor, 4);
+            for (int w = 0; w < length; w++) {
+                if (w > 0) sb.append(w == 2 && next(cursor, 4) == 0 ? " of " : " ");
+                int pick = Arrays.binarySearch(popularity, total * next(cursor, 1 << 30) / (1 << 30));
+                sb.append(words[Math.min(pick < 0 ? -pick - 1 : pick, words.length - 1)]);
+            }
+            if (next(cursor, 5) == 0) sb.append(' ').append(2 + next(cursor, 4));
+            titles[i] = sb.toString();
+        }
+        return titles;
+    }
+
+    static Customer newRichCustomer() {
+        Customer customer = new Customer("Bench", "Nowhere", 1);
+        customer.restoreState(Long.MAX_VALUE / 4, false, null);
+        return customer;
+    }
+
+    static int seed() {
+        return (int) (Thread.currentThread().getId() * 0x9E3779B9L);
+    }
+
+    // 90% of picks fall in the first `hot` IDs, the rest anywhere
+    static int skewed(int[] cursor, int size, int hot) {
+        int pick = next(cursor, 10 * size);
+        return pick < 9 * size ? pick % hot : pick % size;
+    }
+
+    // xorshift over a per-thread cursor, mapped onto [0, size)
+    static int next(int[] cursor, int size) {
+        int x = cursor[0];
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        cursor[0] = x;
+        return (int) ((x & 0xFFFFFFFFL) % size);
+    }
+
+    static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+}
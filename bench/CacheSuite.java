@@ -0,0 +1,58 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lookups over a mapped catalog where 1% of the titles get 90% of the traffic,
+ * uncached and behind caches of growing size; reports time per lookup and hit rate.
+ */
+
+class CacheSuite extends BenchmarkSuite {
+
+    CacheSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Catalog cache ===");
+        int size = Arrays.stream(sizes).max().orElse(100_000);
+        Path file = Files.createTempFile("bench-catalog", ".gsc");
+        try {
+            List<Game> games = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) games.add(game(i, 1_000_000));
+            MappedCatalog.write(file, games);
+            games = null;
+
+            int hot = Math.max(size / 100, 1);
+            try (MappedCatalog catalog = MappedCatalog.open(file)) {
+                for (int threads : threadCounts) {
+                    harness.run("lookup", "uncached", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(catalog.findById(skewed(cursor, size, hot)));
+                    });
+                    for (int capacity : new int[] {size / 1000, size / 100, size / 10}) {
+                        if (capacity < 1) continue;
+                        CatalogInventory inventory = new CatalogInventory(catalog, capacity);
+                        GameCache cache = inventory.getCache();
+                        harness.run("lookup", "cache=" + capacity, size, threads, OPS_PER_CHECK, sink -> {
+                            int[] cursor = {seed()};
+                            return () -> sink.consume(inventory.findById(skewed(cursor, size, hot)));
+                        });
+                        System.out.println(String.format(Locale.ROOT, "  cache=%d hitRate=%.1f%% evictions=%d",
+                                capacity, cache.getHitRate() * 100, cache.getEvictions()));
+                        harness.addResult(String.format(Locale.ROOT,
+                                "{\"benchmark\":\"cacheHitRate\",\"capacity\":%d,\"size\":%d,\"threads\":%d,\"hitRate\":%.4f,\"evictions\":%d}",
+                                capacity, size, threads, cache.getHitRate(), cache.getEvictions()));
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many buyers race for a few copies of each game; every copy must be sold exactly once.
+ */
+
+class ContentionSuite extends BenchmarkSuite {
+
+    ContentionSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Contention (no overselling) ===");
+        boolean ok = true;
+        for (int threads : threadCounts) {
+            int games = 64;
+            int copies = 5;
+            int attemptsPerThread = 20_000;
+            ConcurrentInventory inventory = new ConcurrentInventory();
+            for (int i = 0; i < games; i++) inventory.addStock(game(i, copies));
+
+            AtomicInteger sold = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[Math.max(threads, 2)];
+            for (int w = 0; w < workers.length; w++) {
+                int offset = w;
+                workers[w] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int k = 0; k < attemptsPerThread; k++) {
+                        int id = (k + offset) % games;
+                        if (k % 7 == 0) {
+                            // Some buyers take copies through the Game returned by findById
+                            Game game = inventory.findById(id);
+                            if (game != null && game.tryTakeQuantity(1)) sold.incrementAndGet();
+                        } else if (inventory.sellStock(id)) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                });
+                workers[w].start();
+            }
+            start.countDown();
+            for (Thread worker : workers) worker.join();
+
+            int remaining = 0;
+            for (Game game : inventory.listGames()) remaining += game.getQuantity();
+            boolean pass = sold.get() == games * copies && remaining == 0;
+            ok &= pass;
+            System.out.println(String.format(Locale.ROOT, "%-24s %2d threads sold %d of %d copies, %d left: %s",
+                    "contention", workers.length, sold.get(), games * copies, remaining, pass ? "PASS" : "FAIL (oversold)"));
+            harness.addResult(String.format(Locale.ROOT,
+                    "{\"benchmark\":\"contention\",\"backend\":\"concurrent\",\"threads\":%d,\"sold\":%d,\"stock\":%d,\"pass\":%b}",
+                    workers.length, sold.get(), games * copies, pass));
+
+            ok &= checkoutContention(workers.length);
+        }
+        return ok;
+    }
+
+    // Shared customers with small balances race for scarce stock through the checkout engine;
+    // every copy sold must be paid for exactly once and no balance may go negative
+    private boolean checkoutContention(int threads) throws Exception {
+        int games = 64;
+        int copies = 5;
+        int attemptsPerThread = 20_000;
+        long startingBalance = 600_00;
+        ConcurrentInventory inventory = new ConcurrentInventory();
+        for (int i = 0; i < games; i++) inventory.addStock(game(i, copies));
+        CheckoutEngine engine = new CheckoutEngine(inventory);
+        Customer[] buyers = new Customer[8];
+        for (int c = 0; c < buyers.length; c++) {
+            buyers[c] = new Customer("Buyer " + c, "Nowhere", c);
+            buyers[c].restoreState(startingBalance, c % 2 == 0, null);
+        }
+
+        AtomicInteger purchased = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < workers.length; w++) {
+            int offset = w;
+            workers[w] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int k = 0; k < attemptsPerThread; k++) {
+                    Customer buyer = buyers[(k + offset) % buyers.length];
+                    if (engine.checkout(buyer, (k * 7 + offset) % games).isPurchased()) {
+                        purchased.incrementAndGet();
+                    }
+                }
+            });
+            workers[w].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        int remaining = 0;
+        for (Game game : inventory.listGames()) remaining += game.getQuantity();
+        long recorded = 0;
+        boolean balanced = true;
+        for (Customer buyer : buyers) {
+            TransactionHistory history = buyer.getPurchaseHistory();
+            recorded += history.totalCount();
+            long spentPence = startingBalance - buyer.getBalancePence();
+            balanced &= buyer.getBalancePence() >= 0 && spentPence == history.totalPence();
+        }
+        boolean pass = balanced && recorded == purchased.get() && remaining + purchased.get() == games * copies;
+        System.out.println(String.format(Locale.ROOT, "%-24s %2d threads sold %d of %d copies, %d left, %d recorded: %s",
+                "checkout contention", threads, purchased.get(), games * copies, remaining, recorded,
+                pass ? "PASS" : "FAIL (" + (balanced ? "stock and charges disagree" : "balance mismatch") + ")"));
+        harness.addResult(String.format(Locale.ROOT,
+                "{\"benchmark\":\"checkoutContention\",\"backend\":\"concurrent\",\"threads\":%d,\"sold\":%d,\"stock\":%d,\"pass\":%b}",
+                threads, purchased.get(), games * copies, pass));
+        return pass;
+    }
+}
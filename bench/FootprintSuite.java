@@ -0,0 +1,48 @@
+import java.util.Locale;
+
+/**
+ * Heap bytes per game for each backend, and the collector work while a slice
+ * of the catalog is sold, delisted and listed again.
+ */
+
+class FootprintSuite extends BenchmarkSuite {
+
+    FootprintSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Footprint ===");
+        for (int games : sizes) {
+            for (String backend : new String[] {"inventory", "compact"}) {
+                Inventory inventory = newInventory(backend, games);
+                long before = usedHeapAfterGc();
+                fill(inventory, games);
+                long after = usedHeapAfterGc();
+
+                // Churn: sell, delist and re-add a slice of the catalog, counting collector work
+                long gcCount = gcCount();
+                long gcMillis = gcMillis();
+                for (int round = 0; round < 20; round++) {
+                    for (int id = round; id < games; id += 20) {
+                        inventory.sellStock(id);
+                        Game game = inventory.findById(id);
+                        if (game != null && game.getQuantity() == 0) {
+                            inventory.removeStock(id);
+                            inventory.addStock(game(id, 5));
+                        }
+                    }
+                }
+                double bytesPerGame = (double) (after - before) / games;
+                System.out.println(String.format(Locale.ROOT, "%-24s %-11s %9d games %10.1f bytes/game %4d GCs %6d ms GC",
+                        "footprint", backend, games, bytesPerGame, gcCount() - gcCount, gcMillis() - gcMillis));
+                harness.addResult(String.format(Locale.ROOT,
+                        "{\"benchmark\":\"footprint\",\"backend\":\"%s\",\"size\":%d,\"bytesPerGame\":%.1f,\"gcCount\":%d,\"gcMillis\":%d}",
+                        backend, games, bytesPerGame, gcCount() - gcCount, gcMillis() - gcMillis));
+                if (inventory.findById(0) == null) throw new IllegalStateException("game 0 missing");
+            }
+        }
+        return true;
+    }
+}
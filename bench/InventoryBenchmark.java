@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Benchmark runner for the inventory and customer hot paths.
+ *
+ * Runs the suites requested, each over every backend, catalog size and thread
+ * count requested, and writes their results as JSON so runs can be compared
+ * over time. Each suite is its own BenchmarkSuite class, timed through a
+ * BenchmarkHarness. The benchmarks live outside src so they are not part of
+ * the shop jar; mvn -Pbench package exec:exec compiles and runs them.
+ *
+ * Run with: java InventoryBenchmark [suite=ops,batch,footprint,contention,pricing,money,cache,titles,analytics,reorders,metrics,pipeline,stores]
+ *           [sizes=10,1000,100000,1000000] [threads=1,4] [backends=inventory,concurrent,compact]
+ *           [json=bench.json] [iterationMillis=200]
+ * Catalog sizes up to 10000000 are supported given enough heap (-Xmx8g for Inventory).
+ */
+
+public class InventoryBenchmark {
+
+    private static final Map<String, Function<BenchmarkHarness, BenchmarkSuite>> SUITES = new LinkedHashMap<>();
+
+    static {
+        SUITES.put("ops", OpsSuite::new);
+        SUITES.put("batch", BatchSuite::new);
+        SUITES.put("footprint", FootprintSuite::new);
+        SUITES.put("contention", ContentionSuite::new);
+        SUITES.put("pricing", PricingSuite::new);
+        SUITES.put("money", MoneySuite::new);
+        SUITES.put("cache", CacheSuite::new);
+        SUITES.put("titles", TitleSuite::new);
+        SUITES.put("analytics", AnalyticsSuite::new);
+        SUITES.put("reorders", ReorderSuite::new);
+        SUITES.put("metrics", MetricsSuite::new);
+        SUITES.put("pipeline", PipelineSuite::new);
+        SUITES.put("stores", StoresSuite::new);
+    }
+
+    /**
+     * Entry point for the benchmark.
+     * @param args key=value options, see the class comment
+     * @throws Exception if a benchmark thread fails or the JSON file cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        String suites = String.join(",", SUITES.keySet());
+        int[] sizes = {10, 1_000, 100_000, 1_000_000};
+        int[] threads = {1, Math.max(4, Runtime.getRuntime().availableProcessors())};
+        String backends = "inventory,concurrent,compact";
+        String json = "bench.json";
+        long iterationMillis = 200;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? "suite" : arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "suite": suites = value; break;
+                case "sizes": sizes = parseInts(value); break;
+                case "threads": threads = parseInts(value); break;
+                case "backends": backends = value; break;
+                case "json": json = value; break;
+                case "iterationMillis": iterationMillis = Long.parseLong(value); break;
+                default:
+                    System.out.println("Unknown option " + key);
+                    return;
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(iterationMillis);
+        boolean ok = true;
+        for (String suite : suites.split(",")) {
+            Function<BenchmarkHarness, BenchmarkSuite> factory = SUITES.get(suite);
+            if (factory == null) {
+                System.out.println("Unknown suite " + suite);
+                continue;
+            }
+            ok &= factory.apply(harness).run(sizes, threads, backends.split(","));
+        }
+
+        harness.writeJson(json);
+        if (!ok) System.exit(1);
+    }
+
+    private static int[] parseInts(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
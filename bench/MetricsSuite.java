@@ -0,0 +1,57 @@
+/**
+ * Cost of recording one latency, and what timing adds to a game lookup and a checkout
+ * when metrics are attached, so the overhead of leaving them on is known.
+ */
+
+class MetricsSuite extends BenchmarkSuite {
+
+    MetricsSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Metrics ===");
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int threads : threadCounts) {
+            harness.run("histogram record", "metrics", 0, threads, OPS_PER_CHECK, sink -> {
+                int[] cursor = {seed()};
+                return () -> histogram.record(100 + next(cursor, 100_000));
+            });
+        }
+
+        for (int size : sizes) {
+            Inventory inventory = new ConcurrentInventory();
+            for (int i = 0; i < size; i++) inventory.addStock(game(i, 1_000_000));
+            int hot = Math.max(size / 100, 1);
+            try (ShopService service = new ShopService(inventory, new CustomerRegistry())) {
+                ShopMetrics metrics = inventory.getMetrics();
+                CheckoutEngine engine = new CheckoutEngine(inventory);
+                for (int threads : threadCounts) {
+                    for (boolean attached : new boolean[] {false, true}) {
+                        inventory.setMetrics(attached ? metrics : null);
+                        String backend = attached ? "metrics" : "none";
+                        harness.run("findGame", backend, size, threads, OPS_PER_CHECK, sink -> {
+                            int[] cursor = {seed()};
+                            return () -> sink.consume(service.findGame(next(cursor, size)));
+                        });
+                        harness.run("checkout", backend, size, threads, OPS_PER_CHECK, sink -> {
+                            int[] cursor = {seed()};
+                            Customer[] customer = {newRichCustomer()};
+                            int[] bought = {0};
+                            return () -> {
+                                sink.consume(engine.checkout(customer[0], skewed(cursor, size, hot)));
+                                if (++bought[0] == 10_000) {
+                                    customer[0] = newRichCustomer();
+                                    bought[0] = 0;
+                                }
+                            };
+                        });
+                    }
+                }
+                inventory.setMetrics(metrics);
+            }
+        }
+        return true;
+    }
+}
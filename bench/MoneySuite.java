@@ -0,0 +1,53 @@
+/**
+ * Money held as double pounds (as before) against long pence: discount, debit and message formatting.
+ */
+
+class MoneySuite extends BenchmarkSuite {
+
+    MoneySuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Money ===");
+        long[] pence = new long[1024];
+        double[] pounds = new double[pence.length];
+        for (int i = 0; i < pence.length; i++) {
+            pence[i] = 99 + 37L * i;
+            pounds[i] = pence[i] / 100.0;
+        }
+        harness.run("discount+debit", "double", pence.length, 1, OPS_PER_CHECK, sink -> {
+            int[] cursor = {seed()};
+            double[] balance = {1e12};
+            return () -> {
+                double price = pounds[next(cursor, pounds.length)];
+                sink.consume(balance[0] -= Math.round(price * 0.9 * 100.0) / 100.0);
+            };
+        });
+        harness.run("discount+debit", "long", pence.length, 1, OPS_PER_CHECK, sink -> {
+            int[] cursor = {seed()};
+            long[] balance = {100_000_000_000_00L};
+            return () -> sink.consume(balance[0] -= Money.applyFactor(pence[next(cursor, pence.length)], 0.9));
+        });
+        harness.run("format", "double", pence.length, 1, OPS_PER_CHECK, sink -> {
+            int[] cursor = {seed()};
+            StringBuilder sb = new StringBuilder(64);
+            return () -> {
+                sb.setLength(0);
+                sb.append(String.format("%.2f", pounds[next(cursor, pounds.length)]));
+                sink.consume(sb.length());
+            };
+        });
+        harness.run("format", "long", pence.length, 1, OPS_PER_CHECK, sink -> {
+            int[] cursor = {seed()};
+            StringBuilder sb = new StringBuilder(64);
+            return () -> {
+                sb.setLength(0);
+                Money.append(sb, pence[next(cursor, pence.length)]);
+                sink.consume(sb.length());
+            };
+        });
+        return true;
+    }
+}
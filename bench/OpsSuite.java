@@ -0,0 +1,88 @@
+/**
+ * Hot paths of each inventory backend: lookups, stock changes, sales and checkouts.
+ */
+
+class OpsSuite extends BenchmarkSuite {
+
+    OpsSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Hot paths ===");
+        for (String backend : backends) {
+            for (int size : sizes) {
+                Inventory inventory = newInventory(backend, size);
+                fill(inventory, size);
+                Game[] replacements = new Game[size];
+                for (int i = 0; i < size; i++) replacements[i] = game(i, 1 + i % 10);
+
+                for (int t : threadCounts) {
+                    if (t > 1 && (backend.equals("inventory") || backend.equals("compact"))) {
+                        continue; // these backends are not thread-safe for structural changes
+                    }
+                    harness.run("findById", backend, size, t, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(inventory.findById(next(cursor, size)));
+                    });
+                    harness.run("addStock", backend, size, t, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> inventory.addStock(replacements[next(cursor, size)]);
+                    });
+                    harness.run("removeStock+addStock", backend, size, t, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> {
+                            int id = next(cursor, size);
+                            if (inventory.removeStock(id)) inventory.addStock(replacements[id]);
+                        };
+                    });
+                    harness.run("sellStock+restock", backend, size, t, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> {
+                            int id = next(cursor, size);
+                            if (inventory.sellStock(id)) inventory.restock(id, 1);
+                        };
+                    });
+                    harness.run("buyGame", backend, size, t, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        Customer[] customer = {newRichCustomer()};
+                        int[] bought = {0};
+                        return () -> {
+                            int id = next(cursor, size);
+                            Game game = inventory.findById(id);
+                            if (game == null) return;
+                            sink.consume(customer[0].buyGame(game, inventory));
+                            inventory.restock(id, 1);
+                            if (++bought[0] == 10_000) {
+                                customer[0] = newRichCustomer();
+                                bought[0] = 0;
+                            }
+                        };
+                    });
+                    harness.run("checkoutBasket(8)", backend, size, t, OPS_PER_CHECK / 8, sink -> {
+                        int[] cursor = {seed()};
+                        Customer[] customer = {newRichCustomer()};
+                        CheckoutEngine engine = new CheckoutEngine(inventory);
+                        int[] basket = new int[8];
+                        int[] bought = {0};
+                        return () -> {
+                            for (int k = 0; k < basket.length; k++) basket[k] = next(cursor, size);
+                            if (!engine.checkoutBasket(customer[0], basket).isPurchased()) return;
+                            for (int id : basket) inventory.restock(id, 1);
+                            if (++bought[0] == 1_000) {
+                                customer[0] = newRichCustomer();
+                                bought[0] = 0;
+                            }
+                        };
+                    });
+                    if (size <= 100_000) {
+                        harness.run("listGames", backend, size, t, 1, sink -> () -> sink.consume(inventory.listGames()));
+                        harness.run("getAllGames", backend, size, t, 1, sink -> () -> sink.consume(inventory.getAllGames()));
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Over-the-counter sales called on the service directly, published to a command pipeline
+ * without waiting (the writer's throughput), and published and waited for one at a time.
+ */
+
+class PipelineSuite extends BenchmarkSuite {
+
+    PipelineSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Command pipeline ===");
+        for (int size : sizes) {
+            Inventory inventory = new ConcurrentInventory();
+            for (int i = 0; i < size; i++) inventory.addStock(game(i, 1_000_000_000));
+            try (ShopService service = new ShopService(inventory, new CustomerRegistry());
+                 CommandPipeline pipeline = new CommandPipeline(service, 65_536)) {
+                for (int threads : threadCounts) {
+                    harness.run("sellStock", "direct", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(service.sellStock(next(cursor, size)));
+                    });
+                    harness.run("sellStock", "pipeline", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(pipeline.sellStock(next(cursor, size)));
+                    });
+                    pipeline.query(s -> null).join();
+                    harness.run("sellStock+join", "pipeline", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(pipeline.sellStock(next(cursor, size)).join());
+                    });
+                }
+            }
+        }
+        return true;
+    }
+}
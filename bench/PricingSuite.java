@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price quotes against growing rule sets; the time per quote should stay flat.
+ */
+
+class PricingSuite extends BenchmarkSuite {
+
+    PricingSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Pricing rules ===");
+        Game[] games = new Game[1024];
+        for (int i = 0; i < games.length; i++) games[i] = game(i, 1);
+        for (int ruleCount : new int[] {1, 10, 100, 1000}) {
+            List<PricingRule> rules = new ArrayList<>();
+            rules.add(PricingRule.nextPurchase(0.10));
+            for (int r = 1; r < ruleCount; r++) {
+                switch (r % 3) {
+                    case 0: {
+                        // The first few sales hit the consoles in the catalog, the rest never match
+                        String console = r / 3 < CONSOLES.length ? CONSOLES[r / 3] : "Console " + r;
+                        rules.add(PricingRule.consoleSale(console, 0.05 + r % 20 / 100.0));
+                        break;
+                    }
+                    case 1: rules.add(PricingRule.yearClearance(1990 + r % 30, 1995 + r % 30, 0.10 + r % 15 / 100.0)); break;
+                    default: rules.add(PricingRule.loyaltyTier(r, 0.01 + r % 10 / 100.0));
+                }
+            }
+            PricingTable table = PricingTable.compile(rules);
+            harness.run("price", "pricing", ruleCount, 1, OPS_PER_CHECK, sink -> {
+                int[] cursor = {seed()};
+                return () -> {
+                    int i = next(cursor, games.length);
+                    sink.consume(table.price(games[i], i, (i & 1) == 0));
+                };
+            });
+        }
+        return true;
+    }
+}
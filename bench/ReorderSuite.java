@@ -0,0 +1,45 @@
+/**
+ * Cost a reorder scheduler adds to a sale that leaves stock above every reorder point,
+ * and of the full cycle for a game that falls to its point: queued, batched and delivered.
+ */
+
+class ReorderSuite extends BenchmarkSuite {
+
+    ReorderSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Reorders ===");
+        for (int size : sizes) {
+            Inventory inventory = new ConcurrentInventory();
+            for (int i = 0; i < size; i++) inventory.addStock(game(i, 1_000_000_000));
+            for (int threads : threadCounts) {
+                for (boolean attached : new boolean[] {false, true}) {
+                    inventory.setReorders(attached ? new ReorderScheduler(inventory, ReorderScheduler.DEFAULT_REORDER_POINT,
+                            ReorderScheduler.DEFAULT_REORDER_QUANTITY, 0) : null);
+                    harness.run("sellStock", attached ? "reorders" : "none", size, threads, OPS_PER_CHECK, sink -> {
+                        int[] cursor = {seed()};
+                        return () -> sink.consume(inventory.sellStock(next(cursor, size)));
+                    });
+                }
+                inventory.setReorders(null);
+            }
+
+            if (size > 1_000_000) continue;
+            Inventory low = new ConcurrentInventory();
+            for (int i = 0; i < size; i++) low.addStock(game(i, ReorderScheduler.DEFAULT_REORDER_POINT + 1));
+            ReorderScheduler reorders = new ReorderScheduler(low);
+            low.setReorders(reorders);
+            harness.measureOnce("sell, batch, deliver", "reorders", size, sink -> {
+                for (int i = 0; i < size; i++) low.sellStock(i);
+                for (SupplierOrder order : reorders.batch()) {
+                    for (Game line : order.getLines()) low.restock(line.getGameId(), 1);
+                }
+            });
+            reorders.close();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores are shards: with a store per thread, sales never meet, so throughput should grow
+ * with the thread count up to the number of cores. Then network-wide lookups and totals
+ * over 16 stores, and transfers racing with sales, which must neither lose nor duplicate copies.
+ */
+
+class StoresSuite extends BenchmarkSuite {
+
+    StoresSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Store network ===");
+        for (int size : sizes) {
+            for (int threads : threadCounts) {
+                StoreNetwork network = new StoreNetwork();
+                Inventory[] shards = new Inventory[threads];
+                for (int s = 0; s < threads; s++) {
+                    shards[s] = network.addStore("Store " + s);
+                    for (int i = 0; i < size; i++) shards[s].addStock(game(i, 1_000_000_000));
+                }
+                AtomicInteger assigned = new AtomicInteger();
+                harness.run("sellStock", threads + " stores", size, threads, OPS_PER_CHECK, sink -> {
+                    Inventory own = shards[assigned.getAndIncrement() % shards.length];
+                    int[] cursor = {seed()};
+                    return () -> sink.consume(own.sellStock(next(cursor, size)));
+                });
+            }
+        }
+
+        for (int size : sizes) {
+            int listed = Math.min(size, 100_000);
+            StoreNetwork network = new StoreNetwork();
+            for (int s = 0; s < 16; s++) {
+                Inventory store = network.addStore("Store " + s);
+                // Each store stocks about half the catalog
+                for (int i = 0; i < listed; i++) {
+                    if ((i * 31 + s) % 2 == 0) store.addStock(game(i, 1 + (i + s) % 10));
+                }
+            }
+            harness.run("findStock", "16 stores", listed, 1, OPS_PER_CHECK, sink -> {
+                int[] cursor = {seed()};
+                return () -> sink.consume(network.findStock(next(cursor, listed)));
+            });
+            harness.run("totalStock", "16 stores", listed, 1, OPS_PER_CHECK, sink -> {
+                int[] cursor = {seed()};
+                return () -> sink.consume(network.totalStock(next(cursor, listed)));
+            });
+            harness.measureOnce("totalStockByTitle", "16 stores", listed, sink -> sink.consume(network.totalStockByTitle()));
+        }
+
+        boolean ok = true;
+        for (int threads : threadCounts) {
+            ok &= transferContention(Math.max(threads, 2));
+        }
+        return ok;
+    }
+
+    // Half the threads sell copies while the other half move them between stores;
+    // every copy must end up sold or in exactly one store
+    private boolean transferContention(int threads) throws Exception {
+        int stores = 4;
+        int games = 64;
+        int copies = 50;
+        int attemptsPerThread = 20_000;
+        StoreNetwork network = new StoreNetwork();
+        for (int s = 0; s < stores; s++) {
+            Inventory store = network.addStore("Store " + s);
+            for (int i = 0; i < games; i++) store.addStock(game(i, copies));
+        }
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger moved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < workers.length; w++) {
+            int offset = w;
+            workers[w] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int k = 0; k < attemptsPerThread; k++) {
+                    int id = (k * 7 + offset * 13) % games;
+                    int from = (k / games + offset) % stores;
+                    if (offset % 2 == 0) {
+                        int to = (from + 1 + k % (stores - 1)) % stores;
+                        if (network.transfer("Store " + from, "Store " + to, id, 1 + k % 3)) moved.incrementAndGet();
+                    } else if (network.getStore("Store " + from).sellStock(id)) {
+                        sold.incrementAndGet();
+                    }
+                }
+            });
+            workers[w].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        int remaining = 0;
+        for (int i = 0; i < games; i++) remaining += network.totalStock(i);
+        boolean pass = remaining + sold.get() == stores * games * copies;
+        System.out.println(String.format(Locale.ROOT, "%-24s %2d threads sold %d of %d copies, %d left, %d transfers: %s",
+                "transfer contention", threads, sold.get(), stores * games * copies, remaining, moved.get(),
+                pass ? "PASS" : "FAIL (copies lost or duplicated)"));
+        harness.addResult(String.format(Locale.ROOT,
+                "{\"benchmark\":\"transferContention\",\"backend\":\"concurrent\",\"threads\":%d,\"sold\":%d,\"stock\":%d,\"pass\":%b}",
+                threads, sold.get(), stores * games * copies, pass));
+        return pass;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Top-10 title searches over synthetic titles: whole titles, the first two thirds
+ * of a title (ending mid-word) and titles with one letter changed.
+ */
+
+class TitleSuite extends BenchmarkSuite {
+
+    TitleSuite(BenchmarkHarness harness) {
+        super(harness);
+    }
+
+    @Override
+    boolean run(int[] sizes, int[] threadCounts, String[] backends) throws Exception {
+        System.out.println("=== Title search ===");
+        for (int size : sizes) {
+            String[] titles = titles(size);
+            TitleIndex index = new TitleIndex();
+            long start = System.nanoTime();
+            for (int i = 0; i < size; i++) index.add(i, titles[i]);
+            harness.record(System.out, "titleIndexAdd", "index", size, 1, size, System.nanoTime() - start, 0);
+
+            int[] cursor = {seed()};
+            String[][] queries = new String[3][4096];
+            for (int q = 0; q < 4096; q++) {
+                String title = titles[next(cursor, size)];
+                queries[0][q] = title;
+                queries[1][q] = title.substring(0, Math.max(2, title.length() * 2 / 3));
+                char[] typo = title.toCharArray();
+                int at = next(cursor, typo.length);
+                if (Character.isLetter(typo[at])) typo[at] = (char) ('a' + next(cursor, 26));
+                queries[2][q] = new String(typo);
+            }
+            String[] kinds = {"exact", "prefix", "typo"};
+            for (int threads : threadCounts) {
+                for (int kind = 0; kind < kinds.length; kind++) {
+                    String[] batch = queries[kind];
+                    harness.run("titleSearch", kinds[kind], size, threads, 16, sink -> {
+                        int[] pick = {seed()};
+                        return () -> sink.consume(index.search(batch[next(pick, batch.length)], 10));
+                    });
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Per-line report for a bulk stock delivery, in the same order as the delivery lines.
+ */
+
+public class BatchReport {
+
+    private final StockLineResult[] results;
+    private final int[] counts = new int[StockLineResult.values().length];
+
+    /**
+     * Constructor to initialize an empty report.
+     * @param lines Number of lines in the delivery
+     */
+    public BatchReport(int lines) {
+        this.results = new StockLineResult[lines];
+    }
+
+    /**
+     * Records the outcome of a line.
+     * @param line Index of the line in the delivery
+     * @param result Outcome of the line
+     */
+    void set(int line, StockLineResult result) {
+        StockLineResult previous = results[line];
+        if (previous != null) counts[previous.ordinal()]--;
+        results[line] = result;
+        counts[result.ordinal()]++;
+    }
+
+    /**
+     * Gets the outcome of a line.
+     * @param line Index of the line in the delivery
+     * @return the outcome of that line
+     */
+    public StockLineResult get(int line) {
+        return results[line];
+    }
+
+    /**
+     * Gets the number of lines in the delivery.
+     * @return the line count
+     */
+    public int size() {
+        return results.length;
+    }
+
+    /**
+     * Counts the lines with a given outcome.
+     * @param result Outcome to count
+     * @return the number of lines with that outcome
+     */
+    public int count(StockLineResult result) {
+        return counts[result.ordinal()];
+    }
+
+    /**
+     * Counts the lines that were applied to the inventory.
+     * @return the number of added and restocked lines
+     */
+    public int appliedCount() {
+        return count(StockLineResult.ADDED) + count(StockLineResult.RESTOCKED);
+    }
+
+    /**
+     * Returns a summary of the report.
+     * @return a string with the count for each outcome
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BatchReport{lines=").append(results.length);
+        for (StockLineResult r : StockLineResult.values()) {
+            sb.append(", ").append(r.name().toLowerCase()).append('=').append(counts[r.ordinal()]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the games in an inventory.
+ * Console type is a hash index, release year and price are sorted range indexes.
+ * Each bucket is a GameTable so removing a game from its bucket stays O(1).
+ */
+
+public class CatalogIndex {
+
+    private final Map<String, GameTable> byConsole = new HashMap<>();
+    private final TreeMap<Integer, GameTable> byYear = new TreeMap<>();
+    private final TreeMap<Long, GameTable> byPrice = new TreeMap<>();
+
+    /**
+     * Adds a game to every index.
+     * @param game Game to index
+     */
+    public void add(Game game) {
+        byConsole.computeIfAbsent(consoleKey(game.getConsoleType()), k -> new GameTable()).put(game);
+        byYear.computeIfAbsent(game.getReleaseYear(), k -> new GameTable()).put(game);
+        byPrice.computeIfAbsent(game.getPricePence(), k -> new GameTable()).put(game);
+    }
+
+    /**
+     * Replaces a game with a new version of the same gameId. Indexes whose key did
+     * not change are updated in place instead of removing and re-adding the bucket entry.
+     * @param old Game being replaced
+     * @param game New version of the game
+     */
+    public void replace(Game old, Game game) {
+        String oldConsole = consoleKey(old.getConsoleType());
+        String console = consoleKey(game.getConsoleType());
+        if (oldConsole.equals(console)) {
+            byConsole.get(console).put(game);
+        } else {
+            GameTable bucket = byConsole.get(oldConsole);
+            bucket.remove(old.getGameId());
+            if (bucket.isEmpty()) byConsole.remove(oldConsole);
+            byConsole.computeIfAbsent(console, k -> new GameTable()).put(game);
+        }
+
+        if (old.getReleaseYear() == game.getReleaseYear()) {
+            byYear.get(game.getReleaseYear()).put(game);
+        } else {
+            removeFrom(byYear, old.getReleaseYear(), old.getGameId());
+            byYear.computeIfAbsent(game.getReleaseYear(), k -> new GameTable()).put(game);
+        }
+
+        if (old.getPricePence() == game.getPricePence()) {
+            byPrice.get(game.getPricePence()).put(game);
+        } else {
+            removeFrom(byPrice, old.getPricePence(), old.getGameId());
+            byPrice.computeIfAbsent(game.getPricePence(), k -> new GameTable()).put(game);
+        }
+    }
+
+    /**
+     * Removes a game from every index, dropping buckets that become empty.
+     * @param game Game to remove
+     */
+    public void remove(Game game) {
+        String console = consoleKey(game.getConsoleType());
+        GameTable bucket = byConsole.get(console);
+        if (bucket != null) {
+            bucket.remove(game.getGameId());
+            if (bucket.isEmpty()) byConsole.remove(console);
+        }
+        removeFrom(byYear, game.getReleaseYear(), game.getGameId());
+        removeFrom(byPrice, game.getPricePence(), game.getGameId());
+    }
+
+    /**
+     * Removes every game from the indexes.
+     */
+    public void clear() {
+        byConsole.clear();
+        byYear.clear();
+        byPrice.clear();
+    }
+
+    /**
+     * Finds all games for a console type (case-insensitive).
+     * @param consoleType Console type, e.g. "Switch"
+     * @return games for that console in insertion order
+     */
+    public List<Game> findByConsole(String consoleType) {
+        GameTable bucket = byConsole.get(consoleKey(consoleType));
+        return bucket == null ? new ArrayList<>() : bucket.values();
+    }
+
+    /**
+     * Finds all games released between two years, inclusive.
+     * @param fromYear First release year
+     * @param toYear Last release year
+     * @return games ordered by release year
+     */
+    public List<Game> findByYearRange(int fromYear, int toYear) {
+        List<Game> out = new ArrayList<>();
+        if (fromYear > toYear) return out;
+        for (GameTable bucket : byYear.subMap(fromYear, true, toYear, true).values()) {
+            out.addAll(bucket.values());
+        }
+        return out;
+    }
+
+    /**
+     * Finds all games priced between two values, inclusive.
+     * @param minPrice Lowest price in pence
+     * @param maxPrice Highest price in pence
+     * @return games ordered by price
+     */
+    public List<Game> findByPriceRange(long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        if (minPrice > maxPrice) return out;
+        for (GameTable bucket : byPrice.subMap(minPrice, true, maxPrice, true).values()) {
+            out.addAll(bucket.values());
+        }
+        return out;
+    }
+
+    /**
+     * Finds games matching every given filter. The most selective index drives the
+     * lookup and the remaining filters are checked on its candidates only.
+     * @param consoleType Console type, or null for any console
+     * @param fromYear First release year
+     * @param toYear Last release year
+     * @param minPrice Lowest price in pence
+     * @param maxPrice Highest price in pence
+     * @return the matching games
+     */
+    public List<Game> search(String consoleType, int fromYear, int toYear, long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        if (fromYear > toYear || minPrice > maxPrice) return out;
+
+        String console = null;
+        int best = Integer.MAX_VALUE;
+        if (consoleType != null) {
+            console = consoleKey(consoleType);
+            GameTable consoleBucket = byConsole.get(console);
+            if (consoleBucket == null) return out;
+            best = consoleBucket.size();
+        }
+
+        // Count range candidates, giving up as soon as a range is no better than the best so far
+        NavigableMap<Integer, GameTable> years = byYear.subMap(fromYear, true, toYear, true);
+        NavigableMap<Long, GameTable> prices = byPrice.subMap(minPrice, true, maxPrice, true);
+        int yearCount = countUpTo(years, best);
+        int priceCount = countUpTo(prices, Math.min(best, yearCount));
+
+        if (yearCount == 0 || priceCount == 0) return out;
+        if (priceCount < yearCount && priceCount < best) {
+            for (GameTable bucket : prices.values()) {
+                collect(bucket, console, fromYear, toYear, minPrice, maxPrice, out);
+            }
+        } else if (yearCount < best) {
+            for (GameTable bucket : years.values()) {
+                collect(bucket, console, fromYear, toYear, minPrice, maxPrice, out);
+            }
+        } else {
+            collect(byConsole.get(console), null, fromYear, toYear, minPrice, maxPrice, out);
+        }
+        return out;
+    }
+
+    // === Internal helpers ===
+
+    private static void collect(GameTable bucket, String console, int fromYear, int toYear,
+                                long minPrice, long maxPrice, List<Game> out) {
+        for (Game game : bucket.values()) {
+            int year = game.getReleaseYear();
+            long price = game.getPricePence();
+            if (year < fromYear || year > toYear) continue;
+            if (price < minPrice || price > maxPrice) continue;
+            if (console != null && !console.equals(consoleKey(game.getConsoleType()))) continue;
+            out.add(game);
+        }
+    }
+
+    private static int countUpTo(NavigableMap<?, GameTable> range, int limit) {
+        int count = 0;
+        for (GameTable bucket : range.values()) {
+            count += bucket.size();
+            if (count >= limit) return limit;
+        }
+        return count;
+    }
+
+    private static <K> void removeFrom(TreeMap<K, GameTable> index, K key, int gameId) {
+        GameTable bucket = index.get(key);
+        if (bucket == null) return;
+        bucket.remove(gameId);
+        if (bucket.isEmpty()) index.remove(key);
+    }
+
+    // Console types match ignoring case and surrounding spaces
+    static String consoleKey(String consoleType) {
+        return consoleType == null ? "" : consoleType.trim().toLowerCase(Locale.ROOT);
+    }
+}
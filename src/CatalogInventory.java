@@ -0,0 +1,438 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Inventory for catalogs too large to hold as Game objects, backed by a
+ * MappedCatalog file with a GameCache in front of it.
+ *
+ * Games stay in the mapped file until they are looked up. findById goes through
+ * the cache, so hot titles are decoded from the file once and then served from
+ * memory; cold titles cost one binary search and one decode. Only the quantity
+ * column is copied to the heap, four bytes per game, so sales never write to
+ * the file and an evicted game loses no stock changes: every Game handed out
+ * for a catalog row reads and updates that shared column.
+ *
+ * Games added with addStock live in memory in the inherited table and take
+ * precedence over the file; adding a game that is in the file replaces its row.
+ * addStock and removeStock invalidate the game's cache entry. Scans such as
+ * listings and searches read the file directly and bypass the cache, so one
+ * full listing does not evict the hot titles.
+ *
+ * The inventory is thread-safe. Quantity updates are lock-free on the shared
+ * column. Structural changes (adding, replacing and delisting games) take a
+ * write lock, and reads of the in-memory games take the matching read lock; the
+ * file itself is read-only and needs no locking. The mapped catalog must stay
+ * open while the inventory is used.
+ */
+
+public class CatalogInventory extends Inventory {
+
+    private static final VarHandle QUANTITY = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle REPLACED = MethodHandles.arrayElementVarHandle(boolean[].class);
+
+    private final MappedCatalog catalog;
+    private final GameCache cache;
+    private final int[] quantities;
+    private final boolean[] replaced; // rows delisted or overridden by an in-memory game, read through REPLACED
+    private final Map<String, Integer> consoleCodes = new HashMap<>();
+    private final Map<Integer, Game> replacements = new ConcurrentHashMap<>(); // in-memory games listed over a row
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int replacedCount;
+    private volatile CompletableFuture<Void> titlesIndexed = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructor to initialize an inventory over a catalog file.
+     * @param catalog Open catalog holding the games
+     * @param cacheCapacity Most catalog games kept decoded in memory
+     */
+    public CatalogInventory(MappedCatalog catalog, int cacheCapacity) {
+        this(catalog, new GameCache(cacheCapacity));
+    }
+
+    /**
+     * Constructor to initialize an inventory over a catalog file with a given cache.
+     * @param catalog Open catalog holding the games
+     * @param cache Cache to keep decoded games in
+     */
+    public CatalogInventory(MappedCatalog catalog, GameCache cache) {
+        super(" ", 0, 0, " ", 0, 0);
+        this.catalog = catalog;
+        this.cache = cache;
+        this.quantities = new int[catalog.size()];
+        for (int row = 0; row < quantities.length; row++) {
+            quantities[row] = catalog.quantityAt(row);
+        }
+        this.replaced = new boolean[catalog.size()];
+        String[] consoles = catalog.getConsoleTypes();
+        for (int c = 0; c < consoles.length; c++) consoleCodes.putIfAbsent(CatalogIndex.consoleKey(consoles[c]), c);
+    }
+
+    /**
+     * Gets the cache in front of the catalog, e.g. to read its hit rate.
+     * @return the cache
+     */
+    @Override
+    public GameCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Enables title search without making the caller wait for every title in the
+     * file to be indexed. The index is installed at once with the games added in
+     * memory, and a background thread fills in the file's name column; searches
+     * made before it finishes wait for it. Games added or delisted meanwhile
+     * update the index as usual.
+     */
+    @Override
+    public void enableTitleSearch() {
+        TitleIndex index = new TitleIndex();
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            for (Game game : super.listGames()) index.add(game.getGameId(), game.getNameOfGame());
+            setTitleIndex(index);
+        } finally {
+            read.unlock();
+        }
+        titlesIndexed = CompletableFuture.runAsync(() -> indexRows(index), task -> {
+            Thread t = new Thread(task, "title-indexer");
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    @Override
+    public List<TitleMatch> searchTitles(String query, int k) {
+        titlesIndexed.join();
+        return super.searchTitles(query, k);
+    }
+
+    @Override
+    public Game matchListing(String nameOfGame, String consoleType, int releaseYear) {
+        titlesIndexed.join();
+        return super.matchListing(nameOfGame, consoleType, releaseYear);
+    }
+
+    @Override
+    public Game findById(int gameId) {
+        Lock read = lock.readLock();
+        read.lock();
+        Game added;
+        try {
+            added = super.findById(gameId);
+        } finally {
+            read.unlock();
+        }
+        if (added != null) return added;
+        return cache.get(gameId, this::load);
+    }
+
+    @Override
+    public void addStock(Game game) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int row = catalog.findRow(game.getGameId());
+            if (row >= 0) {
+                // Set before the row is marked, so a row view that sees the mark finds the game
+                replacements.put(game.getGameId(), game);
+                if (!isReplaced(row)) markReplaced(row);
+            }
+            super.addStock(game);
+            cache.invalidate(game.getGameId());
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    boolean listIfAbsent(Game game) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            return super.listIfAbsent(game);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Adds a supplier delivery under the write lock, so a line for a new game
+     * cannot be listed twice by concurrent deliveries.
+     * @param lines the delivery lines
+     * @return a report with the outcome of each line
+     */
+    @Override
+    public BatchReport addStockBatch(List<Game> lines) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            return super.addStockBatch(lines);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeStock(int gameId) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            if (super.removeStock(gameId)) {
+                replacements.remove(gameId);
+                cache.invalidate(gameId);
+                return true;
+            }
+            int row = catalog.findRow(gameId);
+            if (row < 0 || isReplaced(row)) return false;
+            markReplaced(row);
+            cache.invalidate(gameId);
+            WriteAheadLog log = getLog();
+            if (log != null) log.logRemoveStock(gameId);
+            TitleIndex titles = getTitleIndex();
+            if (titles != null) titles.remove(gameId);
+            ReorderScheduler reorders = getReorders();
+            if (reorders != null) reorders.delisted(gameId);
+            return true;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public List<Game> listGames() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            List<Game> out = new ArrayList<>(catalog.size() - replacedCount);
+            for (int row = 0; row < catalog.size(); row++) {
+                if (!isReplaced(row)) out.add(view(row));
+            }
+            out.addAll(super.listGames());
+            return out;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Streams the catalog rows lazily, then a snapshot of the games added in memory.
+     * @return a stream of the games
+     */
+    @Override
+    public Stream<Game> stream() {
+        Stream<Game> rows = IntStream.range(0, catalog.size()).filter(row -> !isReplaced(row)).mapToObj(this::view);
+        return Stream.concat(rows, readAdded(super::listGames).stream());
+    }
+
+    /**
+     * Lists one page of games: catalog rows first, then games added in memory.
+     * @param cursor cursor from the previous page, or CatalogPage.FIRST
+     * @param limit maximum number of games on the page
+     * @param filter filter the games must match, or null for all games
+     * @return the page of games
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor was not returned by this inventory
+     */
+    @Override
+    public CatalogPage page(long cursor, int limit, Predicate<? super Game> filter) {
+        int rows = catalog.size();
+        checkPage(cursor, limit, rows + (long) Integer.MAX_VALUE);
+        List<Game> out = new ArrayList<>(Math.min(limit, 1024));
+        if (cursor == CatalogPage.END) return new CatalogPage(out, CatalogPage.END);
+        for (int row = (int) Math.min(cursor, rows); row < rows; row++) {
+            if (isReplaced(row)) continue;
+            Game game = view(row);
+            if (filter != null && !filter.test(game)) continue;
+            if (out.size() == limit) return new CatalogPage(out, row);
+            out.add(game);
+        }
+        // Cursors past the catalog continue through the in-memory games
+        int room = limit - out.size();
+        if (room == 0) return new CatalogPage(out, Math.max(cursor, rows));
+        CatalogPage added = readAdded(() -> super.page(Math.max(cursor - rows, 0), room, filter));
+        out.addAll(added.getGames());
+        long next = added.getNextCursor();
+        return new CatalogPage(out, next == CatalogPage.END ? CatalogPage.END : next + rows);
+    }
+
+    @Override
+    public List<Game> findByConsole(String consoleType) {
+        List<Game> out = new ArrayList<>();
+        int code = lookupConsole(consoleType);
+        if (code >= 0) {
+            for (int row = 0; row < catalog.size(); row++) {
+                if (!isReplaced(row) && catalog.consoleCodeAt(row) == code) out.add(view(row));
+            }
+        }
+        out.addAll(readAdded(() -> super.findByConsole(consoleType)));
+        return out;
+    }
+
+    @Override
+    public List<Game> findByYearRange(int fromYear, int toYear) {
+        List<Game> out = new ArrayList<>();
+        for (int row = 0; row < catalog.size(); row++) {
+            int year = catalog.releaseYearAt(row);
+            if (!isReplaced(row) && year >= fromYear && year <= toYear) out.add(view(row));
+        }
+        out.addAll(readAdded(() -> super.findByYearRange(fromYear, toYear)));
+        out.sort(Comparator.comparingInt(Game::getReleaseYear));
+        return out;
+    }
+
+    @Override
+    public List<Game> findByPriceRange(long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        for (int row = 0; row < catalog.size(); row++) {
+            long price = catalog.pricePenceAt(row);
+            if (!isReplaced(row) && price >= minPrice && price <= maxPrice) out.add(view(row));
+        }
+        out.addAll(readAdded(() -> super.findByPriceRange(minPrice, maxPrice)));
+        out.sort(Comparator.comparingLong(Game::getPricePence));
+        return out;
+    }
+
+    @Override
+    public List<Game> search(String consoleType, int fromYear, int toYear, long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        int code = consoleType == null ? -1 : lookupConsole(consoleType);
+        if (consoleType == null || code >= 0) {
+            for (int row = 0; row < catalog.size(); row++) {
+                if (isReplaced(row)) continue;
+                if (code >= 0 && catalog.consoleCodeAt(row) != code) continue;
+                int year = catalog.releaseYearAt(row);
+                if (year < fromYear || year > toYear) continue;
+                long price = catalog.pricePenceAt(row);
+                if (price < minPrice || price > maxPrice) continue;
+                out.add(view(row));
+            }
+        }
+        out.addAll(readAdded(() -> super.search(consoleType, fromYear, toYear, minPrice, maxPrice)));
+        return out;
+    }
+
+    // === Catalog rows ===
+
+    /**
+     * Game for a catalog row whose quantity lives in the inventory's quantity column.
+     */
+    private final class RowView extends Game {
+
+        private final int row;
+
+        private RowView(int row) {
+            super(catalog.gameIdAt(row), catalog.nameAt(row), catalog.releaseYearAt(row),
+                    catalog.pricePenceAt(row), catalog.consoleTypeAt(row), 0);
+            this.row = row;
+        }
+
+        @Override
+        public int getQuantity() {
+            return isReplaced(row) ? 0 : (int) QUANTITY.getVolatile(quantities, row);
+        }
+
+        @Override
+        public boolean tryTakeQuantity(int count) {
+            if (count <= 0 || isReplaced(row)) return false;
+            while (true) {
+                int current = (int) QUANTITY.getVolatile(quantities, row);
+                if (current < count) return false;
+                if (QUANTITY.compareAndSet(quantities, row, current, current - count)) return true;
+            }
+        }
+
+        /**
+         * Puts copies back into the row, or into the in-memory game listed over it
+         * since this view was made.
+         * @param count Number of copies to add
+         * @return the quantity after adding, or -1 if the game has been delisted
+         */
+        @Override
+        public int addQuantity(int count) {
+            if (!isReplaced(row)) return (int) QUANTITY.getAndAdd(quantities, row, count) + count;
+            Game current = replacements.get(getGameId());
+            return current == null ? -1 : current.addQuantity(count);
+        }
+
+        @Override
+        public String toString() {
+            return "Game{" +
+                    "quantity=" + getQuantity() +
+                    ", nameOfGame='" + getNameOfGame() + '\'' +
+                    ", releaseYear=" + getReleaseYear() +
+                    ", price=" + Money.format(getPricePence()) +
+                    ", consoleType='" + getConsoleType() + '\'' +
+                    ", gameId=" + getGameId() +
+                    '}';
+        }
+    }
+
+    // === Internal helpers ===
+
+    // Cache loader: decodes a catalog row, or returns null if the game is not in the file
+    private Game load(int gameId) {
+        int row = catalog.findRow(gameId);
+        return row < 0 || isReplaced(row) ? null : view(row);
+    }
+
+    private Game view(int row) {
+        return new RowView(row);
+    }
+
+    // Readers outside the lock, such as row views and streams, see a row marked
+    // replaced by the write lock's holder through the release/acquire pair
+    private boolean isReplaced(int row) {
+        return (boolean) REPLACED.getAcquire(replaced, row);
+    }
+
+    // Called under the write lock
+    private void markReplaced(int row) {
+        REPLACED.setRelease(replaced, row, true);
+        replacedCount++;
+    }
+
+    // Indexes the file's titles a chunk at a time under the read lock, so a row
+    // delisted or replaced meanwhile is either skipped or updated after it is indexed
+    private void indexRows(TitleIndex index) {
+        Lock read = lock.readLock();
+        for (int from = 0; from < catalog.size(); from += 4096) {
+            read.lock();
+            try {
+                for (int row = from; row < Math.min(from + 4096, catalog.size()); row++) {
+                    if (!isReplaced(row)) index.add(catalog.gameIdAt(row), catalog.nameAt(row));
+                }
+            } finally {
+                read.unlock();
+            }
+        }
+    }
+
+    // Reads the games added in memory under the read lock
+    private <T> T readAdded(Supplier<T> read) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return read.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int lookupConsole(String consoleType) {
+        Integer code = consoleCodes.get(CatalogIndex.consoleKey(consoleType));
+        return code == null ? -1 : code;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.List;
+
+/**
+ * One page of a catalog listing plus the cursor to fetch the next page with.
+ */
+
+public class CatalogPage {
+
+    /** Cursor value that starts a listing from the beginning. */
+    public static final long FIRST = 0;
+
+    /** Cursor value returned once the listing is complete. */
+    public static final long END = -1;
+
+    private final List<Game> games;
+    private final long nextCursor;
+
+    /**
+     * Constructor to initialize a page.
+     * @param games Games on this page
+     * @param nextCursor Cursor for the next page, or END
+     */
+    public CatalogPage(List<Game> games, long nextCursor) {
+        this.games = games;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the games on this page.
+     * @return the games
+     */
+    public List<Game> getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the cursor to pass to Inventory.page for the next page.
+     * @return the next cursor, or END if this was the last page
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks if there are more pages after this one.
+     * @return true if the listing is not complete
+     */
+    public boolean hasMore() {
+        return nextCursor != END;
+    }
+}
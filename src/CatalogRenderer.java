@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes catalog rows to a Writer through one reused row buffer, so rendering a
+ * listing does not build a String per game. Prices are written from whole pence
+ * rather than through String.format.
+ * A renderer is not thread-safe; use one per listing or per client.
+ */
+
+public class CatalogRenderer {
+
+    private final StringBuilder row = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    /**
+     * Writes the column header line.
+     * @param out Writer to write to
+     * @throws IOException if the writer fails
+     */
+    public void writeHeader(Writer out) throws IOException {
+        out.write(String.format("%-8s %-32s %-12s %-6s %9s %5s%n", "ID", "Name", "Console", "Year", "Price", "Qty"));
+    }
+
+    /**
+     * Writes one game as a table row.
+     * @param out Writer to write to
+     * @param game Game to write
+     * @throws IOException if the writer fails
+     */
+    public void writeRow(Writer out, Game game) throws IOException {
+        row.setLength(0);
+        padRight(row.append(game.getGameId()), 9);
+        padRight(appendClipped(row, game.getNameOfGame(), 32), 42);
+        padRight(appendClipped(row, game.getConsoleType(), 12), 55);
+        padRight(row.append(game.getReleaseYear()), 62);
+        int priceStart = row.length();
+        row.append(Money.POUND);
+        Money.append(row, game.getPricePence());
+        padLeft(priceStart, 9);
+        row.append(' ');
+        int qtyStart = row.length();
+        row.append(game.getQuantity());
+        padLeft(qtyStart, 5);
+        row.append(System.lineSeparator());
+        flushRow(out);
+    }
+
+    /**
+     * Writes a list of games with a header, or a message if there are none.
+     * @param out Writer to write to
+     * @param games Games to write
+     * @throws IOException if the writer fails
+     */
+    public void writeAll(Writer out, Iterable<Game> games) throws IOException {
+        boolean any = false;
+        for (Game game : games) {
+            if (!any) {
+                writeHeader(out);
+                any = true;
+            }
+            writeRow(out, game);
+        }
+        if (!any) {
+            out.write("No games in stock" + System.lineSeparator());
+        }
+    }
+
+    // === Internal helpers ===
+
+    private void flushRow(Writer out) throws IOException {
+        int length = row.length();
+        if (chars.length < length) {
+            chars = new char[length * 2];
+        }
+        row.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+    }
+
+    private static StringBuilder appendClipped(StringBuilder sb, String text, int width) {
+        if (text == null) return sb;
+        return sb.append(text, 0, Math.min(text.length(), width));
+    }
+
+    private static void padRight(StringBuilder sb, int column) {
+        do {
+            sb.append(' ');
+        } while (sb.length() < column);
+    }
+
+    private void padLeft(int start, int width) {
+        int pad = width - (row.length() - start);
+        for (int i = 0; i < pad; i++) {
+            row.insert(start, ' ');
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+
+/**
+ * Runs purchases as a single all-or-nothing step: the balance check, the
+ * discount, the stock decrement and the balance debit either all happen or
+ * none of them do.
+ *
+ * Each checkout holds the customer's monitor for its whole duration, so two
+ * checkouts for the same customer cannot both spend the same balance or the
+ * same next purchase discount. Stock is taken with a compare-and-set on the game's quantity
+ * while that monitor is held; nothing takes a customer monitor while holding
+ * an inventory lock, so the lock order is always customer then inventory and
+ * checkouts cannot deadlock. Checkouts for different customers run in parallel.
+ *
+ * Prices come from the inventory's PricingTable. Completed checkouts are
+ * recorded in the inventory's SalesAnalytics, and every checkout is timed
+ * into its ShopMetrics, when those are attached.
+ *
+ * A basket of several games is resolved in one inventory pass, priced and
+ * checked against the balance once, and its stock is taken all or nothing.
+ */
+
+public class CheckoutEngine {
+
+    private final Inventory inventory;
+
+    /**
+     * Constructor to initialize a checkout engine over an inventory.
+     * @param inventory Inventory to take stock from
+     */
+    public CheckoutEngine(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Buys one copy of a game by its ID.
+     * @param customer Customer paying for the game
+     * @param gameId ID of the game
+     * @return the result of the checkout
+     */
+    public CheckoutResult checkout(Customer customer, int gameId) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        Game game = inventory.findById(gameId);
+        CheckoutResult result = game == null
+                ? new CheckoutResult(CheckoutOutcome.NOT_FOUND, 0, 0, customer.getBalancePence(), gameId)
+                : buy(customer, game);
+        if (metrics != null) metrics.record(ShopOperation.CHECKOUT, result.getOutcome(), start);
+        return result;
+    }
+
+    /**
+     * Buys one copy of a game.
+     * @param customer Customer paying for the game
+     * @param game Game to buy; the copy is taken from the game listed under its ID
+     * @return the result of the checkout
+     */
+    public CheckoutResult checkout(Customer customer, Game game) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        Game listed = inventory.findById(game.getGameId());
+        CheckoutResult result = listed == null
+                ? new CheckoutResult(CheckoutOutcome.NOT_FOUND, 0, 0, customer.getBalancePence(), game.getGameId())
+                : buy(customer, listed);
+        if (metrics != null) metrics.record(ShopOperation.CHECKOUT, result.getOutcome(), start);
+        return result;
+    }
+
+    /**
+     * Buys a basket of games in one transaction: either every copy is bought
+     * or nothing is charged and no stock moves. A game listed more than once
+     * is bought that many times. The next purchase discount, if active, applies
+     * to every game in the basket and is used up once.
+     * @param customer Customer paying for the basket
+     * @param gameIds IDs of the games to buy
+     * @return the result of the checkout, with the basket total as the price
+     * @throws IllegalArgumentException if the basket is empty
+     */
+    public CheckoutResult checkoutBasket(Customer customer, int[] gameIds) {
+        if (gameIds.length == 0) {
+            throw new IllegalArgumentException("Basket is empty");
+        }
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        CheckoutResult result = buyBasket(customer, gameIds);
+        if (metrics != null) metrics.record(ShopOperation.CHECKOUT_BASKET, result.getOutcome(), start);
+        return result;
+    }
+
+    // === Internal helpers ===
+
+    private CheckoutResult buy(Customer customer, Game game) {
+        synchronized (customer) {
+            PricingTable pricing = inventory.getPricing();
+            boolean discountApplied = customer.isDiscountActive() && pricing.getNextPurchaseRate() > 0;
+            long price = pricing.price(game, customer.getPurchaseHistory().totalCount(), discountApplied);
+            long discount = game.getPricePence() - price;
+
+            if (customer.getBalancePence() < price) {
+                return new CheckoutResult(CheckoutOutcome.INSUFFICIENT_BALANCE, price, 0, customer.getBalancePence(), -1);
+            }
+            long timestamp = System.currentTimeMillis();
+            WriteAheadLog log = inventory.getLog();
+            // The copy is taken and logged under the log's monitor, so the log keeps the
+            // order of changes to the game; without a log the customer's is already held
+            synchronized (log != null ? log : customer) {
+                // Last step that can fail; once a copy is taken the debit below always succeeds
+                if (!inventory.takeStock(game, 1)) {
+                    return new CheckoutResult(CheckoutOutcome.OUT_OF_STOCK, price, 0, customer.getBalancePence(), game.getGameId());
+                }
+                customer.applyPurchase(game.getGameId(), price, discountApplied, timestamp);
+                if (log != null) {
+                    // One record for the copy taken and the debit, so recovery replays both or neither
+                    log.logPurchase(customer, game.getGameId(), price, timestamp);
+                }
+            }
+            SalesAnalytics analytics = inventory.getAnalytics();
+            if (analytics != null) {
+                analytics.recordSale(game, 1, price, timestamp);
+            }
+            return new CheckoutResult(CheckoutOutcome.PURCHASED, price, discount, customer.getBalancePence(), -1);
+        }
+    }
+
+    private CheckoutResult buyBasket(Customer customer, int[] gameIds) {
+        // Merge repeated IDs so each game is looked up and decremented once
+        int[] sorted = gameIds.clone();
+        Arrays.sort(sorted);
+        int lines = 0;
+        int[] ids = new int[sorted.length];
+        int[] counts = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            if (lines > 0 && ids[lines - 1] == sorted[i]) {
+                counts[lines - 1]++;
+            } else {
+                ids[lines] = sorted[i];
+                counts[lines++] = 1;
+            }
+        }
+        ids = Arrays.copyOf(ids, lines);
+        counts = Arrays.copyOf(counts, lines);
+
+        Game[] games = inventory.findAll(ids);
+        for (int i = 0; i < lines; i++) {
+            if (games[i] == null) {
+                return new CheckoutResult(CheckoutOutcome.NOT_FOUND, 0, 0, customer.getBalancePence(), ids[i]);
+            }
+        }
+
+        synchronized (customer) {
+            // Priced once for the whole basket: the loyalty tier is the one reached before this visit
+            PricingTable pricing = inventory.getPricing();
+            boolean discountApplied = customer.isDiscountActive() && pricing.getNextPurchaseRate() > 0;
+            long purchases = customer.getPurchaseHistory().totalCount();
+            long[] prices = new long[lines];
+            long listTotal = 0;
+            long total = 0;
+            for (int i = 0; i < lines; i++) {
+                prices[i] = pricing.price(games[i], purchases, discountApplied);
+                listTotal += games[i].getPricePence() * counts[i];
+                total += prices[i] * counts[i];
+            }
+            long discount = listTotal - total;
+
+            if (customer.getBalancePence() < total) {
+                return new CheckoutResult(CheckoutOutcome.INSUFFICIENT_BALANCE, total, 0, customer.getBalancePence(), -1);
+            }
+            long timestamp = System.currentTimeMillis();
+            WriteAheadLog log = inventory.getLog();
+            synchronized (log != null ? log : customer) {
+                int shortLine = inventory.takeStock(games, counts);
+                if (shortLine >= 0) {
+                    return new CheckoutResult(CheckoutOutcome.OUT_OF_STOCK, total, 0, customer.getBalancePence(), ids[shortLine]);
+                }
+                for (int i = 0; i < lines; i++) {
+                    for (int c = 0; c < counts[i]; c++) {
+                        customer.applyPurchase(ids[i], prices[i], discountApplied, timestamp);
+                    }
+                }
+                if (log != null) {
+                    log.logCheckout(customer, ids, counts, prices, timestamp);
+                }
+            }
+            SalesAnalytics analytics = inventory.getAnalytics();
+            if (analytics != null) {
+                for (int i = 0; i < lines; i++) {
+                    analytics.recordSale(games[i], counts[i], prices[i], timestamp);
+                }
+            }
+            return new CheckoutResult(CheckoutOutcome.PURCHASED, total, discount, customer.getBalancePence(), -1);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Outcome of a checkout attempt.
+ */
+
+public enum CheckoutOutcome {
+    /** The balance was charged and the copies were taken out of stock. */
+    PURCHASED,
+    /** No game with the requested ID is listed. */
+    NOT_FOUND,
+    /** The game is listed but there were not enough copies left. */
+    OUT_OF_STOCK,
+    /** The customer could not afford the price after any discount. */
+    INSUFFICIENT_BALANCE;
+
+    /**
+     * Checks if the checkout went through.
+     * @return true for PURCHASED
+     */
+    public boolean isPurchased() {
+        return this == PURCHASED;
+    }
+}
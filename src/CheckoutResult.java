@@ -0,0 +1,92 @@
+/**
+ * Result of a checkout of one game or a whole basket: the outcome and the amounts involved.
+ * When the checkout fails nothing was charged and no stock was moved.
+ */
+
+public class CheckoutResult {
+
+    private final CheckoutOutcome outcome;
+    private final long pricePence;
+    private final long discountPence;
+    private final long balancePence;
+    private final int gameId;
+
+    /**
+     * Constructor to initialize a checkout result.
+     * @param outcome Outcome of the checkout
+     * @param pricePence Price charged in pence, or the price that could not be paid
+     * @param discountPence Amount taken off the list price by pricing rules, in pence
+     * @param balancePence Customer's balance after the checkout, in pence
+     * @param gameId ID of the game that stopped the checkout, or -1
+     */
+    CheckoutResult(CheckoutOutcome outcome, long pricePence, long discountPence, long balancePence, int gameId) {
+        this.outcome = outcome;
+        this.pricePence = pricePence;
+        this.discountPence = discountPence;
+        this.balancePence = balancePence;
+        this.gameId = gameId;
+    }
+
+    /**
+     * Gets the outcome of the checkout.
+     * @return the outcome
+     */
+    public CheckoutOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Checks if the checkout went through.
+     * @return true if the customer was charged and the stock taken
+     */
+    public boolean isPurchased() {
+        return outcome.isPurchased();
+    }
+
+    /**
+     * Gets the price charged, or for INSUFFICIENT_BALANCE the price that was needed.
+     * @return the price in pence
+     */
+    public long getPricePence() {
+        return pricePence;
+    }
+
+    /**
+     * Gets the amount the pricing rules took off the list price.
+     * @return the discount in pence, 0 if none was applied
+     */
+    public long getDiscountPence() {
+        return discountPence;
+    }
+
+    /**
+     * Gets the customer's balance after the checkout.
+     * @return the balance in pence
+     */
+    public long getBalancePence() {
+        return balancePence;
+    }
+
+    /**
+     * Gets the game that stopped the checkout, for NOT_FOUND and OUT_OF_STOCK.
+     * @return the game ID, or -1 if no single game was at fault
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * toString method to display the checkout result
+     * @return string representation of the result
+     */
+    @Override
+    public String toString() {
+        return "CheckoutResult{" +
+                "outcome=" + outcome +
+                ", price=" + Money.format(pricePence) +
+                ", discount=" + Money.format(discountPence) +
+                ", balance=" + Money.format(balancePence) +
+                (gameId >= 0 ? ", gameId=" + gameId : "") +
+                '}';
+    }
+}
@@ -0,0 +1,285 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-writer execution mode for a ShopService, in the style of the LMAX
+ * disruptor: callers publish commands into a bounded ring buffer and get a
+ * future back, and one writer thread applies the commands in the order they
+ * were published.
+ *
+ * Publishing claims the next sequence with a compare-and-set, fills the ring
+ * slot, which was allocated up front, and releases it with a volatile write of
+ * its sequence. When the ring is full, publishers wait for the writer instead
+ * of growing it. The writer spins briefly on the next slot, then yields, then
+ * parks until a publisher wakes it. Because every mutation runs on the one
+ * writer thread, the locks inside the service are never contended and the same
+ * commands in the same order always produce the same state.
+ *
+ * Reads can go to the service directly and see each game and customer as it is
+ * at that moment, or through query, which runs the read on the writer between
+ * two commands and so sees every earlier command applied and no later one.
+ * Applied commands are passed in order to the listener, giving a replayable
+ * event stream: submitting the same commands to a fresh pipeline rebuilds the
+ * same shop.
+ *
+ * Futures are completed on the writer thread, so work chained onto them
+ * should use the async variants or it will hold up every later command.
+ */
+
+public class CommandPipeline implements AutoCloseable {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final ShopService service;
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();  // next sequence to hand out, or -(end + 1) once closed
+    private final AtomicLong applied = new AtomicLong();  // commands applied so far
+    private final Thread writer;
+
+    private volatile boolean writerParked;
+    private volatile Consumer<ShopCommand> listener;
+
+    /**
+     * Constructor to initialize a pipeline and start its writer thread.
+     * @param service Shop the commands are applied to
+     * @param capacity Most commands waiting at once, rounded up to a power of two
+     */
+    public CommandPipeline(ShopService service, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        this.service = service;
+        this.ring = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) ring[i] = new Slot();
+        this.writer = new Thread(this::runWriter, "command-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // === Commands ===
+
+    /**
+     * Publishes a command.
+     * @param command Command to apply
+     * @return a future completed with the command's result, see CommandType, or
+     *         with the IllegalArgumentException the service threw
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public CompletableFuture<Object> submit(ShopCommand command) {
+        return publish(command, null);
+    }
+
+    /**
+     * Signs a customer in, registering them if the ID is new.
+     * @param customerID ID of the customer
+     * @param name Name to register a new customer with
+     * @param address Address to register a new customer with
+     * @return a future completed with the customer's account
+     */
+    public CompletableFuture<CustomerSummary> signIn(int customerID, String name, String address) {
+        return publish(ShopCommand.signIn(customerID, name, address), null);
+    }
+
+    /**
+     * Orders copies of a game into stock.
+     * @param game Game and the number of copies ordered
+     * @return a future completed with ADDED or RESTOCKED, or why the order was rejected
+     */
+    public CompletableFuture<StockLineResult> orderStock(Game game) {
+        return publish(ShopCommand.addStock(game), null);
+    }
+
+    /**
+     * Sells one copy of a game over the counter.
+     * @param gameId ID of the game
+     * @return a future completed with the result of the sale
+     */
+    public CompletableFuture<SaleResult> sellStock(int gameId) {
+        return publish(ShopCommand.sellStock(gameId), null);
+    }
+
+    /**
+     * Buys one game or a basket of games.
+     * @param request Customer and games to buy
+     * @return a future completed with the result of the checkout
+     */
+    public CompletableFuture<CheckoutResult> purchase(PurchaseRequest request) {
+        return publish(ShopCommand.purchase(request), null);
+    }
+
+    /**
+     * Trades in copies of a game.
+     * @param request Customer and the copies traded in
+     * @return a future completed with the result of the trade-in
+     */
+    public CompletableFuture<TradeInResult> tradeIn(TradeInRequest request) {
+        return publish(ShopCommand.tradeIn(request), null);
+    }
+
+    /**
+     * Reads the shop on the writer thread, after every command published before
+     * it and before any published after it.
+     * @param read Read to run; it must not change the shop
+     * @param <T> Type of the value read
+     * @return a future completed with the value read
+     */
+    public <T> CompletableFuture<T> query(Function<ShopService, T> read) {
+        return publish(null, read);
+    }
+
+    // === Status ===
+
+    /**
+     * Sets a listener told about every command once it has been applied, in order.
+     * Commands that failed, e.g. for an unknown customer, changed nothing and are left out.
+     * It runs on the writer thread, so it should return quickly.
+     * @param listener the listener, or null for none
+     */
+    public void setListener(Consumer<ShopCommand> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the number of commands and queries applied so far.
+     * @return the applied count
+     */
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    /**
+     * Gets the number of slots in the ring.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Stops taking commands, waits for the writer to apply every command already
+     * published, and stops it. If interrupted while waiting, returns with the
+     * interrupt flag set and the writer still draining.
+     */
+    @Override
+    public void close() {
+        while (true) {
+            long next = claimed.get();
+            if (next < 0) break;
+            if (claimed.compareAndSet(next, -next - 1)) break;
+        }
+        LockSupport.unpark(writer);
+        if (Thread.currentThread() == writer) return;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === Internal helpers ===
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> publish(ShopCommand command, Function<ShopService, ?> read) {
+        long sequence = claim();
+        Slot slot = ring[(int) sequence & mask];
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        slot.command = command;
+        slot.read = read;
+        slot.future = future;
+        slot.sequence = sequence;  // releases the slot to the writer
+        if (writerParked) LockSupport.unpark(writer);
+        return (CompletableFuture<T>) future;
+    }
+
+    private long claim() {
+        int waits = 0;
+        while (true) {
+            long next = claimed.get();
+            if (next < 0) {
+                throw new IllegalStateException("Command pipeline is closed");
+            }
+            if (next - ring.length >= applied.get()) {
+                // Ring full: the slot still holds a command the writer has not applied
+                backOff(waits++);
+            } else if (claimed.compareAndSet(next, next + 1)) {
+                return next;
+            }
+        }
+    }
+
+    private void runWriter() {
+        long next = 0;
+        while (true) {
+            Slot slot = ring[(int) next & mask];
+            int waits = 0;
+            while (slot.sequence != next) {
+                long end = claimed.get();
+                if (end < 0 && next == -end - 1) return;  // closed and every command applied
+                if (waits < SPINS + YIELDS) {
+                    backOff(waits++);
+                } else {
+                    writerParked = true;
+                    if (slot.sequence != next) LockSupport.parkNanos(this, PARK_NANOS);
+                    writerParked = false;
+                }
+            }
+            apply(slot, next);
+            next++;
+        }
+    }
+
+    private void apply(Slot slot, long sequence) {
+        ShopCommand command = slot.command;
+        Function<ShopService, ?> read = slot.read;
+        CompletableFuture<Object> future = slot.future;
+        slot.command = null;
+        slot.read = null;
+        slot.future = null;
+
+        Object result = null;
+        RuntimeException failure = null;
+        try {
+            result = read != null ? read.apply(service) : command.apply(service);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        Consumer<ShopCommand> events = listener;
+        if (events != null && command != null && failure == null) events.accept(command);
+        // Free the slot before completing, so callbacks chained on the future can publish again
+        applied.lazySet(sequence + 1);
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    private static void backOff(int waits) {
+        if (waits < SPINS) {
+            Thread.onSpinWait();
+        } else if (waits < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * One ring slot. The fields are written by the publisher before the volatile
+     * sequence, and read and cleared by the writer after it.
+     */
+    private static final class Slot {
+        volatile long sequence = -1;
+        ShopCommand command;
+        Function<ShopService, ?> read;
+        CompletableFuture<Object> future;
+    }
+}
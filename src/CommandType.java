@@ -0,0 +1,16 @@
+/**
+ * Kinds of ShopCommand a CommandPipeline applies, and the result each completes with.
+ */
+
+public enum CommandType {
+    /** Sign a customer in, registering them if new; completes with a CustomerSummary. */
+    SIGN_IN,
+    /** Order copies of a game into stock; completes with a StockLineResult. */
+    ADD_STOCK,
+    /** Sell one copy over the counter; completes with a SaleResult. */
+    SELL_STOCK,
+    /** Buy one game or a basket; completes with a CheckoutResult. */
+    PURCHASE,
+    /** Trade in copies of a game; completes with a TradeInResult. */
+    TRADE_IN
+}
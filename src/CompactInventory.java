@@ -0,0 +1,438 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Inventory backend that stores games as parallel primitive arrays instead of one
+ * object per game. Console types are interned into a small dictionary and kept as
+ * one byte per game, and the ID index is an open-addressing table of ints.
+ *
+ * findById returns a lightweight Game view: its name, year, price and console are
+ * copied from the arrays, while its quantity reads and updates the shared counter,
+ * so callers like Customer.buyGame keep working unchanged.
+ *
+ * Console, year and price queries scan the primitive columns rather than keeping
+ * secondary indexes. Delisting moves the last game into the freed row, so listing
+ * order is insertion order only until the first delist. Like Inventory, structural
+ * changes are not thread-safe; quantity updates are atomic.
+ */
+
+public class CompactInventory extends Inventory {
+
+    private static final VarHandle QUANTITY = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int MAX_CONSOLES = 256;
+
+    // === Columns ===
+    private int[] ids;
+    private String[] names;
+    private int[] years;
+    private long[] prices;
+    private int[] quantities;
+    private byte[] consoles;
+    private int size;
+
+    // === Console dictionary ===
+    private final Map<String, Integer> consoleCodes = new HashMap<>();
+    private String[] consoleNames = new String[8];
+    private int consoleCount;
+
+    // === ID index: open addressing, slot holds row + 1 or 0 when empty ===
+    private int[] slotKeys;
+    private int[] slotRows;
+    private int mask;
+
+    /**
+     * Constructor to initialize an empty compact inventory.
+     */
+    public CompactInventory() {
+        this(16);
+    }
+
+    /**
+     * Constructor to initialize an empty compact inventory sized for a catalog.
+     * @param expectedSize Number of games the inventory should hold without resizing
+     */
+    public CompactInventory(int expectedSize) {
+        super(" ", 0, 0, " ", 0, 0);
+        int capacity = Math.max(expectedSize, 16);
+        ids = new int[capacity];
+        names = new String[capacity];
+        years = new int[capacity];
+        prices = new long[capacity];
+        quantities = new int[capacity];
+        consoles = new byte[capacity];
+        int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        slotKeys = new int[slots];
+        slotRows = new int[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Loads every row of a mapped catalog straight into the columns, without
+     * creating a Game per row.
+     * @param catalog the catalog to load
+     */
+    public void load(MappedCatalog catalog) {
+        ensureCapacity(size + catalog.size());
+        for (int row = 0; row < catalog.size(); row++) {
+            int gameId = catalog.gameIdAt(row);
+            int r = rowOf(gameId);
+            if (r < 0) {
+                r = size++;
+                insertSlot(gameId, r);
+            }
+            ids[r] = gameId;
+            names[r] = catalog.nameAt(row);
+            years[r] = catalog.releaseYearAt(row);
+            prices[r] = catalog.pricePenceAt(row);
+            quantities[r] = catalog.quantityAt(row);
+            consoles[r] = consoleCode(catalog.consoleTypeAt(row));
+        }
+    }
+
+    @Override
+    public void addStock(Game game) {
+        int gameId = game.getGameId();
+        int r = rowOf(gameId);
+        if (r < 0) {
+            ensureCapacity(size + 1);
+            r = size++;
+            insertSlot(gameId, r);
+        }
+        ids[r] = gameId;
+        names[r] = game.getNameOfGame();
+        years[r] = game.getReleaseYear();
+        prices[r] = game.getPricePence();
+        consoles[r] = consoleCode(game.getConsoleType());
+        QUANTITY.setVolatile(quantities, r, game.getQuantity());
+
+        WriteAheadLog log = getLog();
+        if (log != null) log.logAddStock(game);
+        TitleIndex titles = getTitleIndex();
+        if (titles != null) titles.add(gameId, game.getNameOfGame());
+    }
+
+    @Override
+    public Game findById(int gameId) {
+        int r = rowOf(gameId);
+        return r < 0 ? null : view(r);
+    }
+
+    /**
+     * Sells copies by a CAS on the quantity column, without creating a Game view.
+     * @param gameId
+     * @param count number of copies to sell
+     * @return true if all copies were sold, false if the game is unknown or there are not enough in stock
+     */
+    @Override
+    public boolean sellStock(int gameId, int count) {
+        int r = rowOf(gameId);
+        if (r < 0) return false;
+        WriteAheadLog log = getLog();
+        if (log == null) {
+            if (!takeQuantity(r, count)) return false;
+        } else {
+            synchronized (log) {
+                if (!takeQuantity(r, count)) return false;
+                log.logSellStock(gameId, count);
+            }
+        }
+        ReorderScheduler reorders = getReorders();
+        if (reorders != null) reorders.sold(gameId, (int) QUANTITY.getVolatile(quantities, r));
+        return true;
+    }
+
+    @Override
+    public boolean restock(int gameId, int count) {
+        int r = rowOf(gameId);
+        if (r < 0 || count <= 0) return false;
+        WriteAheadLog log = getLog();
+        int quantity;
+        if (log == null) {
+            quantity = (int) QUANTITY.getAndAdd(quantities, r, count) + count;
+        } else {
+            synchronized (log) {
+                quantity = (int) QUANTITY.getAndAdd(quantities, r, count) + count;
+                log.logRestock(gameId, count);
+            }
+        }
+        ReorderScheduler reorders = getReorders();
+        if (reorders != null) reorders.restocked(gameId, quantity);
+        return true;
+    }
+
+    @Override
+    public boolean removeStock(int gameId) {
+        int slot = findSlot(gameId);
+        if (slot < 0) return false;
+        int r = slotRows[slot] - 1;
+        deleteSlot(slot);
+
+        // Move the last row into the hole so the columns stay dense
+        int last = --size;
+        if (r != last) {
+            ids[r] = ids[last];
+            names[r] = names[last];
+            years[r] = years[last];
+            prices[r] = prices[last];
+            quantities[r] = quantities[last];
+            consoles[r] = consoles[last];
+            slotRows[findSlot(ids[r])] = r + 1;
+        }
+        names[last] = null;
+
+        WriteAheadLog log = getLog();
+        if (log != null) log.logRemoveStock(gameId);
+        TitleIndex titles = getTitleIndex();
+        if (titles != null) titles.remove(gameId);
+        ReorderScheduler reorders = getReorders();
+        if (reorders != null) reorders.delisted(gameId);
+        return true;
+    }
+
+    @Override
+    public List<Game> listGames() {
+        List<Game> out = new ArrayList<>(size);
+        for (int r = 0; r < size; r++) {
+            out.add(view(r));
+        }
+        return out;
+    }
+
+    @Override
+    public Stream<Game> stream() {
+        return IntStream.range(0, size).mapToObj(this::view);
+    }
+
+    /**
+     * Lists one page of games; the cursor is the row to continue from.
+     * @param cursor cursor from the previous page, or CatalogPage.FIRST
+     * @param limit maximum number of games on the page
+     * @param filter filter the games must match, or null for all games
+     * @return the page of games
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor was not returned by this inventory
+     */
+    @Override
+    public CatalogPage page(long cursor, int limit, Predicate<? super Game> filter) {
+        checkPage(cursor, limit, Integer.MAX_VALUE);
+        List<Game> out = new ArrayList<>(Math.min(limit, 1024));
+        if (cursor == CatalogPage.END) return new CatalogPage(out, CatalogPage.END);
+        for (int r = (int) cursor; r < size; r++) {
+            Game game = view(r);
+            if (filter != null && !filter.test(game)) continue;
+            if (out.size() == limit) return new CatalogPage(out, r);
+            out.add(game);
+        }
+        return new CatalogPage(out, CatalogPage.END);
+    }
+
+    @Override
+    public List<Game> findByConsole(String consoleType) {
+        List<Game> out = new ArrayList<>();
+        int code = lookupConsole(consoleType);
+        if (code < 0) return out;
+        byte c = (byte) code;
+        for (int r = 0; r < size; r++) {
+            if (consoles[r] == c) out.add(view(r));
+        }
+        return out;
+    }
+
+    @Override
+    public List<Game> findByYearRange(int fromYear, int toYear) {
+        List<Game> out = new ArrayList<>();
+        for (int r = 0; r < size; r++) {
+            if (years[r] >= fromYear && years[r] <= toYear) out.add(view(r));
+        }
+        out.sort(Comparator.comparingInt(Game::getReleaseYear));
+        return out;
+    }
+
+    @Override
+    public List<Game> findByPriceRange(long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        for (int r = 0; r < size; r++) {
+            if (prices[r] >= minPrice && prices[r] <= maxPrice) out.add(view(r));
+        }
+        out.sort(Comparator.comparingLong(Game::getPricePence));
+        return out;
+    }
+
+    @Override
+    public List<Game> search(String consoleType, int fromYear, int toYear, long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        int code = -1;
+        if (consoleType != null) {
+            code = lookupConsole(consoleType);
+            if (code < 0) return out;
+        }
+        for (int r = 0; r < size; r++) {
+            if (code >= 0 && (consoles[r] & 0xFF) != code) continue;
+            if (years[r] < fromYear || years[r] > toYear) continue;
+            if (prices[r] < minPrice || prices[r] > maxPrice) continue;
+            out.add(view(r));
+        }
+        return out;
+    }
+
+    /**
+     * Gets the number of distinct console types stored.
+     * @return the size of the console dictionary
+     */
+    public int getConsoleCount() {
+        return consoleCount;
+    }
+
+    // === Game view ===
+
+    /**
+     * Game whose quantity lives in the inventory's quantity column.
+     */
+    private final class GameView extends Game {
+
+        private GameView(int row) {
+            super(ids[row], names[row], years[row], prices[row], consoleNames[consoles[row] & 0xFF], 0);
+        }
+
+        @Override
+        public int getQuantity() {
+            int r = rowOf(getGameId());
+            return r < 0 ? 0 : (int) QUANTITY.getVolatile(quantities, r);
+        }
+
+        @Override
+        public boolean tryTakeQuantity(int count) {
+            int r = rowOf(getGameId());
+            return r >= 0 && takeQuantity(r, count);
+        }
+
+        @Override
+        public int addQuantity(int count) {
+            int r = rowOf(getGameId());
+            return r < 0 ? -1 : (int) QUANTITY.getAndAdd(quantities, r, count) + count;
+        }
+
+        @Override
+        public String toString() {
+            return "Game{" +
+                    "quantity=" + getQuantity() +
+                    ", nameOfGame='" + getNameOfGame() + '\'' +
+                    ", releaseYear=" + getReleaseYear() +
+                    ", price=" + Money.format(getPricePence()) +
+                    ", consoleType='" + getConsoleType() + '\'' +
+                    ", gameId=" + getGameId() +
+                    '}';
+        }
+    }
+
+    // === Internal helpers ===
+
+    private Game view(int row) {
+        return new GameView(row);
+    }
+
+    private boolean takeQuantity(int row, int count) {
+        if (count <= 0) return false;
+        while (true) {
+            int current = (int) QUANTITY.getVolatile(quantities, row);
+            if (current < count) return false;
+            if (QUANTITY.compareAndSet(quantities, row, current, current - count)) return true;
+        }
+    }
+
+    // Codes are keyed by the normalised console type; the first spelling seen is kept for display
+    private byte consoleCode(String consoleType) {
+        String key = CatalogIndex.consoleKey(consoleType);
+        Integer code = consoleCodes.get(key);
+        if (code == null) {
+            if (consoleCount == MAX_CONSOLES) {
+                throw new IllegalStateException("More than " + MAX_CONSOLES + " console types");
+            }
+            if (consoleCount == consoleNames.length) {
+                consoleNames = Arrays.copyOf(consoleNames, consoleCount * 2);
+            }
+            code = consoleCount;
+            consoleNames[consoleCount++] = consoleType == null ? "" : consoleType;
+            consoleCodes.put(key, code);
+        }
+        return (byte) (int) code;
+    }
+
+    private int lookupConsole(String consoleType) {
+        Integer code = consoleCodes.get(CatalogIndex.consoleKey(consoleType));
+        return code == null ? -1 : code;
+    }
+
+    private int rowOf(int gameId) {
+        int slot = findSlot(gameId);
+        return slot < 0 ? -1 : slotRows[slot] - 1;
+    }
+
+    private int findSlot(int gameId) {
+        int slot = mix(gameId) & mask;
+        while (slotRows[slot] != 0) {
+            if (slotKeys[slot] == gameId) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertSlot(int gameId, int row) {
+        int slot = mix(gameId) & mask;
+        while (slotRows[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = gameId;
+        slotRows[slot] = row + 1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slotRows[next] != 0) {
+            int home = mix(slotKeys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slotKeys[hole] = slotKeys[next];
+                slotRows[hole] = slotRows[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slotRows[hole] = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > ids.length) {
+            int capacity = Math.max(needed, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            years = Arrays.copyOf(years, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            consoles = Arrays.copyOf(consoles, capacity);
+        }
+        if (needed * 2 > slotKeys.length) {
+            int slots = Integer.highestOneBit(needed * 4 - 1) << 1;
+            slotKeys = new int[slots];
+            slotRows = new int[slots];
+            mask = slots - 1;
+            for (int r = 0; r < size; r++) {
+                insertSlot(ids[r], r);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe inventory for serving many tills and web checkouts at once.
+ * Games are split across lock stripes by gameId; each stripe has its own table,
+ * indexes and read/write lock, so operations on different SKUs run in parallel
+ * and operations on the same SKU are atomic.
+ * Listings merge the stripes, so games are not returned in global insertion order.
+ */
+
+public class ConcurrentInventory extends Inventory {
+
+    private final Inventory[] stripes;
+    private final ReentrantReadWriteLock[] locks;
+    private final int shift;
+
+    /**
+     * Constructor to initialize an empty concurrent inventory with a stripe count
+     * based on the number of available cores.
+     */
+    public ConcurrentInventory() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Constructor to initialize an empty concurrent inventory.
+     * @param stripeCount Number of lock stripes, rounded up to a power of two
+     */
+    public ConcurrentInventory(int stripeCount) {
+        super(" ", 0, 0, " ", 0, 0);
+        int n = Integer.highestOneBit(Math.max(stripeCount, 2) - 1) << 1;
+        stripes = new Inventory[n];
+        locks = new ReentrantReadWriteLock[n];
+        for (int s = 0; s < n; s++) {
+            stripes[s] = new Inventory(" ", 0, 0, " ", 0, 0);
+            locks[s] = new ReentrantReadWriteLock();
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    @Override
+    public void addStock(Game game) {
+        int s = stripeOf(game.getGameId());
+        Lock lock = locks[s].writeLock();
+        lock.lock();
+        try {
+            stripes[s].addStock(game);
+            WriteAheadLog log = getLog();
+            if (log != null) log.logAddStock(game);
+            TitleIndex titles = getTitleIndex();
+            if (titles != null) titles.add(game.getGameId(), game.getNameOfGame());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lists a game unless one with its ID is listed, under the stripe's write
+     * lock, so two callers listing the same new game cannot replace each other.
+     * @param game Game to list
+     * @return true if the game was listed by this call
+     */
+    @Override
+    boolean listIfAbsent(Game game) {
+        int s = stripeOf(game.getGameId());
+        Lock lock = locks[s].writeLock();
+        lock.lock();
+        try {
+            if (stripes[s].findById(game.getGameId()) != null) return false;
+            addStock(game);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Game findById(int gameId) {
+        int s = stripeOf(gameId);
+        Lock lock = locks[s].readLock();
+        lock.lock();
+        try {
+            return stripes[s].findById(gameId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up several games, taking each stripe's read lock once for all of
+     * the IDs that belong to it.
+     * @param gameIds IDs of the games
+     * @return the games in the same order as the IDs, with null for IDs that are not listed
+     */
+    @Override
+    public Game[] findAll(int[] gameIds) {
+        // Group positions by stripe, as addStockBatch does for delivery lines
+        int[] counts = new int[stripes.length];
+        int[] stripeOfId = new int[gameIds.length];
+        for (int i = 0; i < gameIds.length; i++) {
+            stripeOfId[i] = stripeOf(gameIds[i]);
+            counts[stripeOfId[i]]++;
+        }
+        int[] start = new int[stripes.length + 1];
+        for (int s = 0; s < stripes.length; s++) {
+            start[s + 1] = start[s] + counts[s];
+        }
+        int[] order = new int[gameIds.length];
+        int[] fill = start.clone();
+        for (int i = 0; i < gameIds.length; i++) {
+            order[fill[stripeOfId[i]]++] = i;
+        }
+
+        Game[] found = new Game[gameIds.length];
+        for (int s = 0; s < stripes.length; s++) {
+            if (start[s] == start[s + 1]) continue;
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                for (int k = start[s]; k < start[s + 1]; k++) {
+                    found[order[k]] = stripes[s].findById(gameIds[order[k]]);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes a game atomically; when several threads remove the same game
+     * only one of them gets true.
+     * @param gameId
+     * @return true if this call removed the game
+     */
+    @Override
+    public boolean removeStock(int gameId) {
+        int s = stripeOf(gameId);
+        Lock lock = locks[s].writeLock();
+        lock.lock();
+        try {
+            boolean removed = stripes[s].removeStock(gameId);
+            WriteAheadLog log = getLog();
+            if (removed && log != null) log.logRemoveStock(gameId);
+            TitleIndex titles = getTitleIndex();
+            if (removed && titles != null) titles.remove(gameId);
+            ReorderScheduler reorders = getReorders();
+            if (removed && reorders != null) reorders.delisted(gameId);
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Game> listGames() {
+        List<Game> out = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                out.addAll(stripes[s].listGames());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Streams a snapshot of the games, taken stripe by stripe.
+     * @return a stream of the games
+     */
+    @Override
+    public Stream<Game> stream() {
+        return listGames().stream();
+    }
+
+    /**
+     * Lists one page of games. The cursor holds the stripe in its upper 32 bits and
+     * the position within that stripe in its lower 32 bits.
+     * @param cursor cursor from the previous page, or CatalogPage.FIRST
+     * @param limit maximum number of games on the page
+     * @param filter filter the games must match, or null for all games
+     * @return the page of games
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor was not returned by this inventory
+     */
+    @Override
+    public CatalogPage page(long cursor, int limit, Predicate<? super Game> filter) {
+        checkPage(cursor, limit, ((long) stripes.length << 32) - 1);
+        List<Game> out = new ArrayList<>(Math.min(limit, 1024));
+        if (cursor == CatalogPage.END) return new CatalogPage(out, CatalogPage.END);
+        int s = (int) (cursor >>> 32);
+        long position = cursor & 0xFFFFFFFFL;
+        for (; s < stripes.length; s++, position = 0) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            CatalogPage part;
+            try {
+                part = stripes[s].page(position, limit - out.size(), filter);
+            } finally {
+                lock.unlock();
+            }
+            out.addAll(part.getGames());
+            if (part.hasMore()) {
+                return new CatalogPage(out, ((long) s << 32) | part.getNextCursor());
+            }
+            if (out.size() == limit && s + 1 < stripes.length) {
+                return new CatalogPage(out, (long) (s + 1) << 32);
+            }
+        }
+        return new CatalogPage(out, CatalogPage.END);
+    }
+
+    @Override
+    public List<Game> findByConsole(String consoleType) {
+        List<Game> out = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                out.addAll(stripes[s].findByConsole(consoleType));
+            } finally {
+                lock.unlock();
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public List<Game> findByYearRange(int fromYear, int toYear) {
+        List<Game> out = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                out.addAll(stripes[s].findByYearRange(fromYear, toYear));
+            } finally {
+                lock.unlock();
+            }
+        }
+        out.sort(Comparator.comparingInt(Game::getReleaseYear));
+        return out;
+    }
+
+    @Override
+    public List<Game> findByPriceRange(long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                out.addAll(stripes[s].findByPriceRange(minPrice, maxPrice));
+            } finally {
+                lock.unlock();
+            }
+        }
+        out.sort(Comparator.comparingLong(Game::getPricePence));
+        return out;
+    }
+
+    @Override
+    public List<Game> search(String consoleType, int fromYear, int toYear, long minPrice, long maxPrice) {
+        List<Game> out = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++) {
+            Lock lock = locks[s].readLock();
+            lock.lock();
+            try {
+                out.addAll(stripes[s].search(consoleType, fromYear, toYear, minPrice, maxPrice));
+            } finally {
+                lock.unlock();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Adds a supplier delivery, taking each stripe's write lock once for all of
+     * the lines that belong to it.
+     * @param lines the delivery lines
+     * @return a report with the outcome of each line
+     */
+    @Override
+    public BatchReport addStockBatch(List<Game> lines) {
+        BatchReport report = new BatchReport(lines.size());
+        validateBatch(lines, report);
+
+        // Group valid line numbers by stripe, keeping delivery order inside each stripe
+        int[] counts = new int[stripes.length];
+        int[] stripeOfLine = new int[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            if (report.get(i) != null) {
+                stripeOfLine[i] = -1;
+                continue;
+            }
+            int s = stripeOf(lines.get(i).getGameId());
+            stripeOfLine[i] = s;
+            counts[s]++;
+        }
+        int[] start = new int[stripes.length + 1];
+        for (int s = 0; s < stripes.length; s++) {
+            start[s + 1] = start[s] + counts[s];
+        }
+        int[] order = new int[start[stripes.length]];
+        int[] fill = start.clone();
+        for (int i = 0; i < lines.size(); i++) {
+            if (stripeOfLine[i] >= 0) order[fill[stripeOfLine[i]]++] = i;
+        }
+
+        WriteAheadLog log = getLog();
+        TitleIndex titles = getTitleIndex();
+        ReorderScheduler reorders = getReorders();
+        for (int s = 0; s < stripes.length; s++) {
+            if (start[s] == start[s + 1]) continue;
+            Lock lock = locks[s].writeLock();
+            lock.lock();
+            try {
+                for (int k = start[s]; k < start[s + 1]; k++) {
+                    Game line = lines.get(order[k]);
+                    StockLineResult result = applyLine(stripes[s], line, log);
+                    report.set(order[k], result);
+                    if (titles != null && result == StockLineResult.ADDED) {
+                        titles.add(line.getGameId(), line.getNameOfGame());
+                    }
+                    if (reorders != null && result == StockLineResult.RESTOCKED) {
+                        reorders.restocked(line.getGameId(), stripes[s].findById(line.getGameId()).getQuantity());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Gets the number of lock stripes.
+     * @return the stripe count
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    // === Internal helpers ===
+
+    // Applies a delivery line to a stripe and logs it under the log's monitor, so a
+    // sale of the same game is never logged before a restock that happened first
+    private static StockLineResult applyLine(Inventory stripe, Game line, WriteAheadLog log) {
+        if (log == null) return stripe.applyLine(line);
+        synchronized (log) {
+            StockLineResult result = stripe.applyLine(line);
+            if (result == StockLineResult.ADDED) {
+                log.logAddStock(line);
+            } else {
+                log.logRestock(line.getGameId(), line.getQuantity());
+            }
+            return result;
+        }
+    }
+
+    // Takes the top bits of the hash; GameTable probes on the low bits, so this
+    // keeps each stripe's table evenly spread.
+    private int stripeOf(int gameId) {
+        return (gameId * 0x9E3779B9) >>> shift;
+    }
+}
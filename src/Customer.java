@@ -11,38 +11,38 @@ public class Customer{
 
 
     // === Customer fields ===
+    // Balance, discount and histories are guarded by this customer's monitor
     private String name;
     private String address;
-    private double balance;
-    private List<String> gamesBought;
-    private List<String> gamesTradedIn;
+    private long balancePence;
+    private final TransactionHistory purchases;
+    private final TransactionHistory tradeIns;
     private int customerID;
 
     // === Discount fields ===
     private boolean hasNextPurchaseDiscount = false;
     private LocalDate discountExpiresOn = null;
 
-    // === Static "database" of customers ===
-    private final List<Customer> customerList = new ArrayList<>();
-
     // === Discount policy ===
-    private static final double NEXT_PURCHASE_DISCOUNT_RATE = 0.10;      // 10%
     private static final Period NEXT_PURCHASE_DISCOUNT_VALIDITY = Period.ofDays(30);
 
-    private static final double DEFAULT_BALANCE = 100.0;
+    private static final long DEFAULT_BALANCE_PENCE = 100_00;
+
+    // === History policy ===
+    static final int DEFAULT_HISTORY_LIMIT = 32;
 
     /**
      * toString method to display customer information
      * @return string representation of customer
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Customer{" +
                 "ID=" + customerID +
                 ", name='" + name + '\'' +
                 ", address='" + address + '\'' +
-                ", gamesBought=" + gamesBought +
-                ", gamesTradedIn=" + gamesTradedIn +
+                ", gamesBought=" + purchases +
+                ", gamesTradedIn=" + tradeIns +
                 ", nextPurchaseDiscountActive=" + isDiscountActive() +
                 (discountExpiresOn != null ? (", expiresOn=" + discountExpiresOn) : "") +
                 '}';
@@ -52,137 +52,223 @@ public class Customer{
      * Constructor to initialize a Customer object with its details.
      * @param name Name of the customer
      * @param address Address of the customer
-     * @param gamesBought List of games bought by the customer
-     * @param gamesTradedIn List of games traded in by the customer
      * @param customerID Unique identifier for the customer
      */
 
-    public Customer(String name, String address, List<String> gamesBought, List<String> gamesTradedIn, int customerID) {
+    public Customer(String name, String address, int customerID) {
+        this(name, address, customerID, DEFAULT_HISTORY_LIMIT);
+    }
+
+    /**
+     * Constructor to initialize a Customer object with a custom history bound.
+     * @param name Name of the customer
+     * @param address Address of the customer
+     * @param customerID Unique identifier for the customer
+     * @param historyLimit Most purchases and trade-ins kept individually; older ones are only counted
+     */
+
+    public Customer(String name, String address, int customerID, int historyLimit) {
         this.name = name;
         this.address = address;
-        this.gamesBought = (gamesBought != null) ? gamesBought : new ArrayList<>();
-        this.gamesTradedIn = (gamesTradedIn != null) ? gamesTradedIn : new ArrayList<>();
+        this.purchases = new TransactionHistory(historyLimit);
+        this.tradeIns = new TransactionHistory(historyLimit);
         this.customerID = customerID;
 
-        this.balance = DEFAULT_BALANCE;
+        this.balancePence = DEFAULT_BALANCE_PENCE;
     }
 
     /**
      * Method to buy a game, applying discount if available.
+     * Nothing is printed; the outcome says whether the game was bought and why not.
      * @param game Game object to be purchased
      * @param inventory Inventory object to manage stock
+     * @return the result of the checkout
      */
 
-    public void buyGame(Game game, Inventory inventory) {
-
-        // Check for discount
-        boolean discountApplied = isDiscountActive();
-        double listPrice = game.getPrice();
-        double effectivePrice = discountApplied ? round2(listPrice * (1.0 - NEXT_PURCHASE_DISCOUNT_RATE)) : listPrice;
-
-        // Check balance
-        if (balance < effectivePrice) {
-            System.out.println("Insufficient balance. Needed £" + fmt(effectivePrice) + ", have £" + fmt(balance));
-            return;
-        }
+    public CheckoutResult buyGame(Game game, Inventory inventory) {
+        return new CheckoutEngine(inventory).checkout(this, game);
+    }
 
-        // Deduct balance and update records
-        balance -= effectivePrice;
-        gamesBought.add(game.getNameOfGame());
-        Game invGame = inventory.findById(game.getGameId());
-        if (invGame == null) {
-            System.out.println("Internal warning: game missing from inventory.");
-            return;
-        }
-        inventory.removeStock(invGame.getGameId());
+    /**
+     * Gets the customer's ID.
+     * @return the customer ID
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
 
-        // Apply discount if available
-        if (discountApplied) {
-            clearNextPurchaseDiscount();
-            System.out.println("10% next-purchase discount applied: -£" + fmt(round2(listPrice - effectivePrice)));
-        } else {
-            System.out.println("No discount applied.");
-        }
+    /**
+     * Gets the customer's name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
 
-        System.out.println("Purchased: " + game.getNameOfGame() + " for £" + fmt(effectivePrice) + ". Remaining balance: £" + fmt(balance));
+    /**
+     * Gets the customer's address.
+     * @return the address
+     */
+    public String getAddress() {
+        return address;
     }
 
-    /***
-     * Method to trade in a game, adding funds and granting discount.
-     * @param inventory Inventory object to manage stock
+    /**
+     * Gets the customer's balance.
+     * @return the balance in pence
      */
+    public synchronized long getBalancePence() {
+        return balancePence;
+    }
 
-    public void tradeInGame(Inventory inventory) {
-        Scanner sc = new Scanner(System.in);
-        String gameName;
+    /**
+     * Gets the customer's purchase history.
+     * @return the purchase history
+     */
+    public TransactionHistory getPurchaseHistory() {
+        return purchases;
+    }
 
-        System.out.print("Enter the name of the game you want to trade in: ");
-        gameName = sc.nextLine();
+    /**
+     * Gets the customer's trade-in history.
+     * @return the trade-in history
+     */
+    public TransactionHistory getTradeInHistory() {
+        return tradeIns;
+    }
 
-        System.out.print("Enter the console type (e.g., PS5, Switch, Xbox): ");
-        String consoleType = sc.nextLine();
+    /**
+     * Gets the names of the games the customer has recently bought.
+     * @param inventory Inventory to look the names up in
+     * @return the game names, oldest first
+     */
+    public List<String> getGamesBought(Inventory inventory) {
+        return purchases.gameNames(inventory);
+    }
 
-        System.out.print("Enter the release year: ");
-        int releaseYear = sc.nextInt();
+    /**
+     * Gets the names of the games the customer has recently traded in.
+     * @param inventory Inventory to look the names up in
+     * @return the game names, oldest first
+     */
+    public List<String> getGamesTradedIn(Inventory inventory) {
+        return tradeIns.gameNames(inventory);
+    }
 
-        System.out.print("Enter how many copies you are selling: ");
-        int quantity = sc.nextInt();
+    /**
+     * Describes the customer with game names resolved from the inventory.
+     * @param inventory Inventory to look the names up in
+     * @return string representation of customer
+     */
+    public String describe(Inventory inventory) {
+        return summarize(inventory).toString();
+    }
 
-        if (quantity > 2){
-            System.out.print("Enter the price you want to sell them for: £");
-        }else if (quantity == 1){
-            System.out.print("Enter the price you want to sell it for: £");
-        }
+    /**
+     * Takes a consistent snapshot of the customer's account.
+     * @param inventory Inventory to look the game names up in
+     * @return the summary
+     */
+    public synchronized CustomerSummary summarize(Inventory inventory) {
+        return new CustomerSummary(customerID, name, address, balancePence,
+                isDiscountActive(), discountExpiresOn,
+                getGamesBought(inventory), purchases.getRolledUpCount(),
+                getGamesTradedIn(inventory), tradeIns.getRolledUpCount());
+    }
 
-        double price = sc.nextDouble();
+    /**
+     * Checks if the customer has an unexpired next purchase discount.
+     * @return true if the discount can be used now
+     */
+    public synchronized boolean hasActiveDiscount() {
+        return isDiscountActive();
+    }
 
-        System.out.println("Enter game id: ");
-        int id = sc.nextInt();
+    /**
+     * Checks if the customer holds a next purchase discount, without checking its expiry.
+     * @return true if a discount has been granted and not used
+     */
+    synchronized boolean hasNextPurchaseDiscount() {
+        return hasNextPurchaseDiscount;
+    }
 
-        // --- Register trade-in ---
-        gamesTradedIn.add(gameName);
+    /**
+     * Gets the date the next purchase discount expires.
+     * @return the expiry date, or null if there is none
+     */
+    synchronized LocalDate getDiscountExpiresOn() {
+        return discountExpiresOn;
+    }
 
-        // Add funds to customer's balance
-        balance += price;
-        System.out.println("Game traded in for £" + fmt(price) + ". Your new balance: £" + fmt(balance));
+    /**
+     * Restores the balance and discount state, used when recovering from disk.
+     * @param balancePence Balance in pence
+     * @param hasDiscount Whether a next purchase discount is held
+     * @param expiresOn Expiry date of the discount, or null
+     */
+    synchronized void restoreState(long balancePence, boolean hasDiscount, LocalDate expiresOn) {
+        this.balancePence = balancePence;
+        this.hasNextPurchaseDiscount = hasDiscount;
+        this.discountExpiresOn = expiresOn;
+    }
 
+    /**
+     * Adds a game to the purchase history, used when recovering from disk.
+     * @param gameId ID of the game bought
+     * @param pricePence Price paid, in pence
+     * @param timestampMillis Time of the purchase in epoch milliseconds
+     */
+    synchronized void recordBought(int gameId, long pricePence, long timestampMillis) {
+        purchases.record(gameId, pricePence, timestampMillis);
+    }
 
-        Game tradedIn = new Game(id, gameName, releaseYear, price, consoleType, quantity);
-        inventory.addStock(tradedIn);
+    /**
+     * Adds a game to the trade-in history, used when recovering from disk.
+     * @param gameId ID of the game traded in
+     * @param pricePence Price credited, in pence
+     * @param timestampMillis Time of the trade-in in epoch milliseconds
+     */
+    synchronized void recordTradedIn(int gameId, long pricePence, long timestampMillis) {
+        tradeIns.record(gameId, pricePence, timestampMillis);
+    }
 
-        // Grant discount after trade-in
-        grantNextPurchaseDiscount();
-        System.out.println("10% discount granted on your next purchase (valid for "
-                + NEXT_PURCHASE_DISCOUNT_VALIDITY.getDays() + " days).");
-
-        // Optionally let them buy a new game immediately
-        sc.nextLine(); // consume newline
-        System.out.print("Would you like to use your discount now to buy a game? (yes/no): ");
-        String choice = sc.nextLine().trim().toLowerCase();
-
-        if (choice.equals("yes")) {
-            System.out.print("Enter the Game ID you want to buy: ");
-            id = sc.nextInt();
-            Game discountedGame = inventory.findById(id);
-
-            if (discountedGame != null) {
-                buyGame(discountedGame, inventory);
-            } else {
-                System.out.println("No game found with ID " + id + ".");
-            }
-        } else {
-            System.out.println("Discount saved for later! You can use it on your next purchase before "
-                    + discountExpiresOn + ".");
+    /**
+     * Charges a purchase that has already taken its stock: debits the balance,
+     * uses up the discount if it was applied and records the purchase.
+     * Callers must hold this customer's monitor and have checked the balance.
+     * @param gameId ID of the game bought
+     * @param pricePence Price charged in pence
+     * @param discountApplied Whether the next purchase discount was used
+     * @param timestampMillis Time of the purchase in epoch milliseconds
+     */
+    void applyPurchase(int gameId, long pricePence, boolean discountApplied, long timestampMillis) {
+        balancePence -= pricePence;
+        purchases.record(gameId, pricePence, timestampMillis);
+        if (discountApplied) {
+            clearNextPurchaseDiscount();
         }
     }
 
+    /**
+     * Credits a trade-in whose copies have already been stocked: adds to the
+     * balance, records the trade-in and grants the next purchase discount.
+     * Callers must hold this customer's monitor.
+     * @param gameId ID of the game traded in
+     * @param pricePence Price credited, in pence
+     * @param timestampMillis Time of the trade-in in epoch milliseconds
+     */
+    void applyTradeIn(int gameId, long pricePence, long timestampMillis) {
+        balancePence += pricePence;
+        tradeIns.record(gameId, pricePence, timestampMillis);
+        grantNextPurchaseDiscount();
+    }
 
     /**
      * Checks if the next purchase discount is active and valid.
      * @return true if discount is active, false otherwise
      */
 
-    private boolean isDiscountActive() {
+    synchronized boolean isDiscountActive() {
         if (!hasNextPurchaseDiscount) return false;
         if (discountExpiresOn == null) return true;
         if (LocalDate.now().isAfter(discountExpiresOn)) {
@@ -209,36 +295,4 @@ public class Customer{
         this.discountExpiresOn = null;
     }
 
-    // === UTILITIES ===
-    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
-    private static String fmt(double v) { return String.format("%.2f", v); }
-
-
-//    public void returningCustomerCheck(){
-//        if (customerList.size() < 2) {
-//            System.out.println("Not enough customers to compare.");
-//            return;
-//        }
-//
-//        boolean duplicateFound = false;
-//
-//        for (int i = 0; i < customerList.size(); i++) {
-//            Customer c1 = customerList.get(i);
-//
-//            for (int j = i + 1; j < customerList.size(); j++) {
-//                Customer c2 = customerList.get(j);
-//
-//                if (c1.customerID == c2.customerID) {
-//                    System.out.println("Duplicate ID found: " + c1.customerID);
-//                    System.out.println(" → " + c1.name + " and " + c2.name);
-//                    duplicateFound = true;
-//                }
-//            }
-//        }
-//
-//        if (!duplicateFound) {
-//            System.out.println("No duplicate customer IDs found.");
-//        }
-//    }
-
 }
@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of customers keyed by customerID.
+ * Lookups are constant time and safe to use from many threads, and duplicate IDs
+ * are caught when a customer is registered rather than by comparing every pair.
+ */
+
+public class CustomerRegistry {
+
+    private final ConcurrentHashMap<Integer, Customer> customers;
+
+    /**
+     * Constructor to initialize an empty registry.
+     */
+    public CustomerRegistry() {
+        this(16);
+    }
+
+    /**
+     * Constructor to initialize an empty registry sized for the expected number of customers.
+     * @param expectedSize Number of customers the registry should hold without resizing
+     */
+    public CustomerRegistry(int expectedSize) {
+        customers = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    /**
+     * Registers a customer.
+     * @param customer Customer to register
+     * @return true if registered, false if another customer already has that ID
+     */
+    public boolean register(Customer customer) {
+        return customers.putIfAbsent(customer.getCustomerID(), customer) == null;
+    }
+
+    /**
+     * Finds a customer by ID.
+     * @param customerID ID of the customer
+     * @return the customer, or null if not registered
+     */
+    public Customer findById(int customerID) {
+        return customers.get(customerID);
+    }
+
+    /**
+     * Finds a returning customer, or registers a new one with the default balance.
+     * @param customerID ID of the customer
+     * @param name Name to use if the customer is new
+     * @param address Address to use if the customer is new
+     * @return the registered customer
+     */
+    public Customer findOrRegister(int customerID, String name, String address) {
+        return customers.computeIfAbsent(customerID, id -> new Customer(name, address, id));
+    }
+
+    /**
+     * Checks if a customer ID is registered.
+     * @param customerID ID of the customer
+     * @return true if registered
+     */
+    public boolean contains(int customerID) {
+        return customers.containsKey(customerID);
+    }
+
+    /**
+     * Gets the number of registered customers.
+     * @return the customer count
+     */
+    public int size() {
+        return customers.size();
+    }
+
+    /**
+     * Returns all registered customers.
+     * @return a new collection of the customers
+     */
+    public Collection<Customer> getAll() {
+        return new ArrayList<>(customers.values());
+    }
+}
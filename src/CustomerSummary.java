@@ -0,0 +1,153 @@
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only snapshot of a customer's account, with game names resolved from the inventory.
+ * Taken under the customer's monitor, so the balance, discount and histories agree with each other.
+ */
+
+public class CustomerSummary {
+
+    private final int customerID;
+    private final String name;
+    private final String address;
+    private final long balancePence;
+    private final boolean discountActive;
+    private final LocalDate discountExpiresOn;
+    private final List<String> gamesBought;
+    private final long earlierBought;
+    private final List<String> gamesTradedIn;
+    private final long earlierTradedIn;
+
+    /**
+     * Constructor to initialize a summary.
+     * @param customerID ID of the customer
+     * @param name Name of the customer
+     * @param address Address of the customer
+     * @param balancePence Balance in pence
+     * @param discountActive Whether a next purchase discount can be used now
+     * @param discountExpiresOn Expiry date of the discount, or null
+     * @param gamesBought Names of the recent purchases, oldest first
+     * @param earlierBought Number of older purchases only kept as a count
+     * @param gamesTradedIn Names of the recent trade-ins, oldest first
+     * @param earlierTradedIn Number of older trade-ins only kept as a count
+     */
+    CustomerSummary(int customerID, String name, String address, long balancePence,
+                    boolean discountActive, LocalDate discountExpiresOn,
+                    List<String> gamesBought, long earlierBought,
+                    List<String> gamesTradedIn, long earlierTradedIn) {
+        this.customerID = customerID;
+        this.name = name;
+        this.address = address;
+        this.balancePence = balancePence;
+        this.discountActive = discountActive;
+        this.discountExpiresOn = discountExpiresOn;
+        this.gamesBought = List.copyOf(gamesBought);
+        this.earlierBought = earlierBought;
+        this.gamesTradedIn = List.copyOf(gamesTradedIn);
+        this.earlierTradedIn = earlierTradedIn;
+    }
+
+    /**
+     * Gets the customer's ID.
+     * @return the customer ID
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * Gets the customer's name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the customer's address.
+     * @return the address
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Gets the customer's balance.
+     * @return the balance in pence
+     */
+    public long getBalancePence() {
+        return balancePence;
+    }
+
+    /**
+     * Checks if the customer can use a next purchase discount now.
+     * @return true if an unexpired discount is held
+     */
+    public boolean isDiscountActive() {
+        return discountActive;
+    }
+
+    /**
+     * Gets the date the next purchase discount expires.
+     * @return the expiry date, or null if there is none
+     */
+    public LocalDate getDiscountExpiresOn() {
+        return discountExpiresOn;
+    }
+
+    /**
+     * Gets the names of the games recently bought.
+     * @return an unmodifiable list of names, oldest first
+     */
+    public List<String> getGamesBought() {
+        return gamesBought;
+    }
+
+    /**
+     * Gets the number of purchases older than those in getGamesBought.
+     * @return the count of earlier purchases
+     */
+    public long getEarlierBought() {
+        return earlierBought;
+    }
+
+    /**
+     * Gets the names of the games recently traded in.
+     * @return an unmodifiable list of names, oldest first
+     */
+    public List<String> getGamesTradedIn() {
+        return gamesTradedIn;
+    }
+
+    /**
+     * Gets the number of trade-ins older than those in getGamesTradedIn.
+     * @return the count of earlier trade-ins
+     */
+    public long getEarlierTradedIn() {
+        return earlierTradedIn;
+    }
+
+    /**
+     * toString method to display customer information
+     * @return string representation of the customer
+     */
+    @Override
+    public String toString() {
+        return "Customer{" +
+                "ID=" + customerID +
+                ", name='" + name + '\'' +
+                ", address='" + address + '\'' +
+                ", gamesBought=" + withEarlier(earlierBought, gamesBought) +
+                ", gamesTradedIn=" + withEarlier(earlierTradedIn, gamesTradedIn) +
+                ", nextPurchaseDiscountActive=" + discountActive +
+                (discountExpiresOn != null ? (", expiresOn=" + discountExpiresOn) : "") +
+                '}';
+    }
+
+    private static String withEarlier(long earlier, List<String> names) {
+        if (earlier == 0) return names.toString();
+        String rest = names.toString().substring(1);
+        return "[" + earlier + " earlier" + (names.isEmpty() ? "" : ", ") + rest;
+    }
+}
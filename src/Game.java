@@ -1,3 +1,5 @@
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Represents a video game with its details.
  */
@@ -9,25 +11,28 @@ public class Game {
 
     private String nameOfGame;
     private int releaseYear;
-    private double price;
+    private long pricePence;
     private String consoleType;
-    private int quantity;
+    private volatile int quantity;
     private int gameId;
 
+    private static final AtomicIntegerFieldUpdater<Game> QUANTITY =
+            AtomicIntegerFieldUpdater.newUpdater(Game.class, "quantity");
+
     /**
      * Constructor to initialize a Game object with its details.
      * @param gameId Unique identifier for the game
      * @param nameOfGame Name of the game
      * @param releaseYear Year the game was released
-     * @param price Price of the game
+     * @param pricePence Price of the game in pence
      * @param consoleType Type of console the game is for
      * @param quantity Quantity of the game in stock
      */
-    public Game(int gameId, String nameOfGame, int releaseYear, double price, String consoleType, int quantity) {
+    public Game(int gameId, String nameOfGame, int releaseYear, long pricePence, String consoleType, int quantity) {
         this.gameId = gameId;
         this.nameOfGame = nameOfGame;
         this.releaseYear = releaseYear;
-        this.price = price;
+        this.pricePence = pricePence;
         this.consoleType = consoleType;
         this.quantity = quantity;
     }
@@ -42,7 +47,7 @@ public class Game {
                 "quantity=" + quantity +
                 ", nameOfGame='" + nameOfGame + '\'' +
                 ", releaseYear=" + releaseYear +
-                ", price=" + price +
+                ", price=" + Money.format(pricePence) +
                 ", consoleType='" + consoleType + '\'' +
                 ", gameId=" + gameId +
                 '}';
@@ -75,11 +80,11 @@ public class Game {
 
     /**
      * Gets the price of the game.
-     * @return the price of the game
+     * @return the price of the game in pence
      */
 
-    public double getPrice() {
-        return price;
+    public long getPricePence() {
+        return pricePence;
     }
 
     /**
@@ -91,6 +96,30 @@ public class Game {
         return quantity;
     }
 
+    /**
+     * Atomically takes copies out of stock if enough are available.
+     * @param count Number of copies to take
+     * @return true if the copies were taken, false if there were not enough in stock
+     */
+    public boolean tryTakeQuantity(int count) {
+        if (count <= 0) return false;
+        while (true) {
+            int current = quantity;
+            if (current < count) return false;
+            if (QUANTITY.compareAndSet(this, current, current - count)) return true;
+        }
+    }
+
+    /**
+     * Atomically puts copies back into stock. Views over an inventory's own
+     * storage return -1 once their game is delisted, as the copies have nowhere to go.
+     * @param count Number of copies to add
+     * @return the quantity after adding, or -1 if the game has been delisted
+     */
+    public int addQuantity(int count) {
+        return QUANTITY.addAndGet(this, count);
+    }
+
     /**
      * Gets the unique identifier of the game.
      * @return the game ID
@@ -0,0 +1,373 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded read-through cache of Game lookups keyed by gameId, with least
+ * recently used eviction.
+ *
+ * The cache is split into segments by gameId, each with its own monitor, so
+ * lookups of different games rarely contend. A segment keeps its entries in
+ * primitive arrays: an open-addressing index from gameId to entry, and a doubly
+ * linked list of entries in recency order threaded through int arrays. A hit
+ * moves its entry to the front of the list and allocates nothing.
+ *
+ * Loads run outside the segment's monitor, so a slow read from disk only delays
+ * the caller that missed. A load that overlaps an invalidation of the same
+ * segment is returned to its caller but not cached, so an invalidated entry
+ * cannot come back stale. Missing games are not cached.
+ *
+ * Hits, misses, evictions and invalidations are counted for sizing the cache.
+ */
+
+public class GameCache {
+
+    private final Segment[] segments;
+    private final int shift;
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Constructor to initialize a cache with a segment count based on the number of available cores.
+     * @param capacity Most games held at once
+     */
+    public GameCache(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Constructor to initialize a cache.
+     * @param capacity Most games held at once, spread evenly over the segments
+     * @param segmentCount Number of segments, rounded up to a power of two and
+     *                     reduced so that each segment holds at least 16 games
+     */
+    public GameCache(int capacity, int segmentCount) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1: " + capacity);
+        }
+        int n = segmentCount <= 1 ? 1 : Integer.highestOneBit(segmentCount - 1) << 1;
+        while (n > 1 && capacity / n < 16) n >>= 1;
+        segments = new Segment[n];
+        int perSegment = (capacity + n - 1) / n;
+        for (int s = 0; s < n; s++) {
+            segments[s] = new Segment(perSegment);
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+        this.capacity = perSegment * n;
+    }
+
+    /**
+     * Gets a game, loading and caching it on a miss.
+     * @param gameId ID of the game
+     * @param loader Reads the game from the backing store, returning null if it does not exist
+     * @return the game, or null if the loader found nothing
+     */
+    public Game get(int gameId, IntFunction<Game> loader) {
+        Segment segment = segmentFor(gameId);
+        long version;
+        synchronized (segment) {
+            Game cached = segment.get(gameId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            version = segment.version;
+        }
+        misses.increment();
+
+        Game loaded = loader.apply(gameId);
+        if (loaded == null) return null;
+        synchronized (segment) {
+            if (segment.version != version) return loaded;
+            // Another thread may have loaded the same game meanwhile; share its copy
+            Game raced = segment.get(gameId);
+            if (raced != null) return raced;
+            if (segment.put(gameId, loaded)) evictions.increment();
+        }
+        return loaded;
+    }
+
+    /**
+     * Gets a game only if it is cached. Does not count as a hit or miss.
+     * @param gameId ID of the game
+     * @return the cached game, or null
+     */
+    public Game getIfPresent(int gameId) {
+        Segment segment = segmentFor(gameId);
+        synchronized (segment) {
+            return segment.get(gameId);
+        }
+    }
+
+    /**
+     * Drops a game from the cache, so the next lookup reloads it.
+     * @param gameId ID of the game
+     */
+    public void invalidate(int gameId) {
+        Segment segment = segmentFor(gameId);
+        synchronized (segment) {
+            segment.version++;
+            if (segment.remove(gameId)) invalidations.increment();
+        }
+    }
+
+    /**
+     * Drops every game from the cache.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.version++;
+                invalidations.add(segment.size);
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of games cached.
+     * @return the entry count
+     */
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the most games the cache holds at once.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to load from the backing store.
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of games dropped to make room for others.
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of games dropped by invalidate or invalidateAll.
+     * @return the invalidation count
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     * @return hits divided by lookups, or 0 before the first lookup
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long lookups = h + misses.sum();
+        return lookups == 0 ? 0 : (double) h / lookups;
+    }
+
+    /**
+     * Resets the hit, miss, eviction and invalidation counters.
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        invalidations.reset();
+    }
+
+    /**
+     * Returns the size and counters.
+     * @return a string representation of the cache
+     */
+    @Override
+    public String toString() {
+        return "GameCache{" +
+                "size=" + size() +
+                ", capacity=" + capacity +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", hitRate=" + Math.round(getHitRate() * 1000) / 10.0 + "%" +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                '}';
+    }
+
+    // === Segments ===
+
+    private Segment segmentFor(int gameId) {
+        return segments.length == 1 ? segments[0] : segments[mix(gameId) >>> shift];
+    }
+
+    /**
+     * One LRU segment. Entries are dense in 0..size-1; the list runs from the
+     * most recently used entry (head) to the least (tail). Guarded by its own monitor.
+     */
+    private static final class Segment {
+
+        private static final int NONE = -1;
+
+        private final int capacity;
+        private final int[] keys;
+        private final Game[] values;
+        private final int[] prev;
+        private final int[] next;
+        private int head = NONE;
+        private int tail = NONE;
+        private int size;
+        long version;
+
+        // Index: slot holds entry + 1, or 0 when empty
+        private final int[] slots;
+        private final int mask;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            keys = new int[capacity];
+            values = new Game[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            int n = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            slots = new int[n];
+            mask = n - 1;
+        }
+
+        Game get(int key) {
+            int slot = findSlot(key);
+            if (slot < 0) return null;
+            int e = slots[slot] - 1;
+            moveToFront(e);
+            return values[e];
+        }
+
+        // Returns true if the least recently used entry was evicted to make room
+        boolean put(int key, Game value) {
+            boolean evicted = false;
+            if (size == capacity) {
+                removeEntry(findSlot(keys[tail]));
+                evicted = true;
+            }
+            int e = size++;
+            keys[e] = key;
+            values[e] = value;
+            prev[e] = NONE;
+            next[e] = head;
+            if (head != NONE) prev[head] = e;
+            head = e;
+            if (tail == NONE) tail = e;
+            insertSlot(key, e);
+            return evicted;
+        }
+
+        boolean remove(int key) {
+            int slot = findSlot(key);
+            if (slot < 0) return false;
+            removeEntry(slot);
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(slots, 0);
+            Arrays.fill(values, 0, size, null);
+            head = tail = NONE;
+            size = 0;
+        }
+
+        private void removeEntry(int slot) {
+            int e = slots[slot] - 1;
+            deleteSlot(slot);
+            unlink(e);
+
+            // Move the last entry into the hole so entries stay dense
+            int last = --size;
+            if (e != last) {
+                keys[e] = keys[last];
+                values[e] = values[last];
+                prev[e] = prev[last];
+                next[e] = next[last];
+                if (prev[e] != NONE) next[prev[e]] = e; else head = e;
+                if (next[e] != NONE) prev[next[e]] = e; else tail = e;
+                slots[findSlot(keys[e])] = e + 1;
+            }
+            values[last] = null;
+        }
+
+        private void moveToFront(int e) {
+            if (e == head) return;
+            unlink(e);
+            prev[e] = NONE;
+            next[e] = head;
+            if (head != NONE) prev[head] = e;
+            head = e;
+            if (tail == NONE) tail = e;
+        }
+
+        private void unlink(int e) {
+            if (prev[e] != NONE) next[prev[e]] = next[e]; else head = next[e];
+            if (next[e] != NONE) prev[next[e]] = prev[e]; else tail = prev[e];
+        }
+
+        private int findSlot(int key) {
+            int slot = mix(key) & mask;
+            while (slots[slot] != 0) {
+                if (keys[slots[slot] - 1] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insertSlot(int key, int e) {
+            int slot = mix(key) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = e + 1;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        private void deleteSlot(int slot) {
+            int hole = slot;
+            int probe = (hole + 1) & mask;
+            while (slots[probe] != 0) {
+                int home = mix(keys[slots[probe] - 1]) & mask;
+                if (((probe - home) & mask) >= ((probe - hole) & mask)) {
+                    slots[hole] = slots[probe];
+                    hole = probe;
+                }
+                probe = (probe + 1) & mask;
+            }
+            slots[hole] = 0;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Primary-key store for games keyed by their int gameId.
+ * Uses open addressing over primitive int keys, so lookups never box an Integer,
+ * and keeps games in a dense array so iteration follows insertion order.
+ */
+
+public class GameTable {
+
+    // === Hash slots (open addressing, linear probing) ===
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private int[] slotKeys;
+    private int[] slotIndex;     // dense index + 1, or EMPTY / DELETED
+    private int mask;
+    private int usedSlots;       // live + deleted slots
+
+    // === Dense storage in insertion order ===
+    private Game[] entries;
+    private int end;             // one past the last used dense index
+    private int size;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Constructor to initialize an empty table.
+     */
+    public GameTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to initialize an empty table sized for the expected number of games.
+     * @param expectedSize Number of games the table should hold without resizing
+     */
+    public GameTable(int expectedSize) {
+        int slots = tableSizeFor(Math.max(expectedSize, 1) * 2);
+        slotKeys = new int[slots];
+        slotIndex = new int[slots];
+        mask = slots - 1;
+        entries = new Game[Math.max(expectedSize, 4)];
+    }
+
+    /**
+     * Finds a game by its ID.
+     * @param gameId ID of the game
+     * @return the game or null if not present
+     */
+    public Game get(int gameId) {
+        int slot = findSlot(gameId);
+        return slot < 0 ? null : entries[slotIndex[slot] - 1];
+    }
+
+    /**
+     * Checks if a game with the given ID is stored.
+     * @param gameId ID of the game
+     * @return true if the game is present
+     */
+    public boolean contains(int gameId) {
+        return findSlot(gameId) >= 0;
+    }
+
+    /**
+     * Stores a game, replacing any game with the same ID in place.
+     * @param game Game to store
+     * @return the replaced game, or null if the ID was new
+     */
+    public Game put(Game game) {
+        int gameId = game.getGameId();
+        int slot = findSlot(gameId);
+        if (slot >= 0) {
+            int idx = slotIndex[slot] - 1;
+            Game old = entries[idx];
+            entries[idx] = game;
+            return old;
+        }
+
+        if (end == entries.length) {
+            growEntries();
+        }
+        if ((usedSlots + 1) * 2 > slotKeys.length) {
+            rehash(size + 1 > slotKeys.length / 4 ? slotKeys.length * 2 : slotKeys.length);
+        }
+
+        entries[end] = game;
+        insertSlot(gameId, end);
+        end++;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes a game by its ID.
+     * @param gameId ID of the game
+     * @return the removed game, or null if not present
+     */
+    public Game remove(int gameId) {
+        int slot = findSlot(gameId);
+        if (slot < 0) return null;
+
+        int idx = slotIndex[slot] - 1;
+        Game old = entries[idx];
+        entries[idx] = null;
+        slotIndex[slot] = DELETED;
+        size--;
+
+        // Compact once half of the dense array is holes so iteration stays cheap
+        if (end > 16 && size < end / 2) {
+            compact();
+        }
+        return old;
+    }
+
+    /**
+     * Gets the number of games stored.
+     * @return the number of games
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the table is empty.
+     * @return true if no games are stored
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the stored games in insertion order.
+     * @return a new list of the games
+     */
+    public List<Game> values() {
+        List<Game> out = new ArrayList<>(size);
+        for (int i = 0; i < end; i++) {
+            if (entries[i] != null) out.add(entries[i]);
+        }
+        return out;
+    }
+
+    /**
+     * Streams the stored games in insertion order without copying them.
+     * The table must not be modified while the stream is in use.
+     * @return a stream of the games
+     */
+    public Stream<Game> stream() {
+        return Arrays.stream(entries, 0, end).filter(Objects::nonNull);
+    }
+
+    /**
+     * Collects up to limit games matching a filter, starting at a position in
+     * insertion order. Positions shift when the table compacts after removals,
+     * so a scan spanning removals may skip or repeat a game.
+     * @param from Position to start at
+     * @param limit Maximum number of games to collect
+     * @param filter Filter the games must match, or null for all games
+     * @param out List to add the games to
+     * @return the position to continue from, or -1 if the end was reached
+     */
+    public int scan(int from, int limit, Predicate<? super Game> filter, List<Game> out) {
+        int added = 0;
+        for (int i = Math.max(from, 0); i < end; i++) {
+            Game game = entries[i];
+            if (game == null || (filter != null && !filter.test(game))) continue;
+            if (added == limit) return i;
+            out.add(game);
+            added++;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes every game from the table.
+     */
+    public void clear() {
+        Arrays.fill(slotIndex, EMPTY);
+        Arrays.fill(entries, 0, end, null);
+        usedSlots = 0;
+        end = 0;
+        size = 0;
+    }
+
+    // === Internal helpers ===
+
+    private int findSlot(int gameId) {
+        int slot = mix(gameId) & mask;
+        while (true) {
+            int idx = slotIndex[slot];
+            if (idx == EMPTY) return -1;
+            if (idx != DELETED && slotKeys[slot] == gameId) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertSlot(int gameId, int denseIndex) {
+        int slot = mix(gameId) & mask;
+        while (slotIndex[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (slotIndex[slot] == EMPTY) usedSlots++;
+        slotKeys[slot] = gameId;
+        slotIndex[slot] = denseIndex + 1;
+    }
+
+    private void growEntries() {
+        if (size < end) {
+            compact();
+            if (end < entries.length) return;
+        }
+        entries = Arrays.copyOf(entries, entries.length * 2);
+    }
+
+    private void compact() {
+        int w = 0;
+        for (int r = 0; r < end; r++) {
+            if (entries[r] != null) entries[w++] = entries[r];
+        }
+        Arrays.fill(entries, w, end, null);
+        end = w;
+        rehash(slotKeys.length);
+    }
+
+    private void rehash(int slots) {
+        slotKeys = new int[slots];
+        slotIndex = new int[slots];
+        mask = slots - 1;
+        usedSlots = 0;
+        for (int i = 0; i < end; i++) {
+            if (entries[i] != null) insertSlot(entries[i].getGameId(), i);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        int cap = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        return Math.max(cap, DEFAULT_CAPACITY);
+    }
+}
@@ -1,4 +1,11 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Inventory class to manage a collection of games.
@@ -6,8 +13,15 @@ import java.util.ArrayList;
 
 public class Inventory extends Game {
 
-    private ArrayList<Game> games;
+    private GameTable games;
+    private CatalogIndex index;
     private int maxQuantity = 10;
+    private volatile WriteAheadLog log;
+    private volatile PricingTable pricing = PricingTable.DEFAULT;
+    private volatile TitleIndex titles;
+    private volatile SalesAnalytics analytics;
+    private volatile ReorderScheduler reorders;
+    private volatile ShopMetrics metrics;
 
     /**
      * Constructor to initialize the inventory with an empty list of games.
@@ -17,9 +31,10 @@ public class Inventory extends Game {
      * @param consoleType
      * @param gameId
      */
-    public Inventory(String nameOfGame, int releaseYear, double price , String consoleType, int gameId, int quantity) {
+    public Inventory(String nameOfGame, int releaseYear, long price , String consoleType, int gameId, int quantity) {
         super(gameId, nameOfGame, releaseYear, price ,consoleType, quantity);
-        games = new ArrayList<>();
+        games = new GameTable();
+        index = new CatalogIndex();
     }
 
     /**
@@ -29,18 +44,185 @@ public class Inventory extends Game {
     @Override
     public String toString() {
         return "Inventory{" +
-                "games=" + games +
+                "games=" + listGames() +
                 '}';
     }
 
     /**
-     * Returns a string representation of all games in the inventory.
-     * @return a string listing all games
+     * Attaches a write-ahead log that every stock mutation is appended to.
+     * @param log the log, or null to stop logging
+     */
+    public void setLog(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Gets the attached write-ahead log.
+     * @return the log, or null if mutations are not being logged
+     */
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Puts a new set of compiled pricing rules live for every later checkout.
+     * @param pricing the pricing table
+     */
+    public void setPricing(PricingTable pricing) {
+        this.pricing = pricing;
+    }
+
+    /**
+     * Gets the pricing rules checkouts are priced with.
+     * @return the pricing table
+     */
+    public PricingTable getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Attaches sales analytics that every checkout and trade-in is recorded in.
+     * @param analytics the analytics, or null to stop recording
+     */
+    public void setAnalytics(SalesAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Gets the attached sales analytics.
+     * @return the analytics, or null if sales are not being recorded
+     */
+    public SalesAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Attaches a reorder scheduler that every sale and restock is reported to.
+     * @param reorders the scheduler, or null to stop watching stock levels
+     */
+    public void setReorders(ReorderScheduler reorders) {
+        this.reorders = reorders;
+    }
+
+    /**
+     * Gets the attached reorder scheduler.
+     * @return the scheduler, or null if stock levels are not being watched
+     */
+    public ReorderScheduler getReorders() {
+        return reorders;
+    }
+
+    /**
+     * Attaches metrics that checkouts and shop operations are timed into.
+     * @param metrics the metrics, or null to stop timing
+     */
+    public void setMetrics(ShopMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the attached metrics.
+     * @return the metrics, or null if operations are not being timed
+     */
+    public ShopMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the most copies one delivery line may add.
+     * @return the stock limit
+     */
+    public int getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    /**
+     * Builds a title index over the games listed now and keeps it up to date as
+     * games are added and removed, so searchTitles can be used. Call it before
+     * the inventory is shared between threads; games added while it runs may be missed.
+     */
+    public void enableTitleSearch() {
+        TitleIndex built = new TitleIndex();
+        stream().forEach(game -> built.add(game.getGameId(), game.getNameOfGame()));
+        titles = built;
+    }
+
+    /**
+     * Gets the title index.
+     * @return the index, or null if title search is not enabled
+     */
+    public TitleIndex getTitleIndex() {
+        return titles;
+    }
+
+    // Installs an index built by a subclass's own enableTitleSearch
+    void setTitleIndex(TitleIndex titles) {
+        this.titles = titles;
+    }
+
+    /**
+     * Gets the cache in front of the inventory's backing storage.
+     * @return the cache, or null if lookups are not cached
+     */
+    public GameCache getCache() {
+        return null;
+    }
+
+    /**
+     * Finds the games whose titles best match what a customer typed. The last
+     * word may be unfinished and a few letters may be wrong.
+     * @param query Title or part of a title
+     * @param k Most results to return
+     * @return the matches, best first
+     * @throws IllegalStateException if title search is not enabled
+     */
+    public List<TitleMatch> searchTitles(String query, int k) {
+        TitleIndex index = titles;
+        if (index == null) {
+            throw new IllegalStateException("Title search is not enabled");
+        }
+        return index.search(query, k);
+    }
+
+    /**
+     * Finds a listed game that is the same product as a described one: the title
+     * matches closely, ignoring case, punctuation and small typos, and the console
+     * and release year are the same. TitleIndex.search scores at most 4096 candidates,
+     * earliest listed first, so a title whose words thousands of others share may be
+     * missed if it was listed late; a trade-in then lists it as a new game.
+     * @param nameOfGame Title as given, e.g. on a trade-in
+     * @param consoleType Console of the game
+     * @param releaseYear Release year of the game
+     * @return the listed game, or null if none matches or title search is not enabled
+     */
+    public Game matchListing(String nameOfGame, String consoleType, int releaseYear) {
+        TitleIndex index = titles;
+        if (index == null || nameOfGame == null || consoleType == null) return null;
+        for (TitleMatch match : index.search(nameOfGame + " ", 5)) {
+            if (match.getSimilarity() < 0.8) continue;
+            Game game = findById(match.getGameId());
+            if (game != null && game.getReleaseYear() == releaseYear
+                    && game.getConsoleType().trim().equalsIgnoreCase(consoleType.trim())) {
+                return game;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a game to the inventory, replacing any game with the same ID.
      * @param game
      */
     public void addStock(Game game){
-        games.add(game);
-
+        Game replaced = games.put(game);
+        if (replaced != null) {
+            index.replace(replaced, game);
+        } else {
+            index.add(game);
+        }
+        if (log != null) log.logAddStock(game);
+        TitleIndex titles = this.titles;
+        if (titles != null) titles.add(game.getGameId(), game.getNameOfGame());
     }
 
     /**
@@ -49,58 +231,378 @@ public class Inventory extends Game {
      * @return the game found or null if not found
      */
     public Game findById(int gameId){
-        for (Game game: games)
-        {
-            if (game.getGameId() == gameId) return game;
+        return games.get(gameId);
+    }
+
+    /**
+     * Sells one copy of a game, leaving the game listed even when it runs out.
+     * @param gameId
+     * @return true if a copy was sold, false if the game is unknown or out of stock
+     */
+    public boolean sellStock(int gameId) {
+        return sellStock(gameId, 1);
+    }
+
+    /**
+     * Sells copies of a game by atomically decrementing its quantity in place.
+     * When logging, the decrement and its record are made under the log's monitor
+     * so the log keeps the order in which the game's quantity changed.
+     * @param gameId
+     * @param count number of copies to sell
+     * @return true if all copies were sold, false if the game is unknown or there are not enough in stock
+     */
+    public boolean sellStock(int gameId, int count) {
+        Game game = findById(gameId);
+        if (game == null) return false;
+        WriteAheadLog wal = log;
+        if (wal == null) {
+            if (!game.tryTakeQuantity(count)) return false;
+        } else {
+            synchronized (wal) {
+                if (!game.tryTakeQuantity(count)) return false;
+                wal.logSellStock(gameId, count);
+            }
         }
-        return null;
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) watcher.sold(gameId, game.getQuantity());
+        return true;
+    }
+
+    /**
+     * Takes copies of a game out of stock to move them to another store. Unlike a
+     * sale the copies are logged as transferred and not reported to the reorder
+     * scheduler, so a transfer is never counted as a sale.
+     * @param gameId ID of the game
+     * @param count number of copies to take
+     * @return true if the copies were taken, false if the game is unknown or there are not enough in stock
+     */
+    boolean transferOut(int gameId, int count) {
+        Game game = findById(gameId);
+        if (game == null) return false;
+        WriteAheadLog wal = log;
+        if (wal == null) return game.tryTakeQuantity(count);
+        synchronized (wal) {
+            if (!game.tryTakeQuantity(count)) return false;
+            wal.logTransferOut(gameId, count);
+        }
+        return true;
+    }
+
+    /**
+     * Puts copies of a listed game back into stock.
+     * @param gameId
+     * @param count number of copies to add
+     * @return true if the game is listed and was restocked, false otherwise
+     */
+    public boolean restock(int gameId, int count) {
+        Game game = findById(gameId);
+        if (game == null || count <= 0) return false;
+        int quantity = addLogged(game, count);
+        if (quantity < 0) return false;
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) watcher.restocked(gameId, quantity);
+        return true;
+    }
+
+    /**
+     * Looks up several games in one pass.
+     * @param gameIds IDs of the games
+     * @return the games in the same order as the IDs, with null for IDs that are not listed
+     */
+    public Game[] findAll(int[] gameIds) {
+        Game[] found = new Game[gameIds.length];
+        for (int i = 0; i < gameIds.length; i++) {
+            found[i] = findById(gameIds[i]);
+        }
+        return found;
+    }
+
+    /**
+     * Takes copies of a listed game out of stock for a checkout. The sale is not
+     * logged; the checkout logs it in the same record as the customer's debit.
+     * @param game game returned by findById
+     * @param count number of copies to take
+     * @return true if the copies were taken, false if there were not enough in stock
+     */
+    boolean takeStock(Game game, int count) {
+        if (!game.tryTakeQuantity(count)) return false;
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) watcher.sold(game.getGameId(), game.getQuantity());
+        return true;
+    }
+
+    /**
+     * Takes copies of several listed games out of stock, all or nothing.
+     * Each quantity is decremented with a CAS; if any game runs short the copies
+     * already taken are put back, so other buyers may briefly see less stock but
+     * nothing is ever oversold. The sales are not logged; the checkout logs them
+     * in the same record as the customer's debit.
+     * @param lines games returned by findById or findAll
+     * @param counts number of copies to take of each game
+     * @return -1 if every line was taken, otherwise the index of the first line that ran short
+     */
+    int takeStock(Game[] lines, int[] counts) {
+        for (int i = 0; i < lines.length; i++) {
+            if (!lines[i].tryTakeQuantity(counts[i])) {
+                for (int k = 0; k < i; k++) {
+                    lines[k].addQuantity(counts[k]);
+                }
+                return i;
+            }
+        }
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) {
+            for (Game line : lines) {
+                watcher.sold(line.getGameId(), line.getQuantity());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts traded-in copies of a listed game into stock. The restock is not
+     * logged; the trade-in logs it in the same record as the customer's credit.
+     * @param game game returned by findById
+     * @param count number of copies to add
+     * @return true if the copies were added, false if the game was delisted meanwhile
+     */
+    boolean putStock(Game game, int count) {
+        int quantity = game.addQuantity(count);
+        if (quantity < 0) return false;
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) watcher.restocked(game.getGameId(), quantity);
+        return true;
+    }
+
+    /**
+     * Adds copies to a listed game and logs them as a restock, holding the log's
+     * monitor across both so the log keeps the order of changes to the game.
+     * @param game game returned by findById
+     * @param count number of copies to add
+     * @return the new quantity, or -1 if the game was delisted meanwhile and nothing was added
+     */
+    int addLogged(Game game, int count) {
+        WriteAheadLog wal = log;
+        if (wal == null) return game.addQuantity(count);
+        synchronized (wal) {
+            int quantity = game.addQuantity(count);
+            if (quantity >= 0) wal.logRestock(game.getGameId(), count);
+            return quantity;
+        }
+    }
+
+    /**
+     * Lists a game unless a game with its ID is already listed.
+     * @param game Game to list
+     * @return true if the game was listed by this call
+     */
+    boolean listIfAbsent(Game game) {
+        if (findById(game.getGameId()) != null) return false;
+        addStock(game);
+        return true;
     }
 
     /**
-     * Removes a game from the inventory based on its ID.
+     * Delists a game, removing it from the inventory entirely.
+     * Use sellStock for sales; this is only for taking a title off the catalog.
      * @param gameId
      * @return true if the game was successfully removed, false otherwise
      */
     public boolean removeStock(int gameId) {
-        Game gameToRemove = findById(gameId);
-        if (gameToRemove != null) {
-            games.remove(gameToRemove);
-            return true; // Successfully removed
+        Game removed = games.remove(gameId);
+        if (removed == null) return false;
+        index.remove(removed);
+        if (log != null) log.logRemoveStock(gameId);
+        TitleIndex titles = this.titles;
+        if (titles != null) titles.remove(gameId);
+        ReorderScheduler watcher = reorders;
+        if (watcher != null) watcher.delisted(gameId);
+        return true;
+    }
+
+    /**
+     * Finds all games for a console type.
+     * @param consoleType
+     * @return the games for that console
+     */
+    public List<Game> findByConsole(String consoleType) {
+        return index.findByConsole(consoleType);
+    }
+
+    /**
+     * Finds all games released between two years, inclusive.
+     * @param fromYear
+     * @param toYear
+     * @return the games ordered by release year
+     */
+    public List<Game> findByYearRange(int fromYear, int toYear) {
+        return index.findByYearRange(fromYear, toYear);
+    }
+
+    /**
+     * Finds all games priced between two values, inclusive.
+     * @param minPrice lowest price in pence
+     * @param maxPrice highest price in pence
+     * @return the games ordered by price
+     */
+    public List<Game> findByPriceRange(long minPrice, long maxPrice) {
+        return index.findByPriceRange(minPrice, maxPrice);
+    }
+
+    /**
+     * Finds games matching a console type, release year range and price range.
+     * @param consoleType console type, or null for any console
+     * @param fromYear
+     * @param toYear
+     * @param minPrice lowest price in pence
+     * @param maxPrice highest price in pence
+     * @return the matching games
+     */
+    public List<Game> search(String consoleType, int fromYear, int toYear, long minPrice, long maxPrice) {
+        return index.search(consoleType, fromYear, toYear, minPrice, maxPrice);
+    }
+
+    /**
+     * Returns all games in the inventory in the order they were added.
+     * @return a new list of the games
+     */
+    public List<Game> listGames() {
+        return games.values();
+    }
+
+    /**
+     * Streams the games in the inventory in the order they were added.
+     * The inventory should not be changed while the stream is in use.
+     * @return a stream of the games
+     */
+    public Stream<Game> stream() {
+        return games.stream();
+    }
+
+    /**
+     * Lists one page of games matching a filter. Pass CatalogPage.FIRST to start and
+     * the returned next cursor for each following page. Games delisted between
+     * pages may cause a later page to skip or repeat a game.
+     * @param cursor cursor from the previous page, or CatalogPage.FIRST
+     * @param limit maximum number of games on the page
+     * @param filter filter the games must match, or null for all games
+     * @return the page of games
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor was not returned by this inventory
+     */
+    public CatalogPage page(long cursor, int limit, Predicate<? super Game> filter) {
+        checkPage(cursor, limit, Integer.MAX_VALUE);
+        List<Game> out = new ArrayList<>(Math.min(limit, 1024));
+        if (cursor == CatalogPage.END) return new CatalogPage(out, CatalogPage.END);
+        int next = games.scan((int) cursor, limit, filter, out);
+        return new CatalogPage(out, next < 0 ? CatalogPage.END : next);
+    }
+
+    /**
+     * Checks a page request before any games are read, so a client cannot page
+     * from a forged cursor or loop forever on empty pages.
+     * @param cursor cursor passed to page
+     * @param limit limit passed to page
+     * @param maxCursor highest cursor the inventory can hand out
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor is neither END nor in range
+     */
+    static void checkPage(long cursor, int limit, long maxCursor) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        if (cursor != CatalogPage.END && (cursor < 0 || cursor > maxCursor)) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
         }
-        return false;
+    }
+
+    /**
+     * Writes every game in the inventory to a Writer as a table.
+     * @param out Writer to write to
+     * @param renderer renderer to format the rows with
+     * @throws IOException if the writer fails
+     */
+    public void writeAllGames(Writer out, CatalogRenderer renderer) throws IOException {
+        renderer.writeAll(out, stream()::iterator);
     }
 
     /**
      * Displays all games in the inventory.
-     * @return false after displaying the games
+     * @return true if any games are in stock, false if the inventory is empty
      */
     public boolean getAllGames(){
-        if (games.isEmpty()){
-            System.out.println("No games in stock");
-        }else if (!games.isEmpty()){
-            System.out.println("Games in stock: ");
-            for (Game game: games){
-                System.out.println(game);
+        boolean any = stream().findAny().isPresent();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            if (any) {
+                out.write("Games in stock: " + System.lineSeparator());
+            }
+            writeAllGames(out, new CatalogRenderer());
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Error: could not list games: " + e.getMessage());
+        }
+        return any;
+    }
+
+    /**
+     * Adds a supplier delivery in one go. Every line is validated against the stock
+     * limit first, then the valid lines are applied; lines for games that are
+     * already listed restock them instead of replacing them.
+     * @param lines the delivery lines
+     * @return a report with the outcome of each line
+     */
+    public BatchReport addStockBatch(List<Game> lines) {
+        BatchReport report = new BatchReport(lines.size());
+        validateBatch(lines, report);
+        for (int i = 0; i < lines.size(); i++) {
+            if (report.get(i) == null) {
+                report.set(i, applyLine(lines.get(i)));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Records a rejection in the report for every line that fails validation.
+     * Lines that pass are left unset.
+     * @param lines the delivery lines
+     * @param report the report to fill in
+     */
+    void validateBatch(List<Game> lines, BatchReport report) {
+        for (int i = 0; i < lines.size(); i++) {
+            Game line = lines.get(i);
+            if (line == null || line.getNameOfGame() == null || line.getQuantity() < 1) {
+                report.set(i, StockLineResult.REJECTED_INVALID);
+            } else if (line.getQuantity() > maxQuantity) {
+                report.set(i, StockLineResult.REJECTED_OVER_LIMIT);
             }
         }
+    }
 
-        return false;
+    /**
+     * Applies one validated delivery line.
+     * @param line the delivery line
+     * @return ADDED for a new game, RESTOCKED for a listed one
+     */
+    StockLineResult applyLine(Game line) {
+        Game listed = findById(line.getGameId());
+        int quantity = listed == null ? -1 : addLogged(listed, line.getQuantity());
+        if (quantity >= 0) {
+            if (reorders != null) reorders.restocked(line.getGameId(), quantity);
+            return StockLineResult.RESTOCKED;
+        }
+        addStock(line);
+        return StockLineResult.ADDED;
     }
 
     /**
-     * Checks if the quantity exceeds 10 and throws an exception if it does.
-     * Catches the exception, prints an error message, and exits the program.
+     * Checks that a delivery line does not exceed the stock limit.
      * @param quantity
+     * @throws IllegalArgumentException if the quantity is over the limit
      */
 
     public void checkStockLimit(int quantity) {
-        try {
-            if (quantity > maxQuantity) {
-                throw new IllegalArgumentException("Quantity exceeds maximum limit of " + maxQuantity);
-            }
-        } catch (IllegalArgumentException e) {
-            System.out.println("Error: " + e.getMessage());
-            System.exit(1);
+        if (quantity > maxQuantity) {
+            throw new IllegalArgumentException("Quantity exceeds maximum limit of " + maxQuantity);
         }
     }
 }
\ No newline at end of file
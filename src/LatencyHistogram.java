@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with HDR-style log-linear buckets: every power
+ * of two is split into 32 equal buckets, so a recorded value is known to within
+ * about 3% from 32 ns up to the 18 minute ceiling, and values below 32 ns exactly.
+ * Recording is one atomic increment on a bucket and one LongAdder add, with no
+ * allocation and no locks.
+ *
+ * Threads count into separate stripes of buckets so that threads recording the
+ * same latency do not fight over one counter. Reading merges the stripes, so it
+ * costs a pass over every bucket and belongs in a report, not on a hot path.
+ */
+
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;                       // about 18 minutes in nanoseconds
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Constructor to initialize an empty histogram with one stripe per processor, up to 8.
+     */
+    public LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 8) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    /**
+     * Records one latency.
+     * @param nanos Latency in nanoseconds; negative values count as 0, values over the ceiling as the ceiling
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.getAndIncrement(stripe * BUCKETS + bucketOf(value));
+        sumNanos.add(value);
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     * @return the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Gets the latencies at several percentiles from one consistent read of the buckets.
+     * @param percentiles Percentiles between 0 and 100, e.g. 50, 99, 99.9
+     * @return the latency in nanoseconds at each percentile, as the top of its bucket, 0 if nothing was recorded
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] merged = merge();
+        long total = 0;
+        for (long c : merged) total += c;
+        long[] out = new long[percentiles.length];
+        if (total == 0) return out;
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += merged[b];
+                if (seen >= rank) {
+                    out[p] = highestValueIn(b);
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gets the sum of every latency recorded.
+     * @return the sum in nanoseconds
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Gets the largest latency recorded.
+     * @return the top of the highest bucket counted into, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMaxNanos() {
+        long[] merged = merge();
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+            if (merged[b] > 0) return highestValueIn(b);
+        }
+        return 0;
+    }
+
+    // === Internal helpers ===
+
+    private long[] merge() {
+        long[] merged = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) {
+            merged[i % BUCKETS] += counts.get(i);
+        }
+        return merged;
+    }
+
+    // Values below SUB_BUCKETS get a bucket each; above that each power of two
+    // [2^k, 2^(k+1)) is cut into SUB_BUCKETS buckets of width 2^(k - SUB_BITS)
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
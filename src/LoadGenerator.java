@@ -0,0 +1,277 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for ShopHttpServer.
+ *
+ * Opens a number of keep-alive connections and drives each one from its own
+ * thread (virtual when the JVM has them) in a closed loop: send a request, read
+ * the whole response, send the next. Latency is measured per request from
+ * writing the request to reading the last byte of the response, and requests
+ * made during the warmup are not counted. Reports requests per second and the
+ * p50, p99, p99.9 and max latency.
+ *
+ * With no port given, a server over a generated catalog is started in this JVM.
+ *
+ * Run with: java LoadGenerator [host=localhost] [port=8080] [connections=1000]
+ *           [seconds=10] [warmup=2] [mix=lookup|list|purchase|mixed] [games=10000] [pipeline=false]
+ * pipeline=true makes the embedded server apply mutations through a CommandPipeline.
+ * Many connections need a matching open file limit (ulimit -n).
+ */
+
+public class LoadGenerator {
+
+    private static final String[] CONSOLES = {"Switch", "PlayStation", "Xbox", "PC", "Wii"};
+
+    // Requests made by all connections, split by result
+    private static final LongAdder ok = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final LongAdder failed = new LongAdder();
+
+    /**
+     * Entry point for the load generator.
+     * @param args key=value options, see the class comment
+     * @throws Exception if the embedded server cannot start or a worker is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 0;
+        int connections = 1000;
+        int seconds = 10;
+        int warmup = 2;
+        String mix = "mixed";
+        int games = 10_000;
+        boolean pipeline = false;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? "mix" : arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "host": host = value; break;
+                case "port": port = Integer.parseInt(value); break;
+                case "connections": connections = Integer.parseInt(value); break;
+                case "seconds": seconds = Integer.parseInt(value); break;
+                case "warmup": warmup = Integer.parseInt(value); break;
+                case "mix": mix = value; break;
+                case "games": games = Integer.parseInt(value); break;
+                case "pipeline": pipeline = Boolean.parseBoolean(value); break;
+                default:
+                    System.out.println("Unknown option " + key);
+                    return;
+            }
+        }
+
+        ShopHttpServer embedded = null;
+        if (port == 0) {
+            ConcurrentInventory inventory = new ConcurrentInventory();
+            for (int id = 0; id < games; id++) {
+                inventory.addStock(new Game(id, "Game " + id, 1990 + id % 35, 500 + 100L * (id % 60),
+                        CONSOLES[id % CONSOLES.length], 1_000_000));
+            }
+            ShopService service = new ShopService(inventory, new CustomerRegistry());
+            embedded = new ShopHttpServer(service, pipeline ? new CommandPipeline(service, 65_536) : null, 0);
+            embedded.start();
+            host = "localhost";
+            port = embedded.getPort();
+            System.out.println("Started embedded server on port " + port + " over " + games + " games"
+                    + (embedded.isVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
+        }
+
+        ExecutorService virtual = ShopHttpServer.newVirtualThreadExecutor();
+        ExecutorService workers = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(null, r, "load", 256 * 1024);
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        long[][] latencies = new long[connections][];
+        CountDownLatch done = new CountDownLatch(connections);
+        for (int c = 0; c < connections; c++) {
+            Connection connection = new Connection(host, port, c, mix, games, measureFrom, end);
+            int slot = c;
+            workers.execute(() -> {
+                try {
+                    latencies[slot] = connection.run();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+        if (embedded != null) embedded.stop();
+
+        report(connections, mix, seconds, merge(latencies), virtual != null);
+    }
+
+    private static void report(int connections, String mix, int seconds, long[] latencies, boolean virtualThreads) {
+        Arrays.sort(latencies);
+        System.out.println("=== Load: " + mix + ", " + connections + " connections, " + seconds + "s"
+                + (virtualThreads ? ", virtual threads" : ", platform threads") + " ===");
+        System.out.println(String.format(Locale.ROOT,
+                "requests=%d ok=%d rejected=%d failed=%d rps=%.0f",
+                latencies.length, ok.sum(), rejected.sum(), failed.sum(), latencies.length / (double) seconds));
+        System.out.println(String.format(Locale.ROOT,
+                "latency p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                percentile(latencies, 0.999) / 1e6,
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6));
+    }
+
+    private static long[] merge(long[][] parts) {
+        int total = 0;
+        for (long[] part : parts) total += part.length;
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, at, part.length);
+            at += part.length;
+        }
+        return all;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * One keep-alive connection and the requests it makes.
+     */
+    private static final class Connection {
+
+        private final String host;
+        private final int port;
+        private final int customerId;
+        private final String mix;
+        private final int games;
+        private final long measureFrom;
+        private final long end;
+
+        private long[] latencies = new long[1024];
+        private int count;
+
+        Connection(String host, int port, int customerId, String mix, int games, long measureFrom, long end) {
+            this.host = host;
+            this.port = port;
+            this.customerId = customerId;
+            this.mix = mix;
+            this.games = games;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        long[] run() {
+            while (System.nanoTime() < end) {
+                try (Socket socket = new Socket()) {
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(host, port), 10_000);
+                    socket.setSoTimeout(30_000);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream(), 8192);
+                    exchange(out, in, "POST", "/customers", "id=" + customerId + "&name=Load&address=Bench", false);
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        exchange(out, in, next(), now >= measureFrom);
+                    }
+                } catch (IOException e) {
+                    // Count the failure and reconnect
+                    failed.increment();
+                }
+            }
+            return Arrays.copyOf(latencies, count);
+        }
+
+        // Returns method, path and body for the next request
+        private String[] next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int game = random.nextInt(games);
+            String kind = mix;
+            if (kind.equals("mixed")) {
+                int roll = random.nextInt(100);
+                kind = roll < 90 ? "lookup" : roll < 98 ? "list" : "purchase";
+            }
+            switch (kind) {
+                case "list":
+                    return new String[] {"GET", "/games?cursor=" + game + "&limit=20", ""};
+                case "purchase":
+                    return new String[] {"POST", "/purchase", "customer=" + customerId + "&games=" + game};
+                default:
+                    return new String[] {"GET", "/games/" + game, ""};
+            }
+        }
+
+        private void exchange(OutputStream out, InputStream in, String[] request, boolean measure) throws IOException {
+            exchange(out, in, request[0], request[1], request[2], measure);
+        }
+
+        private void exchange(OutputStream out, InputStream in, String method, String path, String body,
+                              boolean measure) throws IOException {
+            byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            String head = method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\n"
+                    + (content.length > 0 ? "Content-Type: application/x-www-form-urlencoded\r\n" : "")
+                    + "Content-Length: " + content.length + "\r\n\r\n";
+            byte[] request = Arrays.copyOf(head.getBytes(StandardCharsets.US_ASCII), head.length() + content.length);
+            System.arraycopy(content, 0, request, head.length(), content.length);
+            long started = System.nanoTime();
+            out.write(request); // one write, so the request goes out in one segment
+            out.flush();
+            int status = readResponse(in);
+            long elapsed = System.nanoTime() - started;
+
+            if (!measure) return;
+            if (status < 300) {
+                ok.increment();
+            } else if (status < 500) {
+                // 404 and 409 are answers, e.g. a basket the customer cannot afford
+                rejected.increment();
+            } else {
+                failed.increment();
+            }
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = elapsed;
+        }
+
+        // Reads one response and returns its status code
+        private static int readResponse(InputStream in) throws IOException {
+            String statusLine = readLine(in);
+            if (statusLine.length() < 12) throw new IOException("Bad status line: " + statusLine);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(line.substring(15).trim());
+                }
+            }
+            in.skipNBytes(length);
+            return status;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder(64);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) throw new IOException("Connection closed");
+                if (c != '\r') line.append((char) c);
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Raised by ReorderScheduler when a sale takes a game down to its reorder point.
+ */
+
+public class LowStockAlert {
+
+    private final int gameId;
+    private final int quantity;
+    private final int reorderPoint;
+    private final double daysOfCover;
+    private final long timestampMillis;
+
+    /**
+     * Constructor to initialize an alert.
+     * @param gameId ID of the game
+     * @param quantity Copies left after the sale
+     * @param reorderPoint Quantity at or below which the game is reordered
+     * @param daysOfCover Days the copies left last at the last day's sales rate
+     * @param timestampMillis Time of the alert in epoch milliseconds
+     */
+    LowStockAlert(int gameId, int quantity, int reorderPoint, double daysOfCover, long timestampMillis) {
+        this.gameId = gameId;
+        this.quantity = quantity;
+        this.reorderPoint = reorderPoint;
+        this.daysOfCover = daysOfCover;
+        this.timestampMillis = timestampMillis;
+    }
+
+    /**
+     * Gets the game that is running low.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the number of copies left when the alert was raised.
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the quantity at or below which the game is reordered.
+     * @return the reorder point
+     */
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    /**
+     * Gets how long the copies left would last at the last day's sales rate.
+     * @return the days of cover, 0 when out of stock, or infinity if none sold in the last day
+     */
+    public double getDaysOfCover() {
+        return daysOfCover;
+    }
+
+    /**
+     * Gets the time the alert was raised.
+     * @return the time in epoch milliseconds
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * toString method to display the alert
+     * @return string representation of the alert
+     */
+    @Override
+    public String toString() {
+        return "LowStockAlert{" +
+                "gameId=" + gameId +
+                ", quantity=" + quantity +
+                ", reorderPoint=" + reorderPoint +
+                (Double.isInfinite(daysOfCover) ? "" : ", daysOfCover=" + Math.round(daysOfCover * 10) / 10.0) +
+                '}';
+    }
+}
@@ -1,4 +1,8 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -9,28 +13,80 @@ import java.util.Scanner;
  */
 public class Main {
 
+    private static final String PRICING_FILE = "pricing.rules";
+    // Catalog games kept decoded in memory when the shop is served from a catalog file
+    private static final int CATALOG_CACHE_GAMES = 65_536;
+
     /**
      * Entry point for the Inventory Management System application.
      * Initializes the inventory with sample games and launches the interactive menu.
      *
-     * @param args Command-line arguments (not used)
+     * @param args Optional data directory; when given, state is recovered from and saved to it
+     * @throws IOException if the data directory cannot be read
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Scanner input = new Scanner(System.in);
-        Inventory i = new Inventory(" ", 0, 0.0, " ", 0, 0); // shared inventory
+        Inventory i = new Inventory(" ", 0, 0, " ", 0, 0); // shared inventory
+        ShopService service = openShop(args.length > 0 ? args[0] : null, i);
+        decision(input, service);
+        saveAndClose(service);
+        System.out.println("Exiting program. Goodbye!");
+    }
+
+    /**
+     * Builds the shop: recovers state and pricing rules from the data directory if one
+     * is given, and stocks the inventory with sample games when it is empty. When the
+     * data directory has a catalog file the shop is served from it through a
+     * CatalogInventory, which maps the file instead of loading every game.
+     * @param dataDirectory Data directory, or null to run in memory only
+     * @param i Empty inventory to use when there is no catalog file
+     * @return the service over the shop
+     * @throws IOException if the data directory cannot be read
+     */
+    static ShopService openShop(String dataDirectory, Inventory i) throws IOException {
+        // Registered customers, so returning customers keep their balance and discount
+        CustomerRegistry customers = new CustomerRegistry();
+
+        ShopStore store = null;
+        if (dataDirectory != null) {
+            store = new ShopStore(Paths.get(dataDirectory), 64, 50);
+            MappedCatalog catalog = store.openCatalog();
+            if (catalog != null) {
+                i = new CatalogInventory(catalog, CATALOG_CACHE_GAMES);
+                System.out.println("Opened a catalog of " + catalog.size() + " games.");
+            }
+            int replayed = store.recover(i, customers);
+            System.out.println("Recovered " + customers.size() + " customers (" + replayed + " log records replayed).");
 
-        // Pre-populate inventory with some games
+            Path pricingFile = Paths.get(dataDirectory, PRICING_FILE);
+            if (Files.exists(pricingFile)) {
+                i.setPricing(PricingTable.load(pricingFile));
+                System.out.println("Loaded " + i.getPricing().getRules().size() + " pricing rules.");
+            }
+        }
+
+        if (i.stream().findAny().isEmpty()) {
+            seedInventory(i);
+        }
+        return new ShopService(i, customers, store);
+    }
 
-        Game game1 = new Game(1234, "Shooting Stars", 2005, 33.0, "Switch", 3);
-        Game game2 = new Game(1235, "Mystic Quest", 2012, 45.0, "PlayStation", 5);
-        Game game3 = new Game(1236, "Pixel Racer X", 2018, 39.99, "Xbox", 4);
-        Game game4 = new Game(1237, "Kingdom Clash", 2020, 59.99, "Switch", 6);
-        Game game5 = new Game(1238, "Sky Fortress", 2015, 29.99, "PC", 2);
-        Game game6 = new Game(1239, "Ocean Odyssey", 2011, 19.99, "Wii", 5);
-        Game game7 = new Game(1240, "Neon Nights", 2022, 54.99, "PlayStation", 7);
-        Game game8 = new Game(1241, "Shadow Agents", 2019, 49.99, "Xbox", 3);
-        Game game9 = new Game(1242, "Retro Rally", 1999, 14.99, "PC", 8);
-        Game game10 = new Game(1243, "Chrono Heroes", 2016, 39.50, "Switch", 6);
+    /**
+     * Pre-populates the inventory with some games.
+     * @param i Inventory to fill
+     */
+    static void seedInventory(Inventory i) {
+        // Prices are in pence
+        Game game1 = new Game(1234, "Shooting Stars", 2005, 3300, "Switch", 3);
+        Game game2 = new Game(1235, "Mystic Quest", 2012, 4500, "PlayStation", 5);
+        Game game3 = new Game(1236, "Pixel Racer X", 2018, 3999, "Xbox", 4);
+        Game game4 = new Game(1237, "Kingdom Clash", 2020, 5999, "Switch", 6);
+        Game game5 = new Game(1238, "Sky Fortress", 2015, 2999, "PC", 2);
+        Game game6 = new Game(1239, "Ocean Odyssey", 2011, 1999, "Wii", 5);
+        Game game7 = new Game(1240, "Neon Nights", 2022, 5499, "PlayStation", 7);
+        Game game8 = new Game(1241, "Shadow Agents", 2019, 4999, "Xbox", 3);
+        Game game9 = new Game(1242, "Retro Rally", 1999, 1499, "PC", 8);
+        Game game10 = new Game(1243, "Chrono Heroes", 2016, 3950, "Switch", 6);
 
         i.addStock(game1);
         i.addStock(game2);
@@ -42,8 +98,6 @@ public class Main {
         i.addStock(game8);
         i.addStock(game9);
         i.addStock(game10);
-
-        decision(input, i);
     }
 
     // generate java doc for methods
@@ -51,12 +105,9 @@ public class Main {
     /**
      * Displays the customer menu for buying or trading in games.
      * @param input Scanner object to take user input.
-     * @param inventory Inventory object to manage games in stock.
+     * @param service Shop service to run the customer's actions.
      */
-    static void CustomerMenu(Scanner input, Inventory inventory) {
-        ArrayList<String> gamesBought = new ArrayList<>();
-        ArrayList<String> gamesTradedIn = new ArrayList<>();
-
+    static void CustomerMenu(Scanner input, ShopService service) {
         input.nextLine(); // clear newline
         System.out.print("Enter your name: ");
         String name = input.nextLine();
@@ -67,42 +118,224 @@ public class Main {
         System.out.print("Enter your customer ID: ");
         int customerID = input.nextInt();
 
-        System.out.println("Do you want to buy or trade in a game? (1-Buy, 2-Trade In, 3-Neither)");
+        System.out.println("Do you want to buy or trade in a game? (1-Buy, 2-Trade In, 3-Neither, 4-Search titles)");
         int action = input.nextInt();
 
-        Customer customer = new Customer(name, address, gamesBought, gamesTradedIn, customerID);
+        CustomerSummary existing = service.getCustomer(customerID);
+        if (existing != null) {
+            System.out.println("Welcome back, " + existing.getName() + "!");
+        } else {
+            service.signIn(customerID, name, address);
+        }
 
         if (action == 1) {
-            System.out.print("Enter game ID to buy: ");
-            int gameId = input.nextInt();
-            Game buyGame = inventory.findById(gameId);
-            if (buyGame != null) {
-                customer.buyGame(buyGame, inventory);
+            System.out.print("Enter game ID(s) to buy, separated by spaces: ");
+            input.nextLine(); // consume newline
+            int[] gameIds = parseGameIds(input.nextLine());
+            if (gameIds == null) {
+                System.out.println("Invalid game ID.");
             } else {
-                System.out.println("Game not found.");
+                printCheckout(service, service.purchase(new PurchaseRequest(customerID, gameIds)), gameIds.length);
             }
         } else if (action == 2) {
             input.nextLine(); // consume newline
-            customer.tradeInGame(inventory);
+            tradeIn(input, service, customerID);
+        } else if (action == 4) {
+            input.nextLine(); // consume newline
+            System.out.print("Enter part of a title: ");
+            printMatches(service, service.searchTitles(input.nextLine(), 5));
         } else {
             System.out.println("No action selected.");
         }
 
-        System.out.println("Customer created: " + customer);
+        System.out.println("Customer created: " + service.getCustomer(customerID));
         System.out.println("Returning to main menu...\n");
-        decision(input, inventory); // go back to main menu
     }
 
     /**
-     * Displays the manager menu for ordering, selling, and viewing games in stock.
+     * Asks for the details of a trade-in, runs it, and offers to spend the discount straight away.
      * @param input Scanner object to take user input.
-     * @param inventory Inventory object to manage games in stock.
+     * @param service Shop service to run the trade-in.
+     * @param customerID ID of the signed-in customer.
+     */
+    static void tradeIn(Scanner input, ShopService service, int customerID) {
+        System.out.print("Enter the name of the game you want to trade in: ");
+        String gameName = input.nextLine();
+
+        System.out.print("Enter the console type (e.g., PS5, Switch, Xbox): ");
+        String consoleType = input.nextLine();
+
+        System.out.print("Enter the release year: ");
+        int releaseYear = input.nextInt();
+
+        System.out.print("Enter how many copies you are selling: ");
+        int quantity = input.nextInt();
+
+        if (quantity > 1) {
+            System.out.print("Enter the price you want to sell them for: £");
+        } else {
+            System.out.print("Enter the price you want to sell it for: £");
+        }
+        long price = Money.parse(input.next());
+
+        System.out.println("Enter game id: ");
+        int id = input.nextInt();
+        input.nextLine(); // consume newline
+
+        TradeInResult result = service.tradeIn(new TradeInRequest(customerID, id, gameName, consoleType, releaseYear, quantity, price));
+        if (!result.isAccepted()) {
+            System.out.println(result.getStockResult() == StockLineResult.REJECTED_OVER_LIMIT
+                    ? "Error: Quantity exceeds maximum limit."
+                    : "Error: Trade-in details are not valid.");
+            return;
+        }
+        if (result.getGameId() != id) {
+            System.out.println("Matched to existing listing " + service.findGame(result.getGameId()).getNameOfGame()
+                    + " (ID " + result.getGameId() + ").");
+        }
+        System.out.println("Game traded in for £" + Money.format(result.getCreditedPence()) + ". Your new balance: £" + Money.format(result.getBalancePence()));
+        if (result.getDiscountRate() <= 0) return;
+        System.out.println(Math.round(result.getDiscountRate() * 100)
+                + "% discount granted on your next purchase (valid until " + result.getDiscountExpiresOn() + ").");
+
+        // Optionally let them buy a new game immediately
+        System.out.print("Would you like to use your discount now to buy a game? (yes/no): ");
+        String choice = input.nextLine().trim().toLowerCase();
+
+        if (choice.equals("yes")) {
+            System.out.print("Enter the Game ID you want to buy: ");
+            int gameId = input.nextInt();
+            printCheckout(service, service.purchase(new PurchaseRequest(customerID, gameId)), 1);
+        } else {
+            System.out.println("Discount saved for later! You can use it on your next purchase before "
+                    + result.getDiscountExpiresOn() + ".");
+        }
+    }
+
+    /**
+     * Prints the shop's sales: totals, per console, per release years and the best sellers.
+     * @param analytics Sales figures of the shop
+     */
+    static void printSalesReport(SalesAnalytics analytics) {
+        SalesFigures totals = analytics.getTotals();
+        System.out.println("\n====Sales====");
+        System.out.println("Sold " + totals.getUnits() + " games for £" + Money.format(totals.getRevenuePence())
+                + " (" + totals.getUnitsLastHour() + " in the last hour, " + totals.getUnitsLastDay() + " today). "
+                + totals.getTradedInUnits() + " traded in for £" + Money.format(totals.getTradeInPence()) + ".");
+        System.out.println("By console:");
+        for (SalesFigures console : analytics.byConsole()) {
+            System.out.println("  " + console.getLabel() + ": " + console.getUnits() + " sold, £" + Money.format(console.getRevenuePence()));
+        }
+        System.out.println("By release year:");
+        for (SalesFigures years : analytics.byReleaseYear()) {
+            System.out.println("  " + years.getLabel() + ": " + years.getUnits() + " sold, £" + Money.format(years.getRevenuePence()));
+        }
+        System.out.println("Best sellers:");
+        for (SalesFigures game : analytics.topSellers(5)) {
+            System.out.println("  " + game.getLabel() + " (ID " + game.getGameId() + "): " + game.getUnits() + " sold, "
+                    + game.getUnitsLastHour() + " in the last hour");
+        }
+    }
+
+    /**
+     * Prints the games waiting to be reordered and the latest supplier orders.
+     * @param reorders Reorder scheduler of the shop
      */
-    static void ManagerMenu(Scanner input, Inventory inventory) {
+    static void printReorders(ReorderScheduler reorders) {
+        System.out.println("\n====Reorders====");
+        List<LowStockAlert> queued = reorders.getQueued();
+        System.out.println(queued.isEmpty() ? "No games waiting to be reordered." : "Waiting for the next supplier order:");
+        for (LowStockAlert alert : queued) {
+            System.out.println("  Game ID " + alert.getGameId() + ": " + alert.getQuantity() + " left"
+                    + (Double.isInfinite(alert.getDaysOfCover()) ? "" : ", about " + (int) Math.ceil(alert.getDaysOfCover()) + " days of sales"));
+        }
+        for (SupplierOrder order : reorders.getRecentOrders()) {
+            System.out.println("Order " + order.getOrderNumber() + " to " + order.getSupplier() + ":");
+            for (Game line : order.getLines()) {
+                System.out.println("  " + line.getQuantity() + " x " + line.getNameOfGame() + " (ID " + line.getGameId() + ")");
+            }
+        }
+    }
+
+    /**
+     * Prints the games found by a title search.
+     * @param service Shop service to look the games up in
+     * @param matches Matches, best first
+     */
+    static void printMatches(ShopService service, List<TitleMatch> matches) {
+        if (matches.isEmpty()) {
+            System.out.println("No matching games found.");
+            return;
+        }
+        for (TitleMatch match : matches) {
+            Game game = service.findGame(match.getGameId());
+            if (game != null) System.out.println(game);
+        }
+    }
+
+    /**
+     * Prints the outcome of a checkout.
+     * @param service Shop service to look game names up in
+     * @param result Result of the checkout
+     * @param copies Number of copies in the checkout
+     */
+    static void printCheckout(ShopService service, CheckoutResult result, int copies) {
+        switch (result.getOutcome()) {
+            case NOT_FOUND:
+                System.out.println("No game found with ID " + result.getGameId() + ". Nothing was bought.");
+                return;
+            case OUT_OF_STOCK:
+                Game missing = service.findGame(result.getGameId());
+                String title = missing != null ? missing.getNameOfGame() : "Game #" + result.getGameId();
+                System.out.println("Sorry, not enough copies of " + title + " are left. Nothing was bought.");
+                return;
+            case INSUFFICIENT_BALANCE:
+                System.out.println("Insufficient balance. Needed £" + Money.format(result.getPricePence()) + ", have £" + Money.format(result.getBalancePence()));
+                return;
+            default:
+                break;
+        }
+
+        if (result.getDiscountPence() > 0) {
+            System.out.println("Discount applied: -£" + Money.format(result.getDiscountPence()));
+        } else {
+            System.out.println("No discount applied.");
+        }
+        System.out.println("Purchased " + (copies == 1 ? "1 game" : copies + " games") + " for £" + Money.format(result.getPricePence())
+                + ". Remaining balance: £" + Money.format(result.getBalancePence()));
+    }
+
+    /**
+     * Parses a line of space-separated game IDs.
+     * @param line Line entered by the customer
+     * @return the IDs, or null if the line is empty or holds something that is not a number
+     */
+    static int[] parseGameIds(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) return null;
+        String[] parts = trimmed.split("[\\s,]+");
+        int[] ids = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                ids[i] = Integer.parseInt(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return ids;
+    }
+
+    /**
+     * Displays the manager menu for ordering, selling, and viewing games in stock and sales.
+     * Returns when the manager goes back to the main menu.
+     * @param input Scanner object to take user input.
+     * @param service Shop service to manage games in stock.
+     */
+    static void ManagerMenu(Scanner input, ShopService service) {
         int option;
 
         do {
-            System.out.println("\n=== MANAGER MENU === \n1) Order a game \n2) Sell a game  \n3) View all games in stock \n4) Return to main menu");
+            System.out.println("\n=== MANAGER MENU === \n1) Order a game \n2) Sell a game  \n3) View all games in stock \n4) Return to main menu \n5) View sales report \n6) View reorders \n7) Set reorder level");
             System.out.print("Enter option: ");
 
             option = input.nextInt();
@@ -111,7 +344,6 @@ public class Main {
                 case 1:
                     System.out.print("Enter quantity: ");
                     int quantity = input.nextInt();
-                    inventory.checkStockLimit(quantity);
 
                     System.out.print("Enter game name: ");
                     input.nextLine(); // consume newline
@@ -125,35 +357,76 @@ public class Main {
                     String console = input.nextLine();
 
                     System.out.println("Enter a price for the game: ");
-                    double price = input.nextDouble();
+                    long price = Money.parse(input.next());
 
                     System.out.print("Enter game ID: ");
                     int gameId = input.nextInt();
 
-                    inventory.addStock(new Game(gameId, name, year, price, console, quantity));
-                    System.out.println("Game added successfully!");
+                    switch (service.orderStock(new Game(gameId, name, year, price, console, quantity))) {
+                        case ADDED:
+                            System.out.println("Game added successfully!");
+                            break;
+                        case RESTOCKED:
+                            System.out.println("Game restocked successfully!");
+                            break;
+                        case REJECTED_OVER_LIMIT:
+                            System.out.println("Error: Quantity exceeds maximum limit.");
+                            break;
+                        default:
+                            System.out.println("Error: Game details are not valid.");
+                    }
                     break;
 
                 case 2:
                     System.out.print("Enter game ID to sell: ");
                     int gameIdToSell = input.nextInt();
-                    boolean removed = inventory.removeStock(gameIdToSell);
-                    if (removed) {
-                        System.out.println("Game with ID " + gameIdToSell + " sold.");
-                    } else {
-                        System.out.println("Game with ID " + gameIdToSell + " not found.");
+                    SaleResult sale = service.sellStock(gameIdToSell);
+                    switch (sale.getOutcome()) {
+                        case NOT_FOUND:
+                            System.out.println("Game with ID " + gameIdToSell + " not found.");
+                            break;
+                        case OUT_OF_STOCK:
+                            System.out.println("Game with ID " + gameIdToSell + " is out of stock.");
+                            break;
+                        default:
+                            System.out.println("Game with ID " + gameIdToSell + " sold. " + sale.getRemaining() + " left in stock.");
                     }
                     break;
 
                 case 3:
                     System.out.println("\n====Current Inventory====");
-                    System.out.println(inventory.getAllGames());
+                    service.getInventory().getAllGames();
                     break;
 
                 case 4:
                     System.out.println("Returning to main menu...\n");
-                    decision(input, inventory);
-                    return; // break out of manager loop
+                    break;
+
+                case 5:
+                    printSalesReport(service.getAnalytics());
+                    break;
+
+                case 6:
+                    printReorders(service.getReorders());
+                    break;
+
+                case 7:
+                    System.out.print("Enter game ID: ");
+                    int gameIdToWatch = input.nextInt();
+                    System.out.print("Reorder when stock falls to: ");
+                    int reorderPoint = input.nextInt();
+                    System.out.print("Copies to order: ");
+                    int reorderQuantity = input.nextInt();
+                    try {
+                        if (service.setReorderLevel(gameIdToWatch, reorderPoint, reorderQuantity)) {
+                            System.out.println("Reorder level set.");
+                        } else {
+                            System.out.println("Game with ID " + gameIdToWatch + " not found.");
+                        }
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Error: " + e.getMessage());
+                    }
+                    break;
 
                 default:
                     System.out.println("Invalid option. Try again.");
@@ -162,12 +435,25 @@ public class Main {
         } while (option != 4);
     }
 
+    /**
+     * Writes a snapshot and closes the store, if one is open.
+     * @param service Shop service to save
+     */
+    static void saveAndClose(ShopService service) {
+        try {
+            service.close();
+        } catch (IOException e) {
+            System.out.println("Error: could not save shop data: " + e.getMessage());
+        }
+    }
+
     /**
      * Displays the main menu for selecting user type (Manager or Customer) or quitting.
+     * The sub-menus return here, so a session of any length runs in this one loop.
      * @param input Scanner object to take user input.
-     * @param inventory Inventory object to manage games in stock.
+     * @param service Shop service the menus drive.
      */
-    static void decision(Scanner input, Inventory inventory) {
+    static void decision(Scanner input, ShopService service) {
         int userType;
 
         do {
@@ -181,14 +467,12 @@ public class Main {
 
             switch (userType) {
                 case 1:
-                    ManagerMenu(input, inventory);
+                    ManagerMenu(input, service);
                     break;
                 case 2:
-                    CustomerMenu(input, inventory);
+                    CustomerMenu(input, service);
                     break;
                 case 3:
-                    System.out.println("Exiting program. Goodbye!");
-                    System.exit(0);
                     break;
                 default:
                     System.out.println("Invalid option. Please try again.");
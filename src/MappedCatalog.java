@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only columnar catalog file opened through a MappedByteBuffer.
+ * Opening only reads the header and the console dictionary, and lookups read the
+ * columns straight from the mapped file, so no Game objects are created until a
+ * caller asks for one.
+ *
+ * Layout (big-endian, rows sorted by gameId):
+ * <pre>
+ * header   magic, version, rows, consoles, nameBlobBytes     (5 ints, padded to 32 bytes)
+ * price    long[rows]      pence
+ * gameId   int[rows]
+ * year     int[rows]
+ * quantity int[rows]
+ * nameOff  int[rows + 1]   offsets into the name blob
+ * console  byte[rows]      index into the console dictionary
+ * dict     for each console: int length, utf-8 bytes
+ * names    utf-8 name blob
+ * </pre>
+ */
+
+public class MappedCatalog implements AutoCloseable {
+
+    private static final int MAGIC = 0x47534343; // "GSCC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final String[] consoles;
+
+    // Section offsets
+    private final int priceAt;
+    private final int idAt;
+    private final int yearAt;
+    private final int quantityAt;
+    private final int nameOffAt;
+    private final int consoleAt;
+    private final int namesAt;
+
+    private MappedCatalog(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a catalog file");
+        }
+        rows = buffer.getInt(8);
+        int consoleCount = buffer.getInt(12);
+
+        priceAt = HEADER_BYTES;
+        idAt = priceAt + 8 * rows;
+        yearAt = idAt + 4 * rows;
+        quantityAt = yearAt + 4 * rows;
+        nameOffAt = quantityAt + 4 * rows;
+        consoleAt = nameOffAt + 4 * (rows + 1);
+
+        consoles = new String[consoleCount];
+        int pos = consoleAt + rows;
+        for (int c = 0; c < consoleCount; c++) {
+            int length = buffer.getInt(pos);
+            consoles[c] = decode(pos + 4, length);
+            pos += 4 + length;
+        }
+        namesAt = pos;
+    }
+
+    /**
+     * Opens a catalog file.
+     * @param file Path of the catalog file
+     * @return the opened catalog
+     * @throws IOException if the file cannot be mapped or is not a catalog file
+     */
+    public static MappedCatalog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCatalog(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes games to a catalog file, replacing it atomically. Console types that
+     * differ only in case or surrounding spaces share one dictionary entry, spelt
+     * as first seen.
+     * @param file Path of the catalog file
+     * @param games Games to write; IDs must be unique
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Collection<Game> games) throws IOException {
+        List<Game> sorted = new ArrayList<>(games);
+        sorted.sort(Comparator.comparingInt(Game::getGameId));
+        int n = sorted.size();
+        for (int r = 1; r < n; r++) {
+            if (sorted.get(r).getGameId() == sorted.get(r - 1).getGameId()) {
+                throw new IOException("Duplicate gameId " + sorted.get(r).getGameId());
+            }
+        }
+
+        Map<String, Integer> codes = new HashMap<>();
+        List<byte[]> dictionary = new ArrayList<>();
+        byte[][] names = new byte[n][];
+        byte[] consoleCodes = new byte[n];
+        long nameBytes = 0;
+        int dictionaryBytes = 0;
+        for (int r = 0; r < n; r++) {
+            Game game = sorted.get(r);
+            names[r] = game.getNameOfGame().getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[r].length;
+            Integer code = codes.get(CatalogIndex.consoleKey(game.getConsoleType()));
+            if (code == null) {
+                if (dictionary.size() == 256) {
+                    throw new IOException("Catalog supports at most 256 console types");
+                }
+                code = dictionary.size();
+                codes.put(CatalogIndex.consoleKey(game.getConsoleType()), code);
+                byte[] encoded = game.getConsoleType().getBytes(StandardCharsets.UTF_8);
+                dictionary.add(encoded);
+                dictionaryBytes += 4 + encoded.length;
+            }
+            consoleCodes[r] = (byte) (int) code;
+        }
+
+        long total = HEADER_BYTES + 25L * n + 4 + dictionaryBytes + nameBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a single mapping");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total);
+        out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(dictionary.size()).putInt((int) nameBytes);
+        out.position(HEADER_BYTES);
+        for (Game game : sorted) out.putLong(game.getPricePence());
+        for (Game game : sorted) out.putInt(game.getGameId());
+        for (Game game : sorted) out.putInt(game.getReleaseYear());
+        for (Game game : sorted) out.putInt(game.getQuantity());
+        int offset = 0;
+        for (int r = 0; r < n; r++) {
+            out.putInt(offset);
+            offset += names[r].length;
+        }
+        out.putInt(offset);
+        out.put(consoleCodes);
+        for (byte[] console : dictionary) {
+            out.putInt(console.length).put(console);
+        }
+        for (byte[] name : names) out.put(name);
+        out.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // === Lookups ===
+
+    /**
+     * Gets the number of games in the catalog.
+     * @return the row count
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Finds the row of a game by binary search over the sorted gameId column.
+     * @param gameId ID of the game
+     * @return the row, or -1 if the game is not in the catalog
+     */
+    public int findRow(int gameId) {
+        int lo = 0;
+        int hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = buffer.getInt(idAt + 4 * mid);
+            if (id < gameId) {
+                lo = mid + 1;
+            } else if (id > gameId) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a game by its ID, creating a Game for that row only.
+     * @param gameId ID of the game
+     * @return the game, or null if it is not in the catalog
+     */
+    public Game findById(int gameId) {
+        int row = findRow(gameId);
+        return row < 0 ? null : toGame(row);
+    }
+
+    /**
+     * Creates a Game from a row.
+     * @param row Row number
+     * @return a new Game holding the row's values
+     */
+    public Game toGame(int row) {
+        return new Game(gameIdAt(row), nameAt(row), releaseYearAt(row), pricePenceAt(row), consoleTypeAt(row), quantityAt(row));
+    }
+
+    /**
+     * Gets the gameId of a row.
+     * @param row Row number
+     * @return the game ID
+     */
+    public int gameIdAt(int row) {
+        return buffer.getInt(idAt + 4 * row);
+    }
+
+    /**
+     * Gets the release year of a row.
+     * @param row Row number
+     * @return the release year
+     */
+    public int releaseYearAt(int row) {
+        return buffer.getInt(yearAt + 4 * row);
+    }
+
+    /**
+     * Gets the price of a row.
+     * @param row Row number
+     * @return the price in pence
+     */
+    public long pricePenceAt(int row) {
+        return buffer.getLong(priceAt + 8 * row);
+    }
+
+    /**
+     * Gets the quantity of a row.
+     * @param row Row number
+     * @return the quantity in stock when the catalog was written
+     */
+    public int quantityAt(int row) {
+        return buffer.getInt(quantityAt + 4 * row);
+    }
+
+    /**
+     * Gets the dictionary code of a row's console type.
+     * @param row Row number
+     * @return the console code
+     */
+    public int consoleCodeAt(int row) {
+        return buffer.get(consoleAt + row) & 0xFF;
+    }
+
+    /**
+     * Gets the console type of a row. The returned string is shared, not decoded per call.
+     * @param row Row number
+     * @return the console type
+     */
+    public String consoleTypeAt(int row) {
+        return consoles[consoleCodeAt(row)];
+    }
+
+    /**
+     * Gets the console dictionary.
+     * @return the console types indexed by their code
+     */
+    public String[] getConsoleTypes() {
+        return consoles.clone();
+    }
+
+    /**
+     * Gets the name of a row, decoding it from the name blob.
+     * @param row Row number
+     * @return the name of the game
+     */
+    public String nameAt(int row) {
+        int start = buffer.getInt(nameOffAt + 4 * row);
+        int end = buffer.getInt(nameOffAt + 4 * (row + 1));
+        return decode(namesAt + start, end - start);
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when it is garbage collected.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // === Internal helpers ===
+
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
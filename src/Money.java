@@ -0,0 +1,111 @@
+/**
+ * Helpers for amounts of money held as a long number of pence.
+ * Prices and balances are whole pence, so adding and subtracting them is exact;
+ * only percentage discounts round, once, to the nearest penny.
+ * Amounts are plain longs rather than objects so the hot paths never allocate.
+ */
+
+public final class Money {
+
+    /** Currency symbol printed before amounts. */
+    public static final char POUND = '£';
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount in pounds to pence, rounding to the nearest penny.
+     * @param pounds Amount in pounds
+     * @return the amount in pence
+     */
+    public static long ofPounds(double pounds) {
+        return Math.round(pounds * 100.0);
+    }
+
+    /**
+     * Converts an amount in pence to pounds, for display or statistics only.
+     * @param pence Amount in pence
+     * @return the amount in pounds
+     */
+    public static double toPounds(long pence) {
+        return pence / 100.0;
+    }
+
+    /**
+     * Takes a percentage off an amount, rounding to the nearest penny.
+     * @param pence Amount in pence
+     * @param factor Fraction of the amount to keep, e.g. 0.9 for 10% off
+     * @return the discounted amount in pence
+     */
+    public static long applyFactor(long pence, double factor) {
+        return factor == 1.0 ? pence : Math.round(pence * factor);
+    }
+
+    /**
+     * Parses an amount typed by a user, such as "39.99", "£40" or "5.5".
+     * The amount is read digit by digit, so no binary rounding is involved.
+     * @param text Amount in pounds, optionally starting with £ and with at most two decimals
+     * @return the amount in pence
+     * @throws NumberFormatException if the text is not an amount
+     */
+    public static long parse(String text) {
+        String s = text.trim();
+        int i = 0;
+        boolean negative = false;
+        if (i < s.length() && s.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        if (i < s.length() && s.charAt(i) == POUND) i++;
+
+        long pounds = 0;
+        int digits = 0;
+        while (i < s.length() && Character.isDigit(s.charAt(i))) {
+            pounds = Math.addExact(Math.multiplyExact(pounds, 10), s.charAt(i++) - '0');
+            digits++;
+        }
+        long pence = 0;
+        if (i < s.length() && s.charAt(i) == '.') {
+            i++;
+            int decimals = 0;
+            while (i < s.length() && Character.isDigit(s.charAt(i)) && decimals < 2) {
+                pence = pence * 10 + (s.charAt(i++) - '0');
+                decimals++;
+            }
+            if (decimals == 1) pence *= 10;
+            digits += decimals;
+        }
+        if (digits == 0 || i != s.length()) {
+            throw new NumberFormatException("Not an amount of money: " + text);
+        }
+        long total = Math.addExact(Math.multiplyExact(pounds, 100), pence);
+        return negative ? -total : total;
+    }
+
+    /**
+     * Appends an amount as pounds with two decimals, e.g. 3999 as "39.99",
+     * without going through String.format.
+     * @param sb Buffer to append to
+     * @param pence Amount in pence
+     * @return the buffer
+     */
+    public static StringBuilder append(StringBuilder sb, long pence) {
+        if (pence < 0) {
+            sb.append('-');
+            pence = -pence;
+        }
+        sb.append(pence / 100).append('.');
+        long p = pence % 100;
+        if (p < 10) sb.append('0');
+        return sb.append(p);
+    }
+
+    /**
+     * Formats an amount as pounds with two decimals, e.g. 3999 as "39.99".
+     * @param pence Amount in pence
+     * @return the formatted amount, without a currency symbol
+     */
+    public static String format(long pence) {
+        return append(new StringBuilder(12), pence).toString();
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.Locale;
+
+/**
+ * Latency and outcome counts of one ShopOperation, as read from ShopMetrics at one moment.
+ */
+
+public class OperationStats {
+
+    private final ShopOperation operation;
+    private final long count;
+    private final long sumNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    private final long[] outcomeCounts;
+
+    /**
+     * Constructor to initialize operation stats.
+     * @param operation Operation the stats are for
+     * @param count Number of calls timed
+     * @param sumNanos Total time of the calls, in nanoseconds
+     * @param percentiles Median, 90th, 99th and 99.9th percentile latencies, in nanoseconds
+     * @param maxNanos Slowest call, in nanoseconds
+     * @param outcomeCounts Number of calls that finished with each outcome, indexed like ShopOperation.getOutcomes
+     */
+    OperationStats(ShopOperation operation, long count, long sumNanos, long[] percentiles, long maxNanos, long[] outcomeCounts) {
+        this.operation = operation;
+        this.count = count;
+        this.sumNanos = sumNanos;
+        this.p50Nanos = percentiles[0];
+        this.p90Nanos = percentiles[1];
+        this.p99Nanos = percentiles[2];
+        this.p999Nanos = percentiles[3];
+        this.maxNanos = maxNanos;
+        this.outcomeCounts = outcomeCounts;
+    }
+
+    /**
+     * Gets the operation the stats are for.
+     * @return the operation
+     */
+    public ShopOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Gets the number of calls timed.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the total time of the calls.
+     * @return the sum in nanoseconds
+     */
+    public long getSumNanos() {
+        return sumNanos;
+    }
+
+    /**
+     * Gets the median latency.
+     * @return the latency in nanoseconds, to within about 3%
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * Gets the 90th percentile latency.
+     * @return the latency in nanoseconds, to within about 3%
+     */
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    /**
+     * Gets the 99th percentile latency.
+     * @return the latency in nanoseconds, to within about 3%
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * Gets the 99.9th percentile latency.
+     * @return the latency in nanoseconds, to within about 3%
+     */
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    /**
+     * Gets the slowest call.
+     * @return the latency in nanoseconds, to within about 3%
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Gets the number of calls that finished with an outcome.
+     * @param outcome Outcome name as in ShopOperation.getOutcomes, e.g. "out_of_stock"
+     * @return the count, 0 for an outcome the operation does not have
+     */
+    public long getOutcomeCount(String outcome) {
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            if (operation.outcome(i).equals(outcome)) return outcomeCounts[i];
+        }
+        return 0;
+    }
+
+    long outcomeCount(int index) {
+        return outcomeCounts[index];
+    }
+
+    /**
+     * toString method to display the stats
+     * @return string representation of the stats
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("OperationStats{").append(operation.getMetricName())
+                .append(", count=").append(count)
+                .append(String.format(Locale.ROOT, ", p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+                        p50Nanos / 1e3, p99Nanos / 1e3, p999Nanos / 1e3, maxNanos / 1e3));
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            if (outcomeCounts[i] > 0) out.append(", ").append(operation.outcome(i)).append('=').append(outcomeCounts[i]);
+        }
+        return out.append('}').toString();
+    }
+}
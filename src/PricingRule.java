@@ -0,0 +1,226 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A single pricing rule declared as data, e.g. a console-wide sale or a
+ * clearance on older titles. Rules are compiled into a PricingTable before use.
+ *
+ * Rules can be written one per line:
+ *   console Switch 15%
+ *   years 1990-2005 30%
+ *   loyalty 10 5%
+ *   next-purchase 10%
+ */
+
+public class PricingRule {
+
+    /**
+     * What a rule matches on.
+     */
+    public enum Kind {
+        /** Every game for one console. */
+        CONSOLE,
+        /** Every game released in a range of years. */
+        YEARS,
+        /** Customers with at least a number of past purchases. */
+        LOYALTY,
+        /** Customers holding a next purchase discount from a trade-in. */
+        NEXT_PURCHASE
+    }
+
+    private final Kind kind;
+    private final String consoleType;
+    private final int fromYear;
+    private final int toYear;
+    private final int minPurchases;
+    private final double rate;
+
+    private PricingRule(Kind kind, String consoleType, int fromYear, int toYear, int minPurchases, double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Discount rate must be between 0 and 1: " + rate);
+        }
+        this.kind = kind;
+        this.consoleType = consoleType;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.minPurchases = minPurchases;
+        this.rate = rate;
+    }
+
+    /**
+     * Creates a sale on every game for a console.
+     * @param consoleType Console the sale applies to, matched ignoring case
+     * @param rate Discount as a fraction, e.g. 0.15 for 15% off
+     * @return the rule
+     */
+    public static PricingRule consoleSale(String consoleType, double rate) {
+        if (consoleType == null || consoleType.trim().isEmpty()) {
+            throw new IllegalArgumentException("Console sale needs a console type");
+        }
+        return new PricingRule(Kind.CONSOLE, consoleType.trim(), 0, 0, 0, rate);
+    }
+
+    /**
+     * Creates a clearance on games released in a range of years.
+     * @param fromYear First release year included
+     * @param toYear Last release year included
+     * @param rate Discount as a fraction
+     * @return the rule
+     */
+    public static PricingRule yearClearance(int fromYear, int toYear, double rate) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("Year range is empty: " + fromYear + "-" + toYear);
+        }
+        return new PricingRule(Kind.YEARS, null, fromYear, toYear, 0, rate);
+    }
+
+    /**
+     * Creates a loyalty tier for customers with enough past purchases.
+     * @param minPurchases Purchases a customer needs to reach the tier
+     * @param rate Discount as a fraction
+     * @return the rule
+     */
+    public static PricingRule loyaltyTier(int minPurchases, double rate) {
+        if (minPurchases < 0) {
+            throw new IllegalArgumentException("Purchase count cannot be negative: " + minPurchases);
+        }
+        return new PricingRule(Kind.LOYALTY, null, 0, 0, minPurchases, rate);
+    }
+
+    /**
+     * Creates the discount used by customers who have traded in a game.
+     * @param rate Discount as a fraction
+     * @return the rule
+     */
+    public static PricingRule nextPurchase(double rate) {
+        return new PricingRule(Kind.NEXT_PURCHASE, null, 0, 0, 0, rate);
+    }
+
+    /**
+     * Parses a rule from one line of text, in the format shown in the class comment.
+     * The rate may be written as a percentage ("15%") or a fraction ("0.15").
+     * @param line Line to parse
+     * @return the rule
+     * @throws IllegalArgumentException if the line is not a valid rule
+     */
+    public static PricingRule parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        try {
+            switch (parts[0].toLowerCase(Locale.ROOT)) {
+                case "console": {
+                    // The console name may contain spaces, e.g. "console Xbox One 20%"
+                    if (parts.length < 3) break;
+                    String console = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length - 1));
+                    return consoleSale(console, parseRate(parts[parts.length - 1]));
+                }
+                case "years": {
+                    if (parts.length != 3) break;
+                    int dash = parts[1].indexOf('-');
+                    int from = Integer.parseInt(dash < 0 ? parts[1] : parts[1].substring(0, dash));
+                    int to = dash < 0 ? from : Integer.parseInt(parts[1].substring(dash + 1));
+                    return yearClearance(from, to, parseRate(parts[2]));
+                }
+                case "loyalty":
+                    if (parts.length != 3) break;
+                    return loyaltyTier(Integer.parseInt(parts[1]), parseRate(parts[2]));
+                case "next-purchase":
+                    if (parts.length != 2) break;
+                    return nextPurchase(parseRate(parts[1]));
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in pricing rule: " + line, e);
+        }
+        throw new IllegalArgumentException("Invalid pricing rule: " + line);
+    }
+
+    /**
+     * Parses every rule in a list of lines, skipping blank lines and lines starting with #.
+     * @param lines Lines to parse
+     * @return the rules in order
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static List<PricingRule> parseAll(List<String> lines) {
+        List<PricingRule> rules = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            rules.add(parse(trimmed));
+        }
+        return rules;
+    }
+
+    /**
+     * Gets what the rule matches on.
+     * @return the kind of rule
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the console a CONSOLE rule applies to.
+     * @return the console type, or null for other kinds
+     */
+    public String getConsoleType() {
+        return consoleType;
+    }
+
+    /**
+     * Gets the first release year a YEARS rule applies to.
+     * @return the first year
+     */
+    public int getFromYear() {
+        return fromYear;
+    }
+
+    /**
+     * Gets the last release year a YEARS rule applies to.
+     * @return the last year
+     */
+    public int getToYear() {
+        return toYear;
+    }
+
+    /**
+     * Gets the purchases needed for a LOYALTY rule.
+     * @return the purchase count
+     */
+    public int getMinPurchases() {
+        return minPurchases;
+    }
+
+    /**
+     * Gets the discount the rule gives.
+     * @return the discount as a fraction
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the rule in the same format parse() reads.
+     * @return the rule as a line of text
+     */
+    @Override
+    public String toString() {
+        double pct = Math.round(rate * 10000) / 100.0;
+        String percent = (pct == Math.rint(pct) ? String.valueOf((long) pct) : String.valueOf(pct)) + "%";
+        switch (kind) {
+            case CONSOLE: return "console " + consoleType + " " + percent;
+            case YEARS: return "years " + fromYear + "-" + toYear + " " + percent;
+            case LOYALTY: return "loyalty " + minPurchases + " " + percent;
+            default: return "next-purchase " + percent;
+        }
+    }
+
+    private static double parseRate(String text) {
+        if (text.endsWith("%")) {
+            return Double.parseDouble(text.substring(0, text.length() - 1)) / 100.0;
+        }
+        return Double.parseDouble(text);
+    }
+}
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pricing rules compiled into flat lookup tables.
+ *
+ * Each kind of rule becomes one table: a hash table of price factors by console,
+ * an array of factors indexed by release year, and a sorted array of loyalty
+ * thresholds. Pricing a game is then three lookups and a multiply, whatever the
+ * number of rules, and allocates nothing.
+ *
+ * Within one kind the biggest matching discount wins; discounts of different
+ * kinds stack, e.g. a 20% console sale and a 10% next purchase discount give
+ * 28% off. Tables are immutable, so a new set of rules is put live by compiling
+ * a new table and swapping it in with Inventory.setPricing.
+ */
+
+public final class PricingTable {
+
+    /** The shop's standing policy: 10% off the next purchase after a trade-in. */
+    public static final PricingTable DEFAULT = compile(List.of(PricingRule.nextPurchase(0.10)));
+
+    // Year rules are clamped to this range so the year table stays small
+    private static final int FIRST_YEAR = 1950;
+    private static final int LAST_YEAR = 2150;
+
+    private final List<PricingRule> rules;
+
+    // === Console factors (open addressing, keys matched ignoring case) ===
+    private final String[] consoleKeys;
+    private final double[] consoleFactors;
+    private final int consoleMask;
+
+    // === Year factors, indexed by releaseYear - yearBase ===
+    private final int yearBase;
+    private final double[] yearFactors;
+
+    // === Loyalty tiers, thresholds ascending ===
+    private final int[] loyaltyThresholds;
+    private final double[] loyaltyFactors;
+
+    private final double nextPurchaseFactor;
+
+    private PricingTable(List<PricingRule> rules, String[] consoleKeys, double[] consoleFactors,
+                         int yearBase, double[] yearFactors, int[] loyaltyThresholds, double[] loyaltyFactors,
+                         double nextPurchaseFactor) {
+        this.rules = rules;
+        this.consoleKeys = consoleKeys;
+        this.consoleFactors = consoleFactors;
+        this.consoleMask = consoleKeys.length - 1;
+        this.yearBase = yearBase;
+        this.yearFactors = yearFactors;
+        this.loyaltyThresholds = loyaltyThresholds;
+        this.loyaltyFactors = loyaltyFactors;
+        this.nextPurchaseFactor = nextPurchaseFactor;
+    }
+
+    /**
+     * Compiles a set of rules into a table.
+     * @param rules Rules to compile
+     * @return the compiled table
+     */
+    public static PricingTable compile(Collection<PricingRule> rules) {
+        List<PricingRule> copy = List.copyOf(rules);
+
+        List<PricingRule> consoleRules = new ArrayList<>();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        List<PricingRule> loyaltyRules = new ArrayList<>();
+        double nextPurchaseRate = 0;
+        for (PricingRule rule : copy) {
+            switch (rule.getKind()) {
+                case CONSOLE:
+                    consoleRules.add(rule);
+                    break;
+                case YEARS:
+                    minYear = Math.min(minYear, Math.max(rule.getFromYear(), FIRST_YEAR));
+                    maxYear = Math.max(maxYear, Math.min(rule.getToYear(), LAST_YEAR));
+                    break;
+                case LOYALTY:
+                    loyaltyRules.add(rule);
+                    break;
+                default:
+                    nextPurchaseRate = Math.max(nextPurchaseRate, rule.getRate());
+            }
+        }
+
+        // Console sales: best rate per console
+        int slots = Integer.highestOneBit(Math.max(consoleRules.size() * 2, 2) - 1) << 1;
+        String[] consoleKeys = new String[slots];
+        double[] consoleRates = new double[slots];
+        for (PricingRule rule : consoleRules) {
+            String key = rule.getConsoleType();
+            int slot = hash(key, 0, key.length()) & (slots - 1);
+            while (consoleKeys[slot] != null && !consoleKeys[slot].equalsIgnoreCase(key)) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            consoleKeys[slot] = key;
+            consoleRates[slot] = Math.max(consoleRates[slot], rule.getRate());
+        }
+
+        // Year clearances: best rate per year
+        double[] yearRates = new double[minYear <= maxYear ? maxYear - minYear + 1 : 0];
+        int yearBase = minYear <= maxYear ? minYear : 0;
+        for (PricingRule rule : copy) {
+            if (rule.getKind() != PricingRule.Kind.YEARS) continue;
+            int from = Math.max(rule.getFromYear(), yearBase);
+            int to = Math.min(rule.getToYear(), yearBase + yearRates.length - 1);
+            for (int year = from; year <= to; year++) {
+                yearRates[year - yearBase] = Math.max(yearRates[year - yearBase], rule.getRate());
+            }
+        }
+
+        // Loyalty tiers: a customer gets the best rate of any tier they have reached
+        loyaltyRules.sort((a, b) -> Integer.compare(a.getMinPurchases(), b.getMinPurchases()));
+        int[] thresholds = new int[loyaltyRules.size()];
+        double[] loyaltyRates = new double[loyaltyRules.size()];
+        double best = 0;
+        for (int i = 0; i < thresholds.length; i++) {
+            best = Math.max(best, loyaltyRules.get(i).getRate());
+            thresholds[i] = loyaltyRules.get(i).getMinPurchases();
+            loyaltyRates[i] = best;
+        }
+
+        return new PricingTable(copy, consoleKeys, toFactors(consoleRates), yearBase, toFactors(yearRates),
+                thresholds, toFactors(loyaltyRates), 1.0 - nextPurchaseRate);
+    }
+
+    /**
+     * Reads rules from a text file, one per line, and compiles them.
+     * @param file File in the format described in PricingRule
+     * @return the compiled table
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static PricingTable load(Path file) throws IOException {
+        return compile(PricingRule.parseAll(Files.readAllLines(file, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Prices a game for a customer.
+     * @param game Game being bought
+     * @param purchases Number of purchases the customer has made before
+     * @param nextPurchaseDiscount Whether the customer holds an active next purchase discount
+     * @return the price in pence, rounded to the nearest penny
+     */
+    public long price(Game game, long purchases, boolean nextPurchaseDiscount) {
+        double factor = consoleFactor(game.getConsoleType())
+                * yearFactor(game.getReleaseYear())
+                * loyaltyFactor(purchases);
+        if (nextPurchaseDiscount) factor *= nextPurchaseFactor;
+        return Money.applyFactor(game.getPricePence(), factor);
+    }
+
+    /**
+     * Gets the rate of the next purchase discount.
+     * @return the discount as a fraction, 0 if there is none
+     */
+    public double getNextPurchaseRate() {
+        return 1.0 - nextPurchaseFactor;
+    }
+
+    /**
+     * Gets the rules this table was compiled from.
+     * @return an unmodifiable list of the rules
+     */
+    public List<PricingRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the rules, one per line.
+     * @return a string representation of the table
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (PricingRule rule : rules) {
+            sb.append(rule).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // === Lookups ===
+
+    private double consoleFactor(String consoleType) {
+        if (consoleType == null) return 1.0;
+        // Trim without allocating, to match the trimmed rule keys
+        int from = 0;
+        int to = consoleType.length();
+        while (from < to && Character.isWhitespace(consoleType.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(consoleType.charAt(to - 1))) to--;
+        int length = to - from;
+
+        int slot = hash(consoleType, from, to) & consoleMask;
+        while (true) {
+            String key = consoleKeys[slot];
+            if (key == null) return 1.0;
+            if (key.length() == length && key.regionMatches(true, 0, consoleType, from, length)) {
+                return consoleFactors[slot];
+            }
+            slot = (slot + 1) & consoleMask;
+        }
+    }
+
+    private double yearFactor(int releaseYear) {
+        int i = releaseYear - yearBase;
+        return i >= 0 && i < yearFactors.length ? yearFactors[i] : 1.0;
+    }
+
+    private double loyaltyFactor(long purchases) {
+        // Index of the highest threshold reached
+        int lo = 0;
+        int hi = loyaltyThresholds.length - 1;
+        int reached = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (loyaltyThresholds[mid] <= purchases) {
+                reached = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return reached < 0 ? 1.0 : loyaltyFactors[reached];
+    }
+
+    // === Internal helpers ===
+
+    // Case-insensitive hash over s[from, to)
+    private static int hash(String s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static double[] toFactors(double[] rates) {
+        double[] factors = Arrays.copyOf(rates, rates.length);
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = 1.0 - factors[i];
+        }
+        return factors;
+    }
+}
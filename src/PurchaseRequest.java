@@ -0,0 +1,43 @@
+/**
+ * Request to buy one or more games for a registered customer.
+ */
+
+public class PurchaseRequest {
+
+    private final int customerID;
+    private final int[] gameIds;
+
+    /**
+     * Constructor to initialize a purchase request.
+     * @param customerID ID of the customer paying
+     * @param gameIds IDs of the games to buy, repeated for more than one copy
+     */
+    public PurchaseRequest(int customerID, int... gameIds) {
+        this.customerID = customerID;
+        this.gameIds = gameIds.clone();
+    }
+
+    /**
+     * Gets the ID of the customer paying.
+     * @return the customer ID
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * Gets the IDs of the games to buy.
+     * @return a copy of the game IDs
+     */
+    public int[] getGameIds() {
+        return gameIds.clone();
+    }
+
+    /**
+     * Gets the number of copies asked for.
+     * @return the number of game IDs in the request
+     */
+    public int size() {
+        return gameIds.length;
+    }
+}
@@ -0,0 +1,457 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Watches the stock floor: when a sale takes a game down to its reorder point
+ * the game is queued for reordering, and a background job regularly batches the
+ * queued games into one order per supplier.
+ *
+ * Every game uses the default reorder point and quantity unless given its own
+ * with setThreshold. Nothing ever scans the catalog. A sale that leaves more
+ * copies than the highest reorder point in use returns after one comparison;
+ * one that leaves fewer does a single hash lookup, and only a sale that crosses
+ * the point queues the game and raises a LowStockAlert. A game is queued once
+ * and is not queued again until a delivery takes it back above its reorder point.
+ * An order that is not delivered within the order timeout is given up on: the
+ * game is queued again if it is still at or below its point. Delisting a game
+ * forgets it, along with any threshold of its own.
+ *
+ * Queued games wait in buckets by days of cover, the copies left divided by the
+ * last day's sales from the inventory's SalesAnalytics, so each batch orders the
+ * games that will run out soonest first. Games without recent sales go in the
+ * last bucket, except games that have run out, which go in the first.
+ *
+ * Attach an instance to an inventory with Inventory.setReorders; sales, basket
+ * checkouts and restocks then report to it.
+ */
+
+public class ReorderScheduler implements AutoCloseable {
+
+    /** Reorder point used for games without their own threshold. */
+    public static final int DEFAULT_REORDER_POINT = 2;
+    /** Copies ordered for games without their own threshold. */
+    public static final int DEFAULT_REORDER_QUANTITY = 5;
+    /** Time an order is waited for before the game is reordered. */
+    public static final long DEFAULT_ORDER_TIMEOUT_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    private static final int COVER_BUCKETS = 8;         // 0 to 6 days, then a week or more
+    private static final int MAX_LINES_PER_ORDER = 100;
+    private static final int RECENT_ORDERS = 50;
+
+    // === Reorder states ===
+    private static final int IDLE = 0;
+    private static final int QUEUED = 1;
+    private static final int ORDERED = 2;
+    private static final int DELISTED = 3;
+
+    private final Inventory inventory;
+    private final int defaultReorderPoint;
+    private final int defaultReorderQuantity;
+    private final ConcurrentHashMap<Integer, Sku> skus = new ConcurrentHashMap<>();
+    private final List<ConcurrentLinkedQueue<Sku>> queued = new ArrayList<>(COVER_BUCKETS);
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final ArrayDeque<SupplierOrder> recentOrders = new ArrayDeque<>();
+    private final ArrayDeque<Outstanding> outstanding = new ArrayDeque<>(); // oldest order first, guarded by this
+    private final ScheduledExecutorService batcher;
+    private final Object thresholdLock = new Object(); // not the scheduler, which batch() holds while it reads the inventory
+
+    private volatile int highestReorderPoint;
+    private volatile Consumer<LowStockAlert> alertListener;
+    private volatile Consumer<SupplierOrder> supplier;
+    private volatile long orderTimeoutMillis = DEFAULT_ORDER_TIMEOUT_MILLIS;
+    private long nextOrderNumber = 1;
+
+    /**
+     * Constructor to initialize a scheduler with the default thresholds that batches reorders every minute.
+     * @param inventory Inventory whose stock is watched
+     */
+    public ReorderScheduler(Inventory inventory) {
+        this(inventory, DEFAULT_REORDER_POINT, DEFAULT_REORDER_QUANTITY, 60_000);
+    }
+
+    /**
+     * Constructor to initialize a scheduler.
+     * @param inventory Inventory whose stock is watched
+     * @param defaultReorderPoint Quantity at or below which games without their own threshold are reordered, or -1 to only watch games given one
+     * @param defaultReorderQuantity Copies ordered for games without their own threshold
+     * @param batchIntervalMillis Time between batches, or 0 to only batch when batch() is called
+     * @throws IllegalArgumentException if the default quantity is below 1 or above the inventory's stock limit
+     */
+    public ReorderScheduler(Inventory inventory, int defaultReorderPoint, int defaultReorderQuantity, long batchIntervalMillis) {
+        if (defaultReorderPoint >= 0) checkReorderQuantity(inventory, defaultReorderQuantity);
+        this.inventory = inventory;
+        this.defaultReorderPoint = Math.max(defaultReorderPoint, -1);
+        this.defaultReorderQuantity = defaultReorderQuantity;
+        this.highestReorderPoint = this.defaultReorderPoint;
+        for (int i = 0; i < COVER_BUCKETS; i++) queued.add(new ConcurrentLinkedQueue<>());
+
+        if (batchIntervalMillis > 0) {
+            batcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "reorder-batcher");
+                t.setDaemon(true);
+                return t;
+            });
+            batcher.scheduleWithFixedDelay(this::batchQuietly, batchIntervalMillis, batchIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            batcher = null;
+        }
+    }
+
+    // === Configuration ===
+
+    /**
+     * Gives a game its own reorder point and quantity. If the game is already at
+     * or below the new point it is queued straight away.
+     * @param gameId ID of the game
+     * @param reorderPoint Quantity at or below which the game is reordered
+     * @param reorderQuantity Copies to order
+     * @param supplierName Supplier to order from, or null to order from the supplier for the game's console
+     * @throws IllegalArgumentException if the point is negative or the quantity is below 1 or above the stock limit
+     */
+    public void setThreshold(int gameId, int reorderPoint, int reorderQuantity, String supplierName) {
+        if (reorderPoint < 0) {
+            throw new IllegalArgumentException("Reorder point cannot be negative");
+        }
+        checkReorderQuantity(inventory, reorderQuantity);
+        Sku sku;
+        synchronized (thresholdLock) {
+            // Raised before the game's point, so no sale that crosses the new point returns early
+            if (reorderPoint > highestReorderPoint) highestReorderPoint = reorderPoint;
+            int[] previous = new int[1];
+            sku = skus.compute(gameId, (id, existing) -> {
+                Sku s = existing != null ? existing : new Sku(id);
+                previous[0] = s.reorderPoint;
+                s.reorderPoint = reorderPoint;
+                s.reorderQuantity = reorderQuantity;
+                s.supplier = supplierName;
+                s.explicit = true;
+                return s;
+            });
+            if (previous[0] > reorderPoint) recomputeHighestReorderPoint();
+        }
+        Game game = inventory.findById(gameId);
+        if (game != null && game.getQuantity() <= reorderPoint && sku.state.compareAndSet(IDLE, QUEUED)) {
+            queue(sku, game.getQuantity());
+        }
+    }
+
+    /**
+     * Puts a game back on the default reorder point and quantity.
+     * @param gameId ID of the game
+     * @return true if the game had its own threshold
+     */
+    public boolean removeThreshold(int gameId) {
+        boolean[] removed = new boolean[1];
+        synchronized (thresholdLock) {
+            skus.computeIfPresent(gameId, (id, s) -> {
+                removed[0] = s.explicit;
+                s.reorderPoint = defaultReorderPoint;
+                s.reorderQuantity = defaultReorderQuantity;
+                s.supplier = null;
+                s.explicit = false;
+                return s.state.get() == IDLE ? null : s;
+            });
+            if (removed[0]) recomputeHighestReorderPoint();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Gets the reorder point a game is watched with.
+     * @param gameId ID of the game
+     * @return the game's own reorder point, or the default, -1 if it is not watched
+     */
+    public int getReorderPoint(int gameId) {
+        Sku sku = skus.get(gameId);
+        return sku != null ? sku.reorderPoint : defaultReorderPoint;
+    }
+
+    /**
+     * Sets how long an order is waited for. A game whose order is not delivered in
+     * time is queued again by the next batch if it is still at or below its point.
+     * @param timeoutMillis the timeout
+     * @throws IllegalArgumentException if the timeout is not positive
+     */
+    public void setOrderTimeout(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Order timeout must be positive");
+        }
+        this.orderTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Sets a listener told about every game that falls to its reorder point. It
+     * runs on the thread that made the sale, so it should return quickly.
+     * @param listener the listener, or null for none
+     */
+    public void setAlertListener(Consumer<LowStockAlert> listener) {
+        this.alertListener = listener;
+    }
+
+    /**
+     * Sets where supplier orders are sent when a batch is made up.
+     * @param supplier the receiver of the orders, or null to only keep them in getRecentOrders
+     */
+    public void setSupplier(Consumer<SupplierOrder> supplier) {
+        this.supplier = supplier;
+    }
+
+    // === Stock events ===
+
+    /**
+     * Called by the inventory after copies of a game are sold.
+     * @param gameId ID of the game
+     * @param quantityLeft Copies left after the sale
+     */
+    void sold(int gameId, int quantityLeft) {
+        if (quantityLeft > highestReorderPoint) return;
+        Sku sku = skus.get(gameId);
+        if (sku == null) {
+            if (quantityLeft > defaultReorderPoint) return;
+            sku = skus.computeIfAbsent(gameId, Sku::new);
+        }
+        if (quantityLeft <= sku.reorderPoint && sku.state.compareAndSet(IDLE, QUEUED)) {
+            queue(sku, quantityLeft);
+        }
+    }
+
+    /**
+     * Called by the inventory after copies of a listed game are put into stock.
+     * @param gameId ID of the game
+     * @param quantity Copies in stock after the delivery
+     */
+    void restocked(int gameId, int quantity) {
+        Sku sku = skus.get(gameId);
+        if (sku == null || quantity <= sku.reorderPoint) return;
+        // A queued game is dropped by the next batch once it sees the new stock
+        if (sku.state.compareAndSet(ORDERED, IDLE)) forget(sku);
+    }
+
+    /**
+     * Called by the inventory after a game is delisted. The game is forgotten,
+     * including any threshold of its own, and dropped from the queue.
+     * @param gameId ID of the game
+     */
+    void delisted(int gameId) {
+        Sku sku;
+        synchronized (thresholdLock) {
+            sku = skus.remove(gameId);
+            if (sku == null) return;
+            if (sku.explicit) recomputeHighestReorderPoint();
+        }
+        // A queued game is dropped by the next batch, an ordered one when its order times out
+        sku.state.set(DELISTED);
+    }
+
+    // === Batching ===
+
+    /**
+     * Makes up supplier orders for every queued game that is still at or below
+     * its reorder point, games with the fewest days of cover first. Orders are
+     * sent to the supplier and kept in getRecentOrders. Runs on the background
+     * job; call it directly to batch now.
+     * @return the orders made up, empty if nothing was queued
+     */
+    public synchronized List<SupplierOrder> batch() {
+        long now = System.currentTimeMillis();
+        expireOrders(now);
+
+        Map<String, List<Game>> bySupplier = new LinkedHashMap<>();
+        for (ConcurrentLinkedQueue<Sku> bucket : queued) {
+            Sku sku;
+            while ((sku = bucket.poll()) != null) {
+                queuedCount.decrementAndGet();
+                if (sku.state.get() == DELISTED) continue;
+                Game game = inventory.findById(sku.gameId);
+                if (game == null || game.getQuantity() > sku.reorderPoint) {
+                    // Delisted or restocked while queued
+                    sku.state.set(IDLE);
+                    forget(sku);
+                    continue;
+                }
+                sku.state.set(ORDERED);
+                sku.orderedAt = now;
+                outstanding.addLast(new Outstanding(sku, now));
+                String name = sku.supplier != null ? sku.supplier : game.getConsoleType();
+                bySupplier.computeIfAbsent(name, k -> new ArrayList<>()).add(new Game(game.getGameId(),
+                        game.getNameOfGame(), game.getReleaseYear(), game.getPricePence(),
+                        game.getConsoleType(), sku.reorderQuantity));
+            }
+        }
+
+        List<SupplierOrder> orders = new ArrayList<>();
+        for (Map.Entry<String, List<Game>> entry : bySupplier.entrySet()) {
+            List<Game> lines = entry.getValue();
+            for (int from = 0; from < lines.size(); from += MAX_LINES_PER_ORDER) {
+                List<Game> part = new ArrayList<>(lines.subList(from, Math.min(from + MAX_LINES_PER_ORDER, lines.size())));
+                orders.add(new SupplierOrder(nextOrderNumber++, entry.getKey(), now, part));
+            }
+        }
+        synchronized (recentOrders) {
+            for (SupplierOrder order : orders) {
+                if (recentOrders.size() == RECENT_ORDERS) recentOrders.removeFirst();
+                recentOrders.addLast(order);
+            }
+        }
+        Consumer<SupplierOrder> receiver = supplier;
+        if (receiver != null) {
+            for (SupplierOrder order : orders) receiver.accept(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Gets the games waiting for the next batch.
+     * @return the alerts the games were queued with, fewest days of cover first
+     */
+    public List<LowStockAlert> getQueued() {
+        List<LowStockAlert> out = new ArrayList<>(queuedCount.get());
+        for (ConcurrentLinkedQueue<Sku> bucket : queued) {
+            for (Sku sku : bucket) {
+                if (sku.state.get() != QUEUED) continue;
+                LowStockAlert alert = sku.alert;
+                if (alert != null) out.add(alert);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gets the number of games waiting for the next batch.
+     * @return the queued count
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Gets the most recent supplier orders.
+     * @return up to the last 50 orders, oldest first
+     */
+    public List<SupplierOrder> getRecentOrders() {
+        synchronized (recentOrders) {
+            return new ArrayList<>(recentOrders);
+        }
+    }
+
+    /**
+     * Stops the background job. Games still queued stay queued.
+     */
+    @Override
+    public void close() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    // === Internal helpers ===
+
+    private void queue(Sku sku, int quantityLeft) {
+        double cover = daysOfCover(sku.gameId, quantityLeft);
+        LowStockAlert alert = new LowStockAlert(sku.gameId, quantityLeft, sku.reorderPoint, cover, System.currentTimeMillis());
+        sku.alert = alert;
+        queued.get(cover >= COVER_BUCKETS - 1 ? COVER_BUCKETS - 1 : (int) cover).add(sku);
+        queuedCount.incrementAndGet();
+        Consumer<LowStockAlert> listener = alertListener;
+        if (listener != null) listener.accept(alert);
+    }
+
+    private double daysOfCover(int gameId, int quantityLeft) {
+        if (quantityLeft <= 0) return 0;
+        SalesAnalytics analytics = inventory.getAnalytics();
+        SalesFigures figures = analytics == null ? null : analytics.getGame(gameId);
+        if (figures == null || figures.getUnitsLastDay() == 0) return Double.POSITIVE_INFINITY;
+        return quantityLeft / (double) figures.getUnitsLastDay();
+    }
+
+    // Gives up on orders older than the timeout: a game still at or below its point is
+    // queued again, anything else goes back to idle. Entries for games restocked, delisted
+    // or ordered again since are skipped.
+    private void expireOrders(long now) {
+        long timeout = orderTimeoutMillis;
+        Outstanding next;
+        while ((next = outstanding.peekFirst()) != null && now - next.orderedAt >= timeout) {
+            outstanding.removeFirst();
+            Sku sku = next.sku;
+            if (sku.orderedAt != next.orderedAt || !sku.state.compareAndSet(ORDERED, QUEUED)) continue;
+            Game game = inventory.findById(sku.gameId);
+            if (game != null && game.getQuantity() <= sku.reorderPoint) {
+                queue(sku, game.getQuantity());
+            } else {
+                sku.state.set(IDLE);
+                forget(sku);
+            }
+        }
+    }
+
+    // Lowers the highest reorder point after a game's own point was lowered or removed;
+    // called holding thresholdLock
+    private void recomputeHighestReorderPoint() {
+        int highest = defaultReorderPoint;
+        for (Sku sku : skus.values()) {
+            if (sku.explicit && sku.reorderPoint > highest) highest = sku.reorderPoint;
+        }
+        highestReorderPoint = highest;
+    }
+
+    // Drops an idle game on the default threshold, so only games given their own threshold
+    // or waiting on a reorder are held
+    private void forget(Sku sku) {
+        skus.computeIfPresent(sku.gameId, (id, s) -> s == sku && !s.explicit && s.state.get() == IDLE ? null : s);
+    }
+
+    private void batchQuietly() {
+        try {
+            batch();
+        } catch (RuntimeException e) {
+            System.out.println("Error: reorder batch failed: " + e.getMessage());
+        }
+    }
+
+    private static void checkReorderQuantity(Inventory inventory, int reorderQuantity) {
+        if (reorderQuantity < 1 || reorderQuantity > inventory.getMaxQuantity()) {
+            throw new IllegalArgumentException("Reorder quantity must be between 1 and " + inventory.getMaxQuantity());
+        }
+    }
+
+    /**
+     * Reorder threshold and state of one game.
+     */
+    private final class Sku {
+
+        final int gameId;
+        final AtomicInteger state = new AtomicInteger(IDLE);
+        volatile int reorderPoint = defaultReorderPoint;
+        volatile int reorderQuantity = defaultReorderQuantity;
+        volatile String supplier;
+        volatile boolean explicit;
+        volatile LowStockAlert alert;
+        long orderedAt; // guarded by the scheduler
+
+        Sku(int gameId) {
+            this.gameId = gameId;
+        }
+    }
+
+    /**
+     * A game ordered by a batch and the time it was ordered.
+     */
+    private static final class Outstanding {
+
+        final Sku sku;
+        final long orderedAt;
+
+        Outstanding(Sku sku, long orderedAt) {
+            this.sku = sku;
+            this.orderedAt = orderedAt;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Result of selling a copy over the counter from the manager menu.
+ */
+
+public class SaleResult {
+
+    private final CheckoutOutcome outcome;
+    private final int gameId;
+    private final int remaining;
+
+    /**
+     * Constructor to initialize a sale result.
+     * @param outcome PURCHASED, NOT_FOUND or OUT_OF_STOCK
+     * @param gameId ID of the game
+     * @param remaining Copies left in stock, 0 if the game is not listed
+     */
+    SaleResult(CheckoutOutcome outcome, int gameId, int remaining) {
+        this.outcome = outcome;
+        this.gameId = gameId;
+        this.remaining = remaining;
+    }
+
+    /**
+     * Gets the outcome of the sale.
+     * @return the outcome
+     */
+    public CheckoutOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Checks if a copy was sold.
+     * @return true if the stock was taken
+     */
+    public boolean isSold() {
+        return outcome.isPurchased();
+    }
+
+    /**
+     * Gets the ID of the game.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the copies left in stock after the sale.
+     * @return the remaining quantity
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * toString method to display the sale result
+     * @return string representation of the result
+     */
+    @Override
+    public String toString() {
+        return "SaleResult{outcome=" + outcome + ", gameId=" + gameId + ", remaining=" + remaining + '}';
+    }
+}
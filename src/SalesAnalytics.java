@@ -0,0 +1,343 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running sales figures fed by purchase and trade-in events: units, revenue
+ * and trade-ins for the whole shop, per console, per release-year bucket and
+ * per game, the best sellers, and how many copies sold in the last hour and day.
+ *
+ * Every figure is updated as events are recorded, so reading one never goes
+ * back over past sales. Totals are LongAdders and the windows are rings of
+ * time buckets updated by compare-and-set, so recording takes no locks and
+ * checkouts on different threads do not contend on a shared counter. The best
+ * sellers are kept in a small leaderboard; a sale only touches it when the
+ * game's units pass the lowest count on the board, which is rare once the
+ * board is full.
+ *
+ * Attach an instance to an inventory with Inventory.setAnalytics; checkouts
+ * and trade-ins then record into it. Figures are kept in memory only and start
+ * from zero when the shop restarts.
+ */
+
+public class SalesAnalytics {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private final int yearBucketSize;
+    private final Sales totals = new Sales("all", -1);
+    private final ConcurrentHashMap<Integer, Sales> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Sales> consoles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Sales> consolesAsEntered = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Sales> years = new ConcurrentHashMap<>();
+    private final Leaderboard bestSellers;
+
+    /**
+     * Constructor to initialize analytics with five-year release buckets and a 100 game leaderboard.
+     */
+    public SalesAnalytics() {
+        this(5, 100);
+    }
+
+    /**
+     * Constructor to initialize analytics.
+     * @param yearBucketSize Number of release years grouped together, e.g. 10 for decades
+     * @param leaderboardSize Most best sellers that can be asked for
+     */
+    public SalesAnalytics(int yearBucketSize, int leaderboardSize) {
+        if (yearBucketSize < 1 || leaderboardSize < 1) {
+            throw new IllegalArgumentException("Bucket and leaderboard sizes must be at least 1");
+        }
+        this.yearBucketSize = yearBucketSize;
+        this.bestSellers = new Leaderboard(leaderboardSize);
+    }
+
+    // === Recording ===
+
+    /**
+     * Records copies of a game being sold.
+     * @param game Game sold
+     * @param count Number of copies
+     * @param pricePence Price paid per copy, in pence
+     * @param timestampMillis Time of the sale in epoch milliseconds
+     */
+    public void recordSale(Game game, int count, long pricePence, long timestampMillis) {
+        long revenue = pricePence * count;
+        totals.sold(count, revenue, timestampMillis);
+        consoleSales(game).sold(count, revenue, timestampMillis);
+        yearSales(game).sold(count, revenue, timestampMillis);
+        Sales sales = gameSales(game);
+        sales.sold(count, revenue, timestampMillis);
+
+        if (!sales.onBoard) {
+            long units = sales.units.sum();
+            if (units > bestSellers.threshold) bestSellers.offer(sales, units);
+        }
+    }
+
+    /**
+     * Records copies of a game being traded in.
+     * @param game Game traded in
+     * @param count Number of copies
+     * @param creditedPence Amount credited to the customer for all of the copies, in pence
+     */
+    public void recordTradeIn(Game game, int count, long creditedPence) {
+        totals.tradedIn(count, creditedPence);
+        consoleSales(game).tradedIn(count, creditedPence);
+        yearSales(game).tradedIn(count, creditedPence);
+        gameSales(game).tradedIn(count, creditedPence);
+    }
+
+    // === Queries ===
+
+    /**
+     * Gets the figures for the whole shop.
+     * @return the shop's sales
+     */
+    public SalesFigures getTotals() {
+        return totals.figures(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the figures for one game.
+     * @param gameId ID of the game
+     * @return the game's sales, or null if it has not been sold or traded in
+     */
+    public SalesFigures getGame(int gameId) {
+        Sales sales = games.get(gameId);
+        return sales == null ? null : sales.figures(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the figures for one console, ignoring case.
+     * @param consoleType Console type
+     * @return the console's sales, or null if none have been recorded
+     */
+    public SalesFigures getConsole(String consoleType) {
+        Sales sales = consoles.get(consoleKey(consoleType));
+        return sales == null ? null : sales.figures(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the figures for every console with recorded sales or trade-ins.
+     * @return the figures, most units sold first
+     */
+    public List<SalesFigures> byConsole() {
+        List<SalesFigures> out = figures(consoles.values());
+        out.sort(Comparator.comparingLong(SalesFigures::getUnits).reversed());
+        return out;
+    }
+
+    /**
+     * Gets the figures for every release-year bucket with recorded sales or trade-ins.
+     * @return the figures, oldest bucket first
+     */
+    public List<SalesFigures> byReleaseYear() {
+        List<SalesFigures> out = figures(years.values());
+        out.sort(Comparator.comparing(SalesFigures::getLabel));
+        return out;
+    }
+
+    /**
+     * Gets the best selling games by units sold.
+     * @param k Most games to return, at most the leaderboard size
+     * @return the figures, best seller first
+     */
+    public List<SalesFigures> topSellers(int k) {
+        return figures(bestSellers.top(k));
+    }
+
+    /**
+     * toString method to display the shop totals
+     * @return string representation of the analytics
+     */
+    @Override
+    public String toString() {
+        return "SalesAnalytics{" + getTotals() + ", games=" + games.size() + '}';
+    }
+
+    // === Internal helpers ===
+
+    private Sales gameSales(Game game) {
+        Sales sales = games.get(game.getGameId());
+        if (sales != null) return sales;
+        return games.computeIfAbsent(game.getGameId(), id -> new Sales(game.getNameOfGame(), id));
+    }
+
+    // Looked up by the console as entered first, so a sale does not build the lower-case key
+    private Sales consoleSales(Game game) {
+        String consoleType = game.getConsoleType() == null ? "" : game.getConsoleType();
+        Sales sales = consolesAsEntered.get(consoleType);
+        if (sales != null) return sales;
+        sales = consoles.computeIfAbsent(consoleKey(consoleType), k -> new Sales(consoleType.trim(), -1));
+        consolesAsEntered.putIfAbsent(consoleType, sales);
+        return sales;
+    }
+
+    private Sales yearSales(Game game) {
+        int from = game.getReleaseYear() - Math.floorMod(game.getReleaseYear(), yearBucketSize);
+        Sales sales = years.get(from);
+        if (sales != null) return sales;
+        String label = yearBucketSize == 1 ? String.valueOf(from) : from + "-" + (from + yearBucketSize - 1);
+        return years.computeIfAbsent(from, k -> new Sales(label, -1));
+    }
+
+    private static String consoleKey(String consoleType) {
+        return consoleType == null ? "" : consoleType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<SalesFigures> figures(Iterable<Sales> all) {
+        long now = System.currentTimeMillis();
+        List<SalesFigures> out = new ArrayList<>();
+        for (Sales sales : all) {
+            out.add(sales.figures(now));
+        }
+        return out;
+    }
+
+    /**
+     * Counters for one game, console, year bucket or the whole shop.
+     */
+    private static final class Sales {
+
+        private final String label;
+        private final int gameId;
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenuePence = new LongAdder();
+        private final LongAdder tradedInUnits = new LongAdder();
+        private final LongAdder tradeInPence = new LongAdder();
+        private final Window lastHour = new Window(5 * 60 * 1000L, 12);
+        private final Window lastDay = new Window(HOUR_MILLIS, 24);
+        volatile boolean onBoard; // written under the leaderboard's monitor
+
+        Sales(String label, int gameId) {
+            this.label = label;
+            this.gameId = gameId;
+        }
+
+        void sold(int count, long revenue, long timestampMillis) {
+            units.add(count);
+            revenuePence.add(revenue);
+            lastHour.add(timestampMillis, count);
+            lastDay.add(timestampMillis, count);
+        }
+
+        void tradedIn(int count, long credited) {
+            tradedInUnits.add(count);
+            tradeInPence.add(credited);
+        }
+
+        SalesFigures figures(long now) {
+            return new SalesFigures(label, gameId, units.sum(), revenuePence.sum(),
+                    lastHour.sum(now), lastDay.sum(now), tradedInUnits.sum(), tradeInPence.sum());
+        }
+    }
+
+    /**
+     * Count over a sliding window, kept as a ring of time buckets. Each bucket
+     * packs the number of the time step it counts (low 24 bits) above a 40 bit
+     * count, so moving a bucket on to a new step and counting into it is one
+     * compare-and-set.
+     */
+    private static final class Window {
+
+        private static final int COUNT_BITS = 40;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        private static final long STEP_MASK = (1L << (64 - COUNT_BITS)) - 1;
+
+        private final long bucketMillis;
+        private final AtomicLongArray buckets;
+
+        Window(long bucketMillis, int bucketCount) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = new AtomicLongArray(bucketCount);
+        }
+
+        void add(long timestampMillis, long amount) {
+            long step = timestampMillis / bucketMillis;
+            int i = (int) (step % buckets.length());
+            long tag = step & STEP_MASK;
+            while (true) {
+                long current = buckets.get(i);
+                long held = current >>> COUNT_BITS;
+                long next;
+                if (held == tag) {
+                    next = current + amount;
+                } else if (((tag - held) & STEP_MASK) < (STEP_MASK >>> 1)) {
+                    next = (tag << COUNT_BITS) | amount; // bucket holds an older step; start it over
+                } else {
+                    return; // event older than the window
+                }
+                if (buckets.compareAndSet(i, current, next)) return;
+            }
+        }
+
+        long sum(long nowMillis) {
+            long step = (nowMillis / bucketMillis) & STEP_MASK;
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                long value = buckets.get(i);
+                if (value == 0) continue;
+                long age = (step - (value >>> COUNT_BITS)) & STEP_MASK;
+                if (age < buckets.length()) total += value & COUNT_MASK;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * The games with the most units sold. Units only ever grow, so a game that
+     * belongs on the board passes the board's lowest count at the sale that
+     * puts it there. Sales of games on the board, and of games below the lowest
+     * count, skip the board without locking it; the board reads its members'
+     * live counts when it changes or is read.
+     */
+    private static final class Leaderboard {
+
+        private final Sales[] members;
+        private int size;
+        volatile long threshold; // lowest count on the board when last changed, 0 until full
+
+        Leaderboard(int capacity) {
+            members = new Sales[capacity];
+        }
+
+        synchronized void offer(Sales sales, long count) {
+            if (sales.onBoard) return;
+            if (size < members.length) {
+                members[size++] = sales;
+                sales.onBoard = true;
+                if (size == members.length) threshold = lowest(members, size).units.sum();
+                return;
+            }
+            Sales lowest = lowest(members, size);
+            if (count > lowest.units.sum()) {
+                for (int i = 0; i < size; i++) {
+                    if (members[i] == lowest) members[i] = sales;
+                }
+                lowest.onBoard = false;
+                sales.onBoard = true;
+            }
+            threshold = lowest(members, size).units.sum();
+        }
+
+        synchronized List<Sales> top(int k) {
+            List<Sales> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) out.add(members[i]);
+            out.sort(Comparator.comparingLong((Sales m) -> m.units.sum()).reversed());
+            return out.subList(0, Math.min(Math.max(k, 0), size));
+        }
+
+        private static Sales lowest(Sales[] members, int size) {
+            Sales lowest = members[0];
+            for (int i = 1; i < size; i++) {
+                if (members[i].units.sum() < lowest.units.sum()) lowest = members[i];
+            }
+            return lowest;
+        }
+    }
+}
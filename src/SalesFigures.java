@@ -0,0 +1,121 @@
+/**
+ * Sales of one game, console, release-year bucket or the whole shop, as read
+ * from SalesAnalytics at one moment.
+ */
+
+public class SalesFigures {
+
+    private final String label;
+    private final int gameId;
+    private final long units;
+    private final long revenuePence;
+    private final long unitsLastHour;
+    private final long unitsLastDay;
+    private final long tradedInUnits;
+    private final long tradeInPence;
+
+    /**
+     * Constructor to initialize sales figures.
+     * @param label What the figures are for, e.g. a console or "2010-2014"
+     * @param gameId ID of the game, or -1 for figures not about one game
+     * @param units Copies sold
+     * @param revenuePence Amount taken for the copies sold, in pence
+     * @param unitsLastHour Copies sold in the last hour
+     * @param unitsLastDay Copies sold in the last 24 hours
+     * @param tradedInUnits Copies traded in
+     * @param tradeInPence Amount credited for trade-ins, in pence
+     */
+    SalesFigures(String label, int gameId, long units, long revenuePence, long unitsLastHour,
+                 long unitsLastDay, long tradedInUnits, long tradeInPence) {
+        this.label = label;
+        this.gameId = gameId;
+        this.units = units;
+        this.revenuePence = revenuePence;
+        this.unitsLastHour = unitsLastHour;
+        this.unitsLastDay = unitsLastDay;
+        this.tradedInUnits = tradedInUnits;
+        this.tradeInPence = tradeInPence;
+    }
+
+    /**
+     * Gets what the figures are for.
+     * @return the game title, console, year range, or "all" for the whole shop
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the game the figures are for.
+     * @return the game ID, or -1 for a console, year bucket or the whole shop
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the number of copies sold.
+     * @return the units sold
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    /**
+     * Gets the amount taken for the copies sold, after discounts.
+     * @return the revenue in pence
+     */
+    public long getRevenuePence() {
+        return revenuePence;
+    }
+
+    /**
+     * Gets the number of copies sold in the last hour.
+     * @return the units sold, counted in five-minute steps
+     */
+    public long getUnitsLastHour() {
+        return unitsLastHour;
+    }
+
+    /**
+     * Gets the number of copies sold in the last 24 hours.
+     * @return the units sold, counted in hourly steps
+     */
+    public long getUnitsLastDay() {
+        return unitsLastDay;
+    }
+
+    /**
+     * Gets the number of copies traded in.
+     * @return the units traded in
+     */
+    public long getTradedInUnits() {
+        return tradedInUnits;
+    }
+
+    /**
+     * Gets the amount credited to customers for trade-ins.
+     * @return the credit in pence
+     */
+    public long getTradeInPence() {
+        return tradeInPence;
+    }
+
+    /**
+     * toString method to display the figures
+     * @return string representation of the figures
+     */
+    @Override
+    public String toString() {
+        return "SalesFigures{" +
+                "label='" + label + '\'' +
+                (gameId >= 0 ? ", gameId=" + gameId : "") +
+                ", units=" + units +
+                ", revenue=" + Money.format(revenuePence) +
+                ", lastHour=" + unitsLastHour +
+                ", lastDay=" + unitsLastDay +
+                ", tradedIn=" + tradedInUnits +
+                ", tradeInCredit=" + Money.format(tradeInPence) +
+                '}';
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * One mutation of the shop, as published into a CommandPipeline. Commands are
+ * immutable, so the commands a pipeline applied, in order, form an event stream
+ * that can be kept and submitted again to rebuild the same state.
+ */
+
+public class ShopCommand {
+
+    private final CommandType type;
+    private final Object request;
+    private final int id;
+    private final String name;
+    private final String address;
+
+    private ShopCommand(CommandType type, Object request, int id, String name, String address) {
+        this.type = type;
+        this.request = request;
+        this.id = id;
+        this.name = name;
+        this.address = address;
+    }
+
+    /**
+     * Creates a command to sign a customer in, registering them if the ID is new.
+     * @param customerID ID of the customer
+     * @param name Name to register a new customer with
+     * @param address Address to register a new customer with
+     * @return the command
+     */
+    public static ShopCommand signIn(int customerID, String name, String address) {
+        return new ShopCommand(CommandType.SIGN_IN, null, customerID, name, address);
+    }
+
+    /**
+     * Creates a command to order copies of a game into stock. The game is copied,
+     * so changes to it after the call do not change the command.
+     * @param game Game and the number of copies ordered
+     * @return the command
+     */
+    public static ShopCommand addStock(Game game) {
+        return new ShopCommand(CommandType.ADD_STOCK, copy(game), game.getGameId(), null, null);
+    }
+
+    /**
+     * Creates a command to sell one copy of a game over the counter.
+     * @param gameId ID of the game
+     * @return the command
+     */
+    public static ShopCommand sellStock(int gameId) {
+        return new ShopCommand(CommandType.SELL_STOCK, null, gameId, null, null);
+    }
+
+    /**
+     * Creates a command for a customer to buy one game or a basket.
+     * @param request Customer and games to buy
+     * @return the command
+     */
+    public static ShopCommand purchase(PurchaseRequest request) {
+        return new ShopCommand(CommandType.PURCHASE, request, request.getCustomerID(), null, null);
+    }
+
+    /**
+     * Creates a command for a customer to trade in copies of a game.
+     * @param request Customer and the copies traded in
+     * @return the command
+     */
+    public static ShopCommand tradeIn(TradeInRequest request) {
+        return new ShopCommand(CommandType.TRADE_IN, request, request.getCustomerID(), null, null);
+    }
+
+    /**
+     * Gets the kind of command.
+     * @return the command type
+     */
+    public CommandType getType() {
+        return type;
+    }
+
+    /**
+     * Applies the command to a shop.
+     * @param service Shop to apply it to
+     * @return the result of the matching ShopService method
+     * @throws IllegalArgumentException if the command names a customer who has not signed in
+     */
+    Object apply(ShopService service) {
+        switch (type) {
+            case SIGN_IN: return service.signIn(id, name, address);
+            // A new game is listed as the object passed in, so list a copy and keep the command unchanged
+            case ADD_STOCK: return service.orderStock(copy((Game) request));
+            case SELL_STOCK: return service.sellStock(id);
+            case PURCHASE: return service.purchase((PurchaseRequest) request);
+            case TRADE_IN: return service.tradeIn((TradeInRequest) request);
+            default: throw new IllegalStateException("Unknown command " + type);
+        }
+    }
+
+    private static Game copy(Game game) {
+        return new Game(game.getGameId(), game.getNameOfGame(), game.getReleaseYear(), game.getPricePence(),
+                game.getConsoleType(), game.getQuantity());
+    }
+
+    /**
+     * toString method to display the command
+     * @return string representation of the command
+     */
+    @Override
+    public String toString() {
+        return "ShopCommand{" + type + (type == CommandType.SIGN_IN || type == CommandType.SELL_STOCK ? ", id=" + id : ", " + request) + '}';
+    }
+}
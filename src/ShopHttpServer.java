@@ -0,0 +1,549 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP API over a ShopService, built on the JDK's com.sun.net.httpserver.
+ *
+ * Endpoints (parameters come from the query string or a form-encoded body):
+ *   GET  /games/{id}                 one game
+ *   GET  /games?cursor=0&limit=50    one page of the catalog
+ *   GET  /search?q=zelda&k=10        games whose titles best match q, typos allowed
+ *   GET  /analytics?k=10             sales totals, per console and release years, top k sellers
+ *   GET  /reorders                   games waiting to be reordered and the latest supplier orders
+ *   GET  /metrics                    operation latencies, outcomes and game cache counters, in the Prometheus text format
+ *   GET  /customers/{id}             a customer's account
+ *   POST /customers   id, name, address                            sign in or register
+ *   POST /purchase    customer, games=1234,1236                    buy one game or a basket
+ *   POST /tradein     customer, game, name, console, year, quantity, price (e.g. 12.50)
+ *   POST /reorders    game, point, quantity                        set a game's reorder level
+ *
+ * Responses are JSON with amounts in pence. A checkout that fails returns 404 for an
+ * unknown game and 409 for no stock or too little balance, with the outcome in the body;
+ * bad or missing parameters and unknown customers return 400, and any other failure
+ * (a closed pipeline, a log that cannot be written) returns 500.
+ *
+ * Each request runs on its own virtual thread when the JVM has them (Java 21+), and on
+ * a fixed pool of platform threads otherwise. Idle keep-alive connections hold no
+ * thread either way, so thousands of connections can stay open.
+ *
+ * With a CommandPipeline, sign-ins, purchases and trade-ins are published to
+ * its single writer thread and each request waits for its command's result;
+ * reads still go to the service directly.
+ *
+ * Creating a server sets the JVM-wide system property sun.net.httpserver.nodelay to
+ * true unless it is already set, which turns on TCP_NODELAY for every JDK HTTP server
+ * in the process. Set it to false on the command line to keep Nagle's algorithm.
+ *
+ * Run with: java ShopHttpServer [port=8080] [data=directory] [metrics=file] [pipeline=true]
+ * With metrics=file the /metrics text is also written to the file every 10 seconds.
+ */
+
+public class ShopHttpServer {
+
+    private static final int BACKLOG = 4096;
+
+    private final ShopService service;
+    private final CommandPipeline pipeline;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructor to initialize a server; call start() to begin accepting requests.
+     * @param service Service to answer requests with
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ShopHttpServer(ShopService service, int port) throws IOException {
+        this(service, null, port);
+    }
+
+    /**
+     * Constructor to initialize a server that sends mutations through a command pipeline.
+     * @param service Service to answer reads with
+     * @param pipeline Pipeline over the same service to apply mutations with, or null to call the service directly
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ShopHttpServer(ShopService service, CommandPipeline pipeline, int port) throws IOException {
+        // Headers and body go out in separate writes; without TCP_NODELAY each small
+        // response waits on the client's delayed ACK (~40ms). Read once, when the
+        // server implementation is first loaded, so set it before creating one.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.service = service;
+        this.pipeline = pipeline;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual
+                : Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+        server.setExecutor(executor);
+        server.createContext("/games", this::games);
+        server.createContext("/search", this::search);
+        server.createContext("/analytics", this::analytics);
+        server.createContext("/reorders", this::reorders);
+        server.createContext("/metrics", this::metrics);
+        server.createContext("/customers", this::customers);
+        server.createContext("/purchase", this::purchase);
+        server.createContext("/tradein", this::tradeIn);
+    }
+
+    /**
+     * Entry point to run the server on its own.
+     * @param args key=value options, see the class comment
+     * @throws IOException if the data directory cannot be read or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        String data = null;
+        String metrics = null;
+        boolean usePipeline = false;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? "port" : arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "port": port = Integer.parseInt(value); break;
+                case "data": data = value; break;
+                case "metrics": metrics = value; break;
+                case "pipeline": usePipeline = Boolean.parseBoolean(value); break;
+                default:
+                    System.out.println("Unknown option " + key);
+                    return;
+            }
+        }
+
+        ShopService service = Main.openShop(data, new ConcurrentInventory());
+        CommandPipeline pipeline = usePipeline ? new CommandPipeline(service, 65_536) : null;
+        ShopHttpServer server = new ShopHttpServer(service, pipeline, port);
+        if (metrics != null) service.getMetrics().startExport(Paths.get(metrics), 10_000);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (pipeline != null) pipeline.close();
+            Main.saveAndClose(service);
+        }));
+        server.start();
+        System.out.println("Serving on port " + server.getPort()
+                + (server.isVirtualThreads() ? " with virtual threads" : " with a thread pool")
+                + (pipeline != null ? " and a command pipeline" : ""));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for running ones to finish,
+     * and shuts the executor down. The service is left open.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Checks if requests run on virtual threads.
+     * @return true if virtual threads are in use, false if a thread pool is
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, looked up
+     * reflectively so the code still compiles and runs on Java 17.
+     * @return the executor, or null if this JVM has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // === Handlers ===
+
+    private void games(HttpExchange exchange) throws IOException {
+        handle(exchange, "GET", (id, params) -> {
+            StringBuilder json = new StringBuilder(256);
+            if (id != null) {
+                Game game = service.findGame(Integer.parseInt(id));
+                if (game == null) return error(exchange, 404, "No game with ID " + id);
+                return respond(exchange, 200, appendGame(json, game));
+            }
+            long cursor = Long.parseLong(params.getOrDefault("cursor", "0"));
+            int limit = Math.min(Integer.parseInt(params.getOrDefault("limit", "50")), 1000);
+            CatalogPage page = service.listGames(cursor, limit);
+            json.append("{\"games\":[");
+            List<Game> games = page.getGames();
+            for (int i = 0; i < games.size(); i++) {
+                if (i > 0) json.append(',');
+                appendGame(json, games.get(i));
+            }
+            json.append("],\"nextCursor\":").append(page.getNextCursor()).append('}');
+            return respond(exchange, 200, json);
+        });
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        handle(exchange, "GET", (id, params) -> {
+            int k = Math.min(Integer.parseInt(params.getOrDefault("k", "10")), 100);
+            List<TitleMatch> matches = service.searchTitles(param(params, "q"), k);
+            StringBuilder json = new StringBuilder(64 + matches.size() * 160).append("{\"matches\":[");
+            boolean first = true;
+            for (TitleMatch match : matches) {
+                // A game removed since the search is left out
+                Game game = service.findGame(match.getGameId());
+                if (game == null) continue;
+                if (!first) json.append(',');
+                first = false;
+                json.append("{\"score\":").append(Math.round(match.getScore() * 1000) / 1000.0)
+                        .append(",\"game\":");
+                appendGame(json, game).append('}');
+            }
+            return respond(exchange, 200, json.append("]}"));
+        });
+    }
+
+    private void analytics(HttpExchange exchange) throws IOException {
+        handle(exchange, "GET", (id, params) -> {
+            SalesAnalytics analytics = service.getAnalytics();
+            int k = Math.min(Integer.parseInt(params.getOrDefault("k", "10")), 100);
+            StringBuilder json = new StringBuilder(1024).append("{\"totals\":");
+            appendSales(json, analytics.getTotals());
+            json.append(",\"consoles\":");
+            appendSales(json, analytics.byConsole());
+            json.append(",\"releaseYears\":");
+            appendSales(json, analytics.byReleaseYear());
+            json.append(",\"topSellers\":");
+            appendSales(json, analytics.topSellers(k));
+            return respond(exchange, 200, json.append('}'));
+        });
+    }
+
+    private void reorders(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        handle(exchange, method.equals("POST") ? "POST" : "GET", (id, params) -> {
+            if (method.equals("POST")) {
+                int gameId = intParam(params, "game");
+                if (!service.setReorderLevel(gameId, intParam(params, "point"), intParam(params, "quantity"))) {
+                    return error(exchange, 404, "No game with ID " + gameId);
+                }
+            }
+            ReorderScheduler reorders = service.getReorders();
+            StringBuilder json = new StringBuilder(512).append("{\"queued\":[");
+            List<LowStockAlert> queued = reorders.getQueued();
+            for (int i = 0; i < queued.size(); i++) {
+                LowStockAlert alert = queued.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"gameId\":").append(alert.getGameId())
+                        .append(",\"quantity\":").append(alert.getQuantity())
+                        .append(",\"reorderPoint\":").append(alert.getReorderPoint());
+                if (!Double.isInfinite(alert.getDaysOfCover())) {
+                    json.append(",\"daysOfCover\":").append(Math.round(alert.getDaysOfCover() * 10) / 10.0);
+                }
+                json.append('}');
+            }
+            json.append("],\"orders\":[");
+            List<SupplierOrder> orders = reorders.getRecentOrders();
+            for (int i = 0; i < orders.size(); i++) {
+                SupplierOrder order = orders.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"orderNumber\":").append(order.getOrderNumber()).append(",\"supplier\":");
+                appendString(json, order.getSupplier());
+                json.append(",\"createdMillis\":").append(order.getCreatedMillis()).append(",\"lines\":[");
+                List<Game> lines = order.getLines();
+                for (int k = 0; k < lines.size(); k++) {
+                    if (k > 0) json.append(',');
+                    appendGame(json, lines.get(k));
+                }
+                json.append("]}");
+            }
+            return respond(exchange, 200, json.append("]}"));
+        });
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        handle(exchange, "GET", (id, params) -> {
+            StringWriter text = new StringWriter(8192);
+            service.getMetrics().writePrometheus(text);
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            return 200;
+        });
+    }
+
+    private void customers(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        handle(exchange, method.equals("POST") ? "POST" : "GET", (id, params) -> {
+            CustomerSummary customer;
+            if (method.equals("POST")) {
+                int customerID = intParam(params, "id");
+                customer = pipeline != null
+                        ? await(pipeline.signIn(customerID, param(params, "name"), param(params, "address")))
+                        : service.signIn(customerID, param(params, "name"), param(params, "address"));
+            } else {
+                if (id == null) return error(exchange, 404, "Customer ID missing");
+                customer = service.getCustomer(Integer.parseInt(id));
+                if (customer == null) return error(exchange, 404, "No customer with ID " + id);
+            }
+            return respond(exchange, 200, appendCustomer(new StringBuilder(256), customer));
+        });
+    }
+
+    private void purchase(HttpExchange exchange) throws IOException {
+        handle(exchange, "POST", (id, params) -> {
+            int[] gameIds = Main.parseGameIds(param(params, "games"));
+            if (gameIds == null) return error(exchange, 400, "Invalid game IDs");
+            PurchaseRequest request = new PurchaseRequest(intParam(params, "customer"), gameIds);
+            CheckoutResult result = pipeline != null ? await(pipeline.purchase(request)) : service.purchase(request);
+            return respond(exchange, status(result.getOutcome()), appendCheckout(new StringBuilder(160), result));
+        });
+    }
+
+    private void tradeIn(HttpExchange exchange) throws IOException {
+        handle(exchange, "POST", (id, params) -> {
+            TradeInRequest request = new TradeInRequest(
+                    intParam(params, "customer"), intParam(params, "game"),
+                    param(params, "name"), param(params, "console"),
+                    intParam(params, "year"), intParam(params, "quantity"),
+                    Money.parse(param(params, "price")));
+            TradeInResult result = pipeline != null ? await(pipeline.tradeIn(request)) : service.tradeIn(request);
+            return respond(exchange, result.isAccepted() ? 200 : 409, appendTradeIn(new StringBuilder(160), result));
+        });
+    }
+
+    // === Request plumbing ===
+
+    private interface Route {
+        /**
+         * Answers one request.
+         * @param id Path segment after the context, e.g. "1234" for /games/1234, or null
+         * @param params Query and form parameters
+         * @return the status sent
+         * @throws IOException if the response cannot be written
+         */
+        int apply(String id, Map<String, String> params) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Route route) throws IOException {
+        try (exchange) {
+            Map<String, String> params = new HashMap<>();
+            parseParams(exchange.getRequestURI().getRawQuery(), params);
+            // Always drain the body so the connection can be kept alive
+            try (InputStream body = exchange.getRequestBody()) {
+                parseParams(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+            if (!exchange.getRequestMethod().equals(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                error(exchange, 405, "Use " + method);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            String context = exchange.getHttpContext().getPath();
+            String id = path.length() > context.length() + 1 ? path.substring(context.length() + 1) : null;
+            try {
+                route.apply(id, params);
+            } catch (IllegalArgumentException e) {
+                // Also covers NumberFormatException from bad numbers
+                error(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                System.out.println("Error: " + method + " " + path + " failed: " + e);
+                error(exchange, 500, "Internal error");
+            }
+        }
+    }
+
+    private static void parseParams(String encoded, Map<String, String> params) {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+    }
+
+    // Waits for a pipeline command, rethrowing what the service threw so it is answered like a direct call
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static String param(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing parameter " + name);
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name) {
+        return Integer.parseInt(param(params, name).trim());
+    }
+
+    private static int status(CheckoutOutcome outcome) {
+        switch (outcome) {
+            case PURCHASED: return 200;
+            case NOT_FOUND: return 404;
+            default: return 409;
+        }
+    }
+
+    private static int respond(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        return status;
+    }
+
+    private static int error(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder(64).append("{\"error\":");
+        appendString(json, message);
+        return respond(exchange, status, json.append('}'));
+    }
+
+    // === JSON ===
+
+    private static StringBuilder appendGame(StringBuilder json, Game game) {
+        json.append("{\"id\":").append(game.getGameId()).append(",\"name\":");
+        appendString(json, game.getNameOfGame());
+        json.append(",\"console\":");
+        appendString(json, game.getConsoleType());
+        return json.append(",\"year\":").append(game.getReleaseYear())
+                .append(",\"pricePence\":").append(game.getPricePence())
+                .append(",\"quantity\":").append(game.getQuantity()).append('}');
+    }
+
+    private static StringBuilder appendCustomer(StringBuilder json, CustomerSummary customer) {
+        json.append("{\"id\":").append(customer.getCustomerID()).append(",\"name\":");
+        appendString(json, customer.getName());
+        json.append(",\"address\":");
+        appendString(json, customer.getAddress());
+        json.append(",\"balancePence\":").append(customer.getBalancePence())
+                .append(",\"discountActive\":").append(customer.isDiscountActive());
+        if (customer.getDiscountExpiresOn() != null) {
+            json.append(",\"discountExpiresOn\":\"").append(customer.getDiscountExpiresOn()).append('"');
+        }
+        json.append(",\"gamesBought\":");
+        appendStrings(json, customer.getGamesBought());
+        json.append(",\"gamesTradedIn\":");
+        appendStrings(json, customer.getGamesTradedIn());
+        return json.append('}');
+    }
+
+    private static StringBuilder appendCheckout(StringBuilder json, CheckoutResult result) {
+        json.append("{\"outcome\":\"").append(result.getOutcome())
+                .append("\",\"pricePence\":").append(result.getPricePence())
+                .append(",\"discountPence\":").append(result.getDiscountPence())
+                .append(",\"balancePence\":").append(result.getBalancePence());
+        if (result.getGameId() >= 0) json.append(",\"gameId\":").append(result.getGameId());
+        return json.append('}');
+    }
+
+    private static StringBuilder appendTradeIn(StringBuilder json, TradeInResult result) {
+        json.append("{\"stock\":\"").append(result.getStockResult())
+                .append("\",\"gameId\":").append(result.getGameId())
+                .append(",\"creditedPence\":").append(result.getCreditedPence())
+                .append(",\"balancePence\":").append(result.getBalancePence());
+        if (result.getDiscountExpiresOn() != null) {
+            json.append(",\"discountRate\":").append(Math.round(result.getDiscountRate() * 10000) / 10000.0)
+                    .append(",\"discountExpiresOn\":\"").append(result.getDiscountExpiresOn()).append('"');
+        }
+        return json.append('}');
+    }
+
+    private static void appendSales(StringBuilder json, List<SalesFigures> figures) {
+        json.append('[');
+        for (int i = 0; i < figures.size(); i++) {
+            if (i > 0) json.append(',');
+            appendSales(json, figures.get(i));
+        }
+        json.append(']');
+    }
+
+    private static void appendSales(StringBuilder json, SalesFigures figures) {
+        json.append("{\"label\":");
+        appendString(json, figures.getLabel());
+        if (figures.getGameId() >= 0) json.append(",\"gameId\":").append(figures.getGameId());
+        json.append(",\"units\":").append(figures.getUnits())
+                .append(",\"revenuePence\":").append(figures.getRevenuePence())
+                .append(",\"unitsLastHour\":").append(figures.getUnitsLastHour())
+                .append(",\"unitsLastDay\":").append(figures.getUnitsLastDay())
+                .append(",\"tradedInUnits\":").append(figures.getTradedInUnits())
+                .append(",\"tradeInPence\":").append(figures.getTradeInPence()).append('}');
+    }
+
+    private static void appendStrings(StringBuilder json, List<String> values) {
+        json.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) json.append(',');
+            appendString(json, values.get(i));
+        }
+        json.append(']');
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
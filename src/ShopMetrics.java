@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counters for the shop's operations, cheap
+ * enough to leave on in production. Recording a call costs a System.nanoTime,
+ * one bucket increment in the operation's LatencyHistogram and one LongAdder
+ * increment for its outcome; nothing is allocated and nothing is locked.
+ *
+ * Figures are cumulative from when the metrics were created. They can be read
+ * as OperationStats, written in the Prometheus text format, or exported to a
+ * file on a schedule, which a node exporter's textfile collector can pick up.
+ *
+ * Attach an instance to an inventory with Inventory.setMetrics; checkouts and
+ * the ShopService operations then record into it. When the inventory has a
+ * GameCache, its counters are exported alongside so the cache can be sized.
+ */
+
+public class ShopMetrics implements AutoCloseable {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final LatencyHistogram[] latencies;
+    private final LongAdder[][] outcomes;
+    private ScheduledExecutorService exporter;
+    private volatile GameCache cache;
+
+    /**
+     * Constructor to initialize empty metrics for every ShopOperation.
+     */
+    public ShopMetrics() {
+        ShopOperation[] operations = ShopOperation.values();
+        latencies = new LatencyHistogram[operations.length];
+        outcomes = new LongAdder[operations.length][];
+        for (ShopOperation operation : operations) {
+            latencies[operation.ordinal()] = new LatencyHistogram();
+            LongAdder[] counters = new LongAdder[operation.outcomeCount()];
+            for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+            outcomes[operation.ordinal()] = counters;
+        }
+    }
+
+    // === Recording ===
+
+    /**
+     * Records a call that finished with one of the operation's enum outcomes.
+     * @param operation Operation called
+     * @param outcome CheckoutOutcome or StockLineResult the call finished with
+     * @param startNanos System.nanoTime when the call started
+     */
+    public void record(ShopOperation operation, Enum<?> outcome, long startNanos) {
+        record(operation, outcome.ordinal(), startNanos);
+    }
+
+    /**
+     * Records a call of an operation counted by a found or not found style pair.
+     * @param operation Operation called
+     * @param succeeded true for the first outcome, e.g. "found", false for the second
+     * @param startNanos System.nanoTime when the call started
+     */
+    public void record(ShopOperation operation, boolean succeeded, long startNanos) {
+        record(operation, succeeded ? 0 : 1, startNanos);
+    }
+
+    private void record(ShopOperation operation, int outcome, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        latencies[operation.ordinal()].record(elapsed);
+        outcomes[operation.ordinal()][outcome].increment();
+    }
+
+    /**
+     * Sets a game cache whose counters are exported with the operation figures.
+     * @param cache the cache, or null for none
+     */
+    public void setCache(GameCache cache) {
+        this.cache = cache;
+    }
+
+    // === Reading ===
+
+    /**
+     * Gets the figures for one operation.
+     * @param operation Operation to read
+     * @return the latencies and outcome counts so far
+     */
+    public OperationStats getStats(ShopOperation operation) {
+        LatencyHistogram histogram = latencies[operation.ordinal()];
+        LongAdder[] counters = outcomes[operation.ordinal()];
+        long[] counts = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) counts[i] = counters[i].sum();
+        return new OperationStats(operation, histogram.getCount(), histogram.getSumNanos(),
+                histogram.getValuesAtPercentiles(PERCENTILES), histogram.getMaxNanos(), counts);
+    }
+
+    /**
+     * Gets the figures for every operation.
+     * @return the stats in ShopOperation order
+     */
+    public List<OperationStats> snapshot() {
+        List<OperationStats> out = new ArrayList<>();
+        for (ShopOperation operation : ShopOperation.values()) {
+            out.add(getStats(operation));
+        }
+        return out;
+    }
+
+    /**
+     * Writes every operation's figures in the Prometheus text exposition format:
+     * a latency summary with quantiles, the slowest call and a counter per outcome.
+     * @param out Writer to write to
+     * @throws IOException if the writer fails
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        List<OperationStats> stats = snapshot();
+        out.write("# HELP shop_operation_duration_seconds Time taken by shop operations.\n");
+        out.write("# TYPE shop_operation_duration_seconds summary\n");
+        for (OperationStats s : stats) {
+            String name = s.getOperation().getMetricName();
+            long[] values = {s.getP50Nanos(), s.getP90Nanos(), s.getP99Nanos(), s.getP999Nanos()};
+            for (int q = 0; q < QUANTILES.length; q++) {
+                out.write("shop_operation_duration_seconds{operation=\"" + name + "\",quantile=\"" + QUANTILES[q] + "\"} "
+                        + seconds(values[q]) + "\n");
+            }
+            out.write("shop_operation_duration_seconds_sum{operation=\"" + name + "\"} " + seconds(s.getSumNanos()) + "\n");
+            out.write("shop_operation_duration_seconds_count{operation=\"" + name + "\"} " + s.getCount() + "\n");
+        }
+        out.write("# HELP shop_operation_duration_max_seconds Slowest call of each shop operation.\n");
+        out.write("# TYPE shop_operation_duration_max_seconds gauge\n");
+        for (OperationStats s : stats) {
+            out.write("shop_operation_duration_max_seconds{operation=\"" + s.getOperation().getMetricName() + "\"} "
+                    + seconds(s.getMaxNanos()) + "\n");
+        }
+        out.write("# HELP shop_operation_outcomes_total Shop operations by how they finished.\n");
+        out.write("# TYPE shop_operation_outcomes_total counter\n");
+        for (OperationStats s : stats) {
+            ShopOperation operation = s.getOperation();
+            for (int i = 0; i < operation.outcomeCount(); i++) {
+                out.write("shop_operation_outcomes_total{operation=\"" + operation.getMetricName()
+                        + "\",outcome=\"" + operation.outcome(i) + "\"} " + s.outcomeCount(i) + "\n");
+            }
+        }
+        GameCache games = cache;
+        if (games != null) writeCache(out, games);
+    }
+
+    // === Export ===
+
+    /**
+     * Writes the Prometheus text to a file, replacing it in one atomic move so a
+     * reader never sees a half-written file.
+     * @param file File to write
+     * @throws IOException if the file cannot be written
+     */
+    public void exportTo(Path file) throws IOException {
+        StringWriter text = new StringWriter(8192);
+        writePrometheus(text);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, text.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Starts exporting to a file on a background thread until close is called.
+     * @param file File to write
+     * @param intervalMillis Time between exports
+     * @throws IllegalStateException if an export is already running
+     */
+    public synchronized void startExport(Path file, long intervalMillis) {
+        if (exporter != null) {
+            throw new IllegalStateException("Metrics are already being exported");
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        exporter.scheduleWithFixedDelay(() -> {
+            try {
+                exportTo(file);
+            } catch (IOException e) {
+                System.out.println("Error: could not export metrics: " + e.getMessage());
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the export started by startExport, if any.
+     */
+    @Override
+    public synchronized void close() {
+        if (exporter != null) {
+            exporter.shutdown();
+            exporter = null;
+        }
+    }
+
+    private static void writeCache(Writer out, GameCache cache) throws IOException {
+        out.write("# HELP shop_game_cache_lookups_total Game lookups by whether the cache held the game.\n");
+        out.write("# TYPE shop_game_cache_lookups_total counter\n");
+        out.write("shop_game_cache_lookups_total{result=\"hit\"} " + cache.getHits() + "\n");
+        out.write("shop_game_cache_lookups_total{result=\"miss\"} " + cache.getMisses() + "\n");
+        out.write("# HELP shop_game_cache_removals_total Games dropped from the cache, by cause.\n");
+        out.write("# TYPE shop_game_cache_removals_total counter\n");
+        out.write("shop_game_cache_removals_total{cause=\"eviction\"} " + cache.getEvictions() + "\n");
+        out.write("shop_game_cache_removals_total{cause=\"invalidation\"} " + cache.getInvalidations() + "\n");
+        out.write("# HELP shop_game_cache_entries Games held in the cache.\n");
+        out.write("# TYPE shop_game_cache_entries gauge\n");
+        out.write("shop_game_cache_entries " + cache.size() + "\n");
+        out.write("# HELP shop_game_cache_capacity Most games the cache holds.\n");
+        out.write("# TYPE shop_game_cache_capacity gauge\n");
+        out.write("shop_game_cache_capacity " + cache.getCapacity() + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.Locale;
+
+/**
+ * Operations timed by ShopMetrics, each with the outcomes it is counted by.
+ * Operations that finish with a CheckoutOutcome or StockLineResult are counted
+ * by that enum's values; the others by a found or not found style pair.
+ */
+
+public enum ShopOperation {
+    /** Looking up one game by ID. */
+    FIND_GAME("find_game", "found", "not_found"),
+    /** Searching the catalog by title. */
+    SEARCH_TITLES("search_titles", "matched", "no_match"),
+    /** Ordering copies of a game into stock. */
+    ADD_STOCK("add_stock", names(StockLineResult.values())),
+    /** Delisting a game. */
+    REMOVE_STOCK("remove_stock", "removed", "not_found"),
+    /** Selling a copy over the counter, without a customer account. */
+    SELL_STOCK("sell_stock", names(CheckoutOutcome.values())),
+    /** A customer buying one game. */
+    CHECKOUT("checkout", names(CheckoutOutcome.values())),
+    /** A customer buying a basket of games. */
+    CHECKOUT_BASKET("checkout_basket", names(CheckoutOutcome.values())),
+    /** A customer trading in copies of a game. */
+    TRADE_IN("trade_in", names(StockLineResult.values()));
+
+    private final String metricName;
+    private final String[] outcomes;
+
+    ShopOperation(String metricName, String... outcomes) {
+        this.metricName = metricName;
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * Gets the name the operation is exported under.
+     * @return the name in snake case, e.g. "checkout_basket"
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * Gets the outcomes the operation is counted by.
+     * @return the outcome names in snake case, indexed by outcome number
+     */
+    public String[] getOutcomes() {
+        return outcomes.clone();
+    }
+
+    int outcomeCount() {
+        return outcomes.length;
+    }
+
+    String outcome(int index) {
+        return outcomes[index];
+    }
+
+    private static String[] names(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().toLowerCase(Locale.ROOT);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Headless entry point to the shop: every customer and stock operation as a
+ * plain method call taking a request and returning a result, with no console
+ * input or output. The console menus in Main are one client of this class; a
+ * server can drive the same methods from many threads at once.
+ *
+ * The service holds no per-call state. Customer operations lock only the
+ * customer involved, in the same order CheckoutEngine uses, so calls for
+ * different customers run in parallel. Calls naming a customer who has not
+ * signed in throw IllegalArgumentException; everything else that can go wrong
+ * is reported in the result.
+ *
+ * Every operation is timed into the inventory's ShopMetrics with the outcome it
+ * finished with; the service attaches metrics, sales analytics and a reorder
+ * scheduler to the inventory when it does not have them yet.
+ */
+
+public class ShopService implements AutoCloseable {
+
+    private final Inventory inventory;
+    private final CustomerRegistry customers;
+    private final CheckoutEngine checkout;
+    private final ShopStore store;
+
+    /**
+     * Constructor to initialize an in-memory service.
+     * @param inventory Inventory to sell from
+     * @param customers Registered customers
+     */
+    public ShopService(Inventory inventory, CustomerRegistry customers) {
+        this(inventory, customers, null);
+    }
+
+    /**
+     * Constructor to initialize a service that saves to a store on close.
+     * @param inventory Inventory to sell from, already recovered from the store
+     * @param customers Registered customers, already recovered from the store
+     * @param store Durable storage, or null to run in memory only
+     */
+    public ShopService(Inventory inventory, CustomerRegistry customers, ShopStore store) {
+        this.inventory = inventory;
+        this.customers = customers;
+        this.checkout = new CheckoutEngine(inventory);
+        this.store = store;
+        if (inventory.getTitleIndex() == null) inventory.enableTitleSearch();
+        if (inventory.getAnalytics() == null) inventory.setAnalytics(new SalesAnalytics());
+        if (inventory.getReorders() == null) inventory.setReorders(new ReorderScheduler(inventory));
+        if (inventory.getMetrics() == null) inventory.setMetrics(new ShopMetrics());
+        if (inventory.getCache() != null) inventory.getMetrics().setCache(inventory.getCache());
+    }
+
+    /**
+     * Gets the inventory behind the service.
+     * @return the inventory
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Gets the sales figures of the shop.
+     * @return the analytics every checkout and trade-in is recorded in
+     */
+    public SalesAnalytics getAnalytics() {
+        return inventory.getAnalytics();
+    }
+
+    /**
+     * Gets the latency and outcome figures of the shop's operations.
+     * @return the metrics every operation is timed into
+     */
+    public ShopMetrics getMetrics() {
+        return inventory.getMetrics();
+    }
+
+    /**
+     * Gets the scheduler that reorders games running low.
+     * @return the reorder scheduler every sale and restock is reported to
+     */
+    public ReorderScheduler getReorders() {
+        return inventory.getReorders();
+    }
+
+    /**
+     * Gets the customers behind the service.
+     * @return the customer registry
+     */
+    public CustomerRegistry getCustomers() {
+        return customers;
+    }
+
+    // === Customer operations ===
+
+    /**
+     * Signs a customer in, registering them if the ID is new.
+     * A returning customer keeps the name and address they registered with.
+     * @param customerID ID of the customer
+     * @param name Name to register a new customer with
+     * @param address Address to register a new customer with
+     * @return the customer's account
+     */
+    public CustomerSummary signIn(int customerID, String name, String address) {
+        return customers.findOrRegister(customerID, name, address).summarize(inventory);
+    }
+
+    /**
+     * Looks up a customer's account.
+     * @param customerID ID of the customer
+     * @return the customer's account, or null if no customer has that ID
+     */
+    public CustomerSummary getCustomer(int customerID) {
+        Customer customer = customers.findById(customerID);
+        return customer == null ? null : customer.summarize(inventory);
+    }
+
+    /**
+     * Buys one game or a basket of games; a basket is bought all or nothing.
+     * @param request Customer and games to buy
+     * @return the result of the checkout
+     * @throws IllegalArgumentException if the customer is unknown or no games are asked for
+     */
+    public CheckoutResult purchase(PurchaseRequest request) {
+        Customer customer = requireCustomer(request.getCustomerID());
+        int[] gameIds = request.getGameIds();
+        if (gameIds.length == 1) {
+            return checkout.checkout(customer, gameIds[0]);
+        }
+        return checkout.checkoutBasket(customer, gameIds);
+    }
+
+    /**
+     * Trades in copies of a game: stocks them, credits the customer and grants
+     * the next purchase discount. Copies of a listed game restock it. When the
+     * requested ID is not listed but the title, console and release year match a
+     * listed game, the copies restock that game instead of creating a duplicate.
+     * @param request Customer and the copies traded in
+     * @return the result of the trade-in; when the copies are rejected nothing changes
+     * @throws IllegalArgumentException if the customer is unknown
+     */
+    public TradeInResult tradeIn(TradeInRequest request) {
+        Customer customer = requireCustomer(request.getCustomerID());
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        TradeInResult result = tradeIn(customer, request);
+        if (metrics != null) metrics.record(ShopOperation.TRADE_IN, result.getStockResult(), start);
+        return result;
+    }
+
+    private TradeInResult tradeIn(Customer customer, TradeInRequest request) {
+        int gameId = request.getGameId();
+        if (request.getPricePence() < 0) {
+            return new TradeInResult(StockLineResult.REJECTED_INVALID, gameId, 0, customer.getBalancePence(), 0, null);
+        }
+        if (inventory.findById(gameId) == null) {
+            // Best effort: a late-listed title with very common words may not be matched
+            Game listed = inventory.matchListing(request.getNameOfGame(), request.getConsoleType(), request.getReleaseYear());
+            if (listed != null) gameId = listed.getGameId();
+        }
+        BatchReport checked = new BatchReport(1);
+        inventory.validateBatch(List.of(request.toGame(gameId)), checked);
+        if (checked.get(0) != null) {
+            return new TradeInResult(checked.get(0), gameId, 0, customer.getBalancePence(), 0, null);
+        }
+
+        synchronized (customer) {
+            // A new game is listed with no copies; the copies go in below, logged in
+            // one record with the credit so recovery replays both or neither
+            StockLineResult stocked = inventory.listIfAbsent(request.toListing(gameId))
+                    ? StockLineResult.ADDED : StockLineResult.RESTOCKED;
+            Game listed = inventory.findById(gameId);
+            if (listed == null) {
+                // Delisted by another thread in between
+                return new TradeInResult(StockLineResult.REJECTED_INVALID, gameId, 0, customer.getBalancePence(), 0, null);
+            }
+
+            long timestamp = System.currentTimeMillis();
+            WriteAheadLog log = inventory.getLog();
+            // Stocked and logged under the log's monitor, so the log keeps the order of changes to the game
+            synchronized (log != null ? log : customer) {
+                if (!inventory.putStock(listed, request.getQuantity())) {
+                    return new TradeInResult(StockLineResult.REJECTED_INVALID, gameId, 0, customer.getBalancePence(), 0, null);
+                }
+                customer.applyTradeIn(gameId, request.getPricePence(), timestamp);
+                if (log != null) {
+                    log.logTradeIn(customer, gameId, request.getQuantity(), request.getPricePence(), timestamp);
+                }
+            }
+            SalesAnalytics analytics = inventory.getAnalytics();
+            if (analytics != null) {
+                analytics.recordTradeIn(request.toGame(gameId), request.getQuantity(), request.getPricePence());
+            }
+            return new TradeInResult(stocked, gameId, request.getPricePence(), customer.getBalancePence(),
+                    inventory.getPricing().getNextPurchaseRate(), customer.getDiscountExpiresOn());
+        }
+    }
+
+    // === Stock operations ===
+
+    /**
+     * Looks up a game.
+     * @param gameId ID of the game
+     * @return the game, or null if it is not listed
+     */
+    public Game findGame(int gameId) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        Game game = inventory.findById(gameId);
+        if (metrics != null) metrics.record(ShopOperation.FIND_GAME, game != null, start);
+        return game;
+    }
+
+    /**
+     * Finds the games whose titles best match what a customer typed, allowing
+     * an unfinished last word and a few wrong letters.
+     * @param query Title or part of a title
+     * @param k Most results to return
+     * @return the matches, best first
+     */
+    public List<TitleMatch> searchTitles(String query, int k) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        List<TitleMatch> matches = inventory.searchTitles(query, k);
+        if (metrics != null) metrics.record(ShopOperation.SEARCH_TITLES, !matches.isEmpty(), start);
+        return matches;
+    }
+
+    /**
+     * Lists one page of the catalog.
+     * @param cursor CatalogPage.FIRST, or the cursor returned with the previous page
+     * @param limit Most games on the page
+     * @return the page
+     * @throws IllegalArgumentException if the limit is below 1 or the cursor was not returned by this shop
+     */
+    public CatalogPage listGames(long cursor, int limit) {
+        return inventory.page(cursor, limit, null);
+    }
+
+    /**
+     * Writes the whole catalog as text.
+     * @param out Writer to write to
+     * @throws IOException if writing fails
+     */
+    public void writeCatalog(Writer out) throws IOException {
+        inventory.writeAllGames(out, new CatalogRenderer());
+    }
+
+    /**
+     * Orders copies of a game into stock, checked against the stock limit.
+     * @param game Game and the number of copies ordered
+     * @return ADDED or RESTOCKED, or why the order was rejected
+     */
+    public StockLineResult orderStock(Game game) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        StockLineResult result = inventory.addStockBatch(List.of(game)).get(0);
+        if (metrics != null) metrics.record(ShopOperation.ADD_STOCK, result, start);
+        return result;
+    }
+
+    /**
+     * Delists a game, taking it off the catalog entirely.
+     * @param gameId ID of the game
+     * @return true if the game was listed and has been removed
+     */
+    public boolean removeGame(int gameId) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        boolean removed = inventory.removeStock(gameId);
+        if (metrics != null) metrics.record(ShopOperation.REMOVE_STOCK, removed, start);
+        return removed;
+    }
+
+    /**
+     * Sells one copy of a game over the counter, without a customer account.
+     * @param gameId ID of the game
+     * @return the result of the sale
+     */
+    public SaleResult sellStock(int gameId) {
+        ShopMetrics metrics = inventory.getMetrics();
+        long start = metrics != null ? System.nanoTime() : 0;
+        SaleResult result = sell(gameId);
+        if (metrics != null) metrics.record(ShopOperation.SELL_STOCK, result.getOutcome(), start);
+        return result;
+    }
+
+    private SaleResult sell(int gameId) {
+        Game game = inventory.findById(gameId);
+        if (game == null) {
+            return new SaleResult(CheckoutOutcome.NOT_FOUND, gameId, 0);
+        }
+        if (!inventory.sellStock(gameId)) {
+            return new SaleResult(CheckoutOutcome.OUT_OF_STOCK, gameId, 0);
+        }
+        SalesAnalytics analytics = inventory.getAnalytics();
+        if (analytics != null) {
+            analytics.recordSale(game, 1, game.getPricePence(), System.currentTimeMillis());
+        }
+        return new SaleResult(CheckoutOutcome.PURCHASED, gameId, game.getQuantity());
+    }
+
+    /**
+     * Sets the quantity at or below which a game is reordered, and how many copies to order.
+     * @param gameId ID of the game
+     * @param reorderPoint Reorder point
+     * @param reorderQuantity Copies to order, at most the stock limit
+     * @return false if the game is not listed
+     * @throws IllegalArgumentException if the point is negative or the quantity is out of range
+     */
+    public boolean setReorderLevel(int gameId, int reorderPoint, int reorderQuantity) {
+        if (inventory.findById(gameId) == null) return false;
+        inventory.getReorders().setThreshold(gameId, reorderPoint, reorderQuantity, null);
+        return true;
+    }
+
+    // === Lifecycle ===
+
+    /**
+     * Stops the reorder job and any metrics export, then writes a snapshot and closes the store, if there is one.
+     * Should be called once no more operations are running.
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        ReorderScheduler reorders = inventory.getReorders();
+        if (reorders != null) reorders.close();
+        ShopMetrics metrics = inventory.getMetrics();
+        if (metrics != null) metrics.close();
+        if (store == null) return;
+        try {
+            store.checkpoint(inventory, customers.getAll());
+        } finally {
+            store.close();
+        }
+    }
+
+    private Customer requireCustomer(int customerID) {
+        Customer customer = customers.findById(customerID);
+        if (customer == null) {
+            throw new IllegalArgumentException("No customer with ID " + customerID);
+        }
+        return customer;
+    }
+}
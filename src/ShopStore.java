@@ -0,0 +1,312 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Durable storage for the shop: a binary snapshot plus a write-ahead log of
+ * everything that happened since the snapshot was taken.
+ * On startup recover() loads the snapshot and replays the log on top of it;
+ * checkpoint() writes a fresh snapshot and starts a new log.
+ *
+ * Logs are numbered in generations (wal.log, then wal.1.log, wal.2.log, ...)
+ * and the snapshot records the first generation it does not include. A
+ * checkpoint moves the log on to the next generation before writing the
+ * snapshot, and deletes the old log only once the snapshot is renamed into
+ * place. A crash at any point leaves either the old snapshot with every log
+ * written since it, or the new snapshot next to logs it knows to skip, so no
+ * change is ever replayed on top of a snapshot that already holds it.
+ *
+ * A directory may also hold a columnar catalog file, opened with openCatalog
+ * and served through a CatalogInventory. For such a shop the catalog file is
+ * the stock part of the snapshot: checkpoint() writes the current games and
+ * quantities to a catalog file of the new generation (catalog.1.gsc, ...), and
+ * the snapshot itself only holds the customers, so the next start maps the
+ * games instead of reading them one by one. A catalog.gsc placed in the
+ * directory to seed a new shop is generation 0.
+ */
+
+public class ShopStore implements AutoCloseable {
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_FILE = "wal.log";
+    private static final String CATALOG_FILE = "catalog.gsc";
+    private static final Pattern LOG_GENERATION = Pattern.compile("wal\\.(\\d+)\\.log");
+    private static final int SNAPSHOT_MAGIC = 0x47534E50; // "GSNP"
+    private static final int SNAPSHOT_VERSION = 4;
+
+    private final Path directory;
+    private final WriteAheadLog log;
+    private int snapshotGeneration; // first log generation the snapshot does not include
+    private int logGeneration;      // generation the log appends to
+    private MappedCatalog catalog;
+    private Path catalogFile;
+
+    /**
+     * Opens a store in a directory, creating the directory if needed.
+     * @param directory Directory holding the snapshot and log files
+     * @param groupSize Number of log records to collect before each fsync
+     * @param flushIntervalMillis Longest time a log record may wait before being fsynced, or 0 to disable the timer
+     * @throws IOException if the directory or log cannot be opened
+     */
+    public ShopStore(Path directory, int groupSize, long flushIntervalMillis) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshot))) {
+                snapshotGeneration = readHeader(in, snapshot);
+            }
+        }
+        logGeneration = snapshotGeneration;
+        this.log = new WriteAheadLog(logFile(logGeneration), groupSize, flushIntervalMillis);
+    }
+
+    /**
+     * Gets the write-ahead log of this store.
+     * @return the log
+     */
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Opens the catalog file of the snapshot's generation, or the catalog.gsc the
+     * directory was seeded with if no checkpoint has written one. The store keeps
+     * the catalog open until the store is closed.
+     * @return the mapped catalog, or null if there is no catalog file
+     * @throws IOException if the catalog cannot be opened
+     */
+    public MappedCatalog openCatalog() throws IOException {
+        if (catalog != null) return catalog;
+        Path file = catalogFile(snapshotGeneration);
+        if (!Files.exists(file)) file = directory.resolve(CATALOG_FILE);
+        if (Files.exists(file)) {
+            catalog = MappedCatalog.open(file);
+            catalogFile = file;
+        }
+        return catalog;
+    }
+
+    /**
+     * Rebuilds state from the snapshot and every log generation written since
+     * it, then attaches the log to the inventory so later mutations are recorded.
+     * Logs older than the snapshot, left by a checkpoint that stopped before
+     * deleting them, are deleted unread.
+     * @param inventory Empty inventory to load games into
+     * @param customers Empty registry to load customers into
+     * @return the number of log records replayed
+     * @throws IOException if the snapshot or log cannot be read
+     */
+    public int recover(Inventory inventory, CustomerRegistry customers) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            readSnapshot(snapshot, inventory, customers);
+        }
+        int replayed = log.replay(inventory, customers);
+        for (int generation : logGenerations()) {
+            if (generation < snapshotGeneration) {
+                Files.delete(logFile(generation));
+            } else if (generation > logGeneration) {
+                // Written after a checkpoint moved the log on but before its snapshot was renamed
+                log.roll(logFile(generation));
+                logGeneration = generation;
+                replayed += log.replay(inventory, customers);
+            }
+        }
+        inventory.setLog(log);
+        return replayed;
+    }
+
+    /**
+     * Writes a snapshot of the current state and starts the next log generation,
+     * deleting the logs the snapshot replaces.
+     * Should be called while no mutations are running, e.g. at shutdown.
+     * @param inventory Inventory to save
+     * @param customers Customers to save
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void checkpoint(Inventory inventory, Collection<Customer> customers) throws IOException {
+        // Everything logged so far is in the snapshot; anything after it goes to the new generation
+        int next = logGeneration + 1;
+        log.roll(logFile(next));
+        int replaced = snapshotGeneration;
+        logGeneration = next;
+
+        // A catalog-backed shop keeps its games in the catalog file; the running
+        // inventory still reads the old mapping, which stays valid once the file is deleted
+        boolean catalogBacked = inventory instanceof CatalogInventory;
+        if (catalogBacked) {
+            MappedCatalog.write(catalogFile(next), inventory.listGames());
+        }
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            writeSnapshot(out, next, catalogBacked ? List.of() : inventory.listGames(), customers);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotGeneration = next;
+
+        for (int generation = replaced; generation < next; generation++) {
+            Files.deleteIfExists(logFile(generation));
+        }
+        if (catalogBacked && catalogFile != null) {
+            try {
+                Files.deleteIfExists(catalogFile);
+            } catch (IOException e) {
+                // Some platforms refuse to delete a mapped file; the next start ignores it
+            }
+            catalogFile = catalogFile(next);
+        }
+    }
+
+    /**
+     * Flushes and closes the log, and closes the catalog if it was opened.
+     * @throws IOException if the final flush fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            log.close();
+        } finally {
+            if (catalog != null) catalog.close();
+        }
+    }
+
+    // === Files ===
+
+    private Path logFile(int generation) {
+        return directory.resolve(generation == 0 ? LOG_FILE : "wal." + generation + ".log");
+    }
+
+    private Path catalogFile(int generation) {
+        return directory.resolve(generation == 0 ? CATALOG_FILE : "catalog." + generation + ".gsc");
+    }
+
+    // Generations of the log files in the directory, oldest first
+    private List<Integer> logGenerations() throws IOException {
+        List<Integer> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                Matcher m = LOG_GENERATION.matcher(name);
+                if (name.equals(LOG_FILE)) {
+                    generations.add(0);
+                } else if (m.matches()) {
+                    generations.add(Integer.parseInt(m.group(1)));
+                }
+            });
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    // === Snapshot format ===
+
+    private static void writeSnapshot(DataOutputStream out, int generation, List<Game> games,
+                                      Collection<Customer> customers) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(generation);
+
+        out.writeInt(games.size());
+        for (Game game : games) {
+            out.writeInt(game.getGameId());
+            out.writeUTF(game.getNameOfGame());
+            out.writeInt(game.getReleaseYear());
+            out.writeLong(game.getPricePence());
+            out.writeUTF(game.getConsoleType());
+            out.writeInt(game.getQuantity());
+        }
+
+        out.writeInt(customers.size());
+        for (Customer customer : customers) {
+            out.writeInt(customer.getCustomerID());
+            out.writeUTF(customer.getName());
+            out.writeUTF(customer.getAddress());
+            out.writeLong(customer.getBalancePence());
+            out.writeBoolean(customer.hasNextPurchaseDiscount());
+            LocalDate expiresOn = customer.getDiscountExpiresOn();
+            out.writeLong(expiresOn == null ? -1 : expiresOn.toEpochDay());
+            writeHistory(out, customer.getPurchaseHistory());
+            writeHistory(out, customer.getTradeInHistory());
+        }
+    }
+
+    private static void readSnapshot(Path snapshot, Inventory inventory, CustomerRegistry customers) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024))) {
+            readHeader(in, snapshot);
+
+            int gameCount = in.readInt();
+            for (int i = 0; i < gameCount; i++) {
+                int gameId = in.readInt();
+                String name = in.readUTF();
+                int year = in.readInt();
+                long price = in.readLong();
+                String console = in.readUTF();
+                int quantity = in.readInt();
+                inventory.addStock(new Game(gameId, name, year, price, console, quantity));
+            }
+
+            int customerCount = in.readInt();
+            for (int i = 0; i < customerCount; i++) {
+                int id = in.readInt();
+                Customer customer = new Customer(in.readUTF(), in.readUTF(), id);
+                long balance = in.readLong();
+                boolean hasDiscount = in.readBoolean();
+                long expiresOn = in.readLong();
+                customer.restoreState(balance, hasDiscount, expiresOn < 0 ? null : LocalDate.ofEpochDay(expiresOn));
+                readHistory(in, customer.getPurchaseHistory());
+                readHistory(in, customer.getTradeInHistory());
+                if (!customers.register(customer)) {
+                    throw new IOException("Duplicate customer ID " + id + " in snapshot");
+                }
+            }
+        }
+    }
+
+    // Checks the magic and version and returns the first log generation the snapshot does not include
+    private static int readHeader(DataInputStream in, Path snapshot) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a shop snapshot: " + snapshot);
+        }
+        return in.readInt();
+    }
+
+    private static void writeHistory(DataOutputStream out, TransactionHistory history) throws IOException {
+        out.writeLong(history.getRolledUpCount());
+        out.writeLong(history.getRolledUpPence());
+        out.writeInt(history.size());
+        for (int i = 0; i < history.size(); i++) {
+            out.writeInt(history.getGameId(i));
+            out.writeLong(history.getPricePence(i));
+            out.writeLong(history.getTimestamp(i));
+        }
+    }
+
+    private static void readHistory(DataInputStream in, TransactionHistory history) throws IOException {
+        long rolledUpCount = in.readLong();
+        long rolledUpPence = in.readLong();
+        int entries = in.readInt();
+        for (int k = 0; k < entries; k++) {
+            history.record(in.readInt(), in.readLong(), in.readLong());
+        }
+        // Entries beyond the bound roll up as they are replayed, so add the saved aggregate on top
+        history.restoreRolledUp(history.getRolledUpCount() + rolledUpCount, history.getRolledUpPence() + rolledUpPence);
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Outcome of a single line in a bulk stock delivery.
+ */
+
+public enum StockLineResult {
+    /** The game was new and has been added to the inventory. */
+    ADDED,
+    /** The game was already listed and its quantity has been increased. */
+    RESTOCKED,
+    /** The line asked for more copies than the stock limit allows. */
+    REJECTED_OVER_LIMIT,
+    /** The line was missing, had no name or had a quantity below one. */
+    REJECTED_INVALID;
+
+    /**
+     * Checks if the line was applied to the inventory.
+     * @return true for ADDED and RESTOCKED
+     */
+    public boolean isApplied() {
+        return this == ADDED || this == RESTOCKED;
+    }
+}
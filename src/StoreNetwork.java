@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Several shops run in one process, each with its own inventory. The stores are
+ * the shards: sales, restocks and checkouts in one store never touch another, so
+ * with a ConcurrentInventory per store, itself striped by gameId, throughput
+ * grows with the number of stores up to the number of cores.
+ *
+ * Questions about the whole network, such as which stores have a game in stock
+ * or how many copies of each title there are altogether, fan out over the
+ * stores as fork-join tasks and merge the answers. Lookups of one game are too
+ * cheap to be worth a task per store, so they are split into runs of stores;
+ * catalog-wide totals scan whole inventories and get a task per store.
+ *
+ * Transfers move copies between two stores all or nothing: the copies are taken
+ * from the source with the same compare-and-set a sale uses, so a transfer never
+ * takes stock another till has sold, and are put back if the destination cannot
+ * take them. Copies are never lost or duplicated, but a network-wide query that
+ * runs during a transfer may not count the copies in transit. A transfer is not
+ * a sale: it is logged as a transfer and does not trigger a reorder.
+ */
+
+public class StoreNetwork {
+
+    // Stores per fork-join task when asking every store about one game
+    private static final int LOOKUP_STORES_PER_TASK = 32;
+
+    private final ForkJoinPool pool;
+    private final Map<String, Inventory> byName = new ConcurrentHashMap<>();
+    private volatile Store[] stores = new Store[0];
+
+    /**
+     * Constructor to initialize an empty network whose queries run on the common fork-join pool.
+     */
+    public StoreNetwork() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor to initialize an empty network.
+     * @param pool Pool that network-wide queries fan out on
+     */
+    public StoreNetwork(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // === Stores ===
+
+    /**
+     * Opens a store with an empty thread-safe inventory.
+     * @param name Name of the store
+     * @return the store's inventory
+     * @throws IllegalArgumentException if a store with that name is already open
+     */
+    public Inventory addStore(String name) {
+        Inventory inventory = new ConcurrentInventory();
+        addStore(name, inventory);
+        return inventory;
+    }
+
+    /**
+     * Adds a store whose inventory has already been built, e.g. recovered from its data directory.
+     * @param name Name of the store
+     * @param inventory The store's inventory; it must be thread-safe if the store is used from several threads
+     * @throws IllegalArgumentException if a store with that name is already open
+     */
+    public synchronized void addStore(String name, Inventory inventory) {
+        if (byName.putIfAbsent(name, inventory) != null) {
+            throw new IllegalArgumentException("Store " + name + " already exists");
+        }
+        Store[] grown = Arrays.copyOf(stores, stores.length + 1);
+        grown[stores.length] = new Store(name, inventory);
+        stores = grown;
+    }
+
+    /**
+     * Gets a store's inventory.
+     * @param name Name of the store
+     * @return the inventory, or null if there is no such store
+     */
+    public Inventory getStore(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Lists the names of the stores in the order they were added.
+     * @return the store names
+     */
+    public List<String> getStoreNames() {
+        List<String> names = new ArrayList<>();
+        for (Store store : stores) names.add(store.name);
+        return names;
+    }
+
+    // === Network-wide queries ===
+
+    /**
+     * Finds every store with a game in stock.
+     * @param gameId ID of the game
+     * @return the stores with at least one copy, in the order the stores were added
+     */
+    public List<StoreStock> findStock(int gameId) {
+        return fanOut(LOOKUP_STORES_PER_TASK, store -> {
+            Game game = store.inventory.findById(gameId);
+            if (game == null || game.getQuantity() < 1) return new ArrayList<StoreStock>();
+            List<StoreStock> found = new ArrayList<>(1);
+            found.add(new StoreStock(store.name, gameId, game.getQuantity()));
+            return found;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        }, new ArrayList<>());
+    }
+
+    /**
+     * Counts the copies of a game held across every store.
+     * @param gameId ID of the game
+     * @return the total quantity, 0 if no store lists it
+     */
+    public int totalStock(int gameId) {
+        return fanOut(LOOKUP_STORES_PER_TASK, store -> {
+            Game game = store.inventory.findById(gameId);
+            return game == null ? 0 : game.getQuantity();
+        }, Integer::sum, 0);
+    }
+
+    /**
+     * Counts the copies of every title held across every store. Editions of a
+     * title for different consoles are counted together.
+     * @return the total quantity by game name
+     */
+    public Map<String, Integer> totalStockByTitle() {
+        return fanOut(1, store -> {
+            Map<String, Integer> totals = new HashMap<>();
+            for (Game game : store.inventory.listGames()) {
+                totals.merge(game.getNameOfGame(), game.getQuantity(), Integer::sum);
+            }
+            return totals;
+        }, (left, right) -> {
+            // Fold the smaller map into the larger one
+            if (left.size() < right.size()) {
+                Map<String, Integer> swap = left;
+                left = right;
+                right = swap;
+            }
+            for (Map.Entry<String, Integer> e : right.entrySet()) left.merge(e.getKey(), e.getValue(), Integer::sum);
+            return left;
+        }, new HashMap<>());
+    }
+
+    // === Transfers ===
+
+    /**
+     * Moves copies of a game from one store to another, all or nothing. The game
+     * is listed at the destination if it is not already.
+     * @param from Name of the store giving the copies
+     * @param to Name of the store receiving them
+     * @param gameId ID of the game
+     * @param quantity Number of copies to move
+     * @return true if the copies were moved, false if the source does not list the game or has too few
+     * @throws IllegalArgumentException if a store does not exist, both are the same store,
+     *         the quantity is not positive or it is over the destination's stock limit
+     * @throws IllegalStateException if the destination rejected the copies and the source
+     *         could not take them back either
+     */
+    public boolean transfer(String from, String to, int gameId, int quantity) {
+        Inventory source = requireStore(from);
+        Inventory destination = requireStore(to);
+        if (source == destination) {
+            throw new IllegalArgumentException("Cannot transfer from a store to itself");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        destination.checkStockLimit(quantity);
+
+        Game game = source.findById(gameId);
+        if (game == null || !source.transferOut(gameId, quantity)) return false;
+        if (destination.restock(gameId, quantity)) return true;
+
+        // Not listed there yet; a batch line lists it, or restocks it if another transfer listed it first
+        Game line = new Game(gameId, game.getNameOfGame(), game.getReleaseYear(), game.getPricePence(),
+                game.getConsoleType(), quantity);
+        BatchReport report = destination.addStockBatch(List.of(line));
+        if (report.get(0).isApplied()) return true;
+
+        // Put the copies back, relisting the game if it was delisted in the meantime
+        if (source.restock(gameId, quantity)) return false;
+        StockLineResult putBack = source.addStockBatch(List.of(line)).get(0);
+        if (!putBack.isApplied()) {
+            throw new IllegalStateException("Lost " + quantity + " copies of game " + gameId + " moving from " + from
+                    + " to " + to + ": rejected by both stores (" + report.get(0) + ", " + putBack + ")");
+        }
+        return false;
+    }
+
+    // === Internal helpers ===
+
+    private Inventory requireStore(String name) {
+        Inventory inventory = byName.get(name);
+        if (inventory == null) {
+            throw new IllegalArgumentException("No store named " + name);
+        }
+        return inventory;
+    }
+
+    private <T> T fanOut(int storesPerTask, Function<Store, T> ask, BinaryOperator<T> merge, T empty) {
+        Store[] snapshot = stores;
+        if (snapshot.length == 0) return empty;
+        if (snapshot.length <= storesPerTask) {
+            return new FanOut<>(snapshot, 0, snapshot.length, storesPerTask, ask, merge).compute();
+        }
+        return pool.invoke(new FanOut<>(snapshot, 0, snapshot.length, storesPerTask, ask, merge));
+    }
+
+    private static final class Store {
+        final String name;
+        final Inventory inventory;
+
+        Store(String name, Inventory inventory) {
+            this.name = name;
+            this.inventory = inventory;
+        }
+    }
+
+    /**
+     * Asks a range of stores, splitting the range in half until each task has
+     * at most storesPerTask stores, and merges the answers left to right.
+     */
+    private static final class FanOut<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Store[] stores;
+        private final int from;
+        private final int to;
+        private final int storesPerTask;
+        private final transient Function<Store, T> ask;
+        private final transient BinaryOperator<T> merge;
+
+        FanOut(Store[] stores, int from, int to, int storesPerTask, Function<Store, T> ask, BinaryOperator<T> merge) {
+            this.stores = stores;
+            this.from = from;
+            this.to = to;
+            this.storesPerTask = storesPerTask;
+            this.ask = ask;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= storesPerTask) {
+                T answer = ask.apply(stores[from]);
+                for (int s = from + 1; s < to; s++) answer = merge.apply(answer, ask.apply(stores[s]));
+                return answer;
+            }
+            int mid = (from + to) >>> 1;
+            FanOut<T> right = new FanOut<>(stores, mid, to, storesPerTask, ask, merge);
+            right.fork();
+            T left = new FanOut<>(stores, from, mid, storesPerTask, ask, merge).compute();
+            return merge.apply(left, right.join());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copies of one game held by one store in a StoreNetwork.
+ */
+
+public class StoreStock {
+
+    private final String store;
+    private final int gameId;
+    private final int quantity;
+
+    /**
+     * Constructor to initialize a store's stock of a game.
+     * @param store Name of the store
+     * @param gameId ID of the game
+     * @param quantity Copies in stock when the store was asked
+     */
+    StoreStock(String store, int gameId, int quantity) {
+        this.store = store;
+        this.gameId = gameId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the name of the store.
+     * @return the store name
+     */
+    public String getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the ID of the game.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the copies the store had in stock.
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * toString method to display the stock
+     * @return string representation of the stock
+     */
+    @Override
+    public String toString() {
+        return "StoreStock{" + store + ", gameId=" + gameId + ", quantity=" + quantity + '}';
+    }
+}
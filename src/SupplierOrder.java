@@ -0,0 +1,86 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of reorders sent to one supplier by ReorderScheduler. The lines are
+ * delivery lines in the form Inventory.addStockBatch takes, so receiving the
+ * order is one call to addStockBatch(getLines()).
+ */
+
+public class SupplierOrder {
+
+    private final long orderNumber;
+    private final String supplier;
+    private final long createdMillis;
+    private final List<Game> lines;
+
+    /**
+     * Constructor to initialize a supplier order.
+     * @param orderNumber Sequence number of the order, counting from 1
+     * @param supplier Supplier the order is for
+     * @param createdMillis Time the order was made up, in epoch milliseconds
+     * @param lines Games and the number of copies ordered of each, most urgent first
+     */
+    SupplierOrder(long orderNumber, String supplier, long createdMillis, List<Game> lines) {
+        this.orderNumber = orderNumber;
+        this.supplier = supplier;
+        this.createdMillis = createdMillis;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Gets the sequence number of the order.
+     * @return the order number
+     */
+    public long getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Gets the supplier the order is for.
+     * @return the supplier
+     */
+    public String getSupplier() {
+        return supplier;
+    }
+
+    /**
+     * Gets the time the order was made up.
+     * @return the time in epoch milliseconds
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Gets the games ordered, each with the number of copies ordered as its quantity.
+     * @return the order lines, most urgent first
+     */
+    public List<Game> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the total number of copies ordered.
+     * @return the copies across every line
+     */
+    public int getUnits() {
+        int units = 0;
+        for (Game line : lines) units += line.getQuantity();
+        return units;
+    }
+
+    /**
+     * toString method to display the order
+     * @return string representation of the order
+     */
+    @Override
+    public String toString() {
+        return "SupplierOrder{" +
+                "orderNumber=" + orderNumber +
+                ", supplier='" + supplier + '\'' +
+                ", lines=" + lines.size() +
+                ", units=" + getUnits() +
+                '}';
+    }
+}
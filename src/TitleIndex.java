@@ -0,0 +1,587 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search index over game titles supporting prefix and typo-tolerant matching.
+ *
+ * Titles are normalized to lower-case letters and digits (accents and
+ * apostrophes dropped, everything else splitting words) and broken into
+ * trigrams, each word padded with a boundary on both sides, so "Zelda" gives
+ * " ze", "zel", "eld", "lda" and "da ". Normalized letters and digits fit in 38
+ * symbols, so a trigram is a number below 38^3 and the inverted index is a
+ * plain array of posting lists indexed by trigram.
+ *
+ * A search first looks for titles containing every trigram of the query,
+ * intersecting posting lists from the rarest up; posting lists hold doc numbers
+ * in ascending order, so intersecting gallops through the longer list. Only if
+ * none match does it allow a typo, then two. One typo can break up to three
+ * trigrams, so with t typos a matching title contains all but 3t of them and
+ * therefore at least one of the 3t + 1 rarest: only those lists are read to
+ * find candidates, which keeps common trigrams like " th" off the hot path.
+ * Candidates are ranked by the share of the query they contain, then by how
+ * alike the whole titles are, with a bonus for titles starting with the query.
+ * The last word of a query is treated as a prefix unless the query ends with a
+ * space, so "legend of zel" finds "The Legend of Zelda".
+ *
+ * Adds and removes are incremental. A removed title leaves stale postings
+ * behind that searches skip; the postings are rebuilt once stale titles
+ * outnumber live ones. Searches run in parallel; changes lock the index.
+ */
+
+public class TitleIndex {
+
+    // 0 is the word boundary, 1-26 letters, 27-36 digits, 37 any other letter
+    private static final int SYMBOLS = 38;
+    private static final int TRIGRAMS = SYMBOLS * SYMBOLS * SYMBOLS;
+
+    // Most candidates scored per pass; bounds the time of very vague queries.
+    // Candidates are cut in doc order before scoring, as documented on search()
+    private static final int MAX_CANDIDATES = 4096;
+    private static final double PREFIX_BONUS = 0.1;
+
+    // === Postings: docs containing each trigram, ascending since docs are only appended ===
+    private int[][] postings = new int[TRIGRAMS][];
+    private int[] postingSizes = new int[TRIGRAMS];
+
+    // === Docs: one per indexed title; a removed doc keeps its number with a null title and no trigrams ===
+    private int[] docGameIds = new int[16];
+    private int[] docGramCounts = new int[16];
+    private byte[][] docTitles = new byte[16][];
+    private int docCount;
+    private int liveDocs;
+
+    // === gameId -> doc: open addressing, slot holds doc + 1 or 0 when empty ===
+    private int[] slotKeys = new int[32];
+    private int[] slotDocs = new int[32];
+    private int mask = 31;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a title, replacing any title already indexed for the game.
+     * @param gameId ID of the game
+     * @param title Title of the game
+     */
+    public void add(int gameId, String title) {
+        byte[] normalized = normalize(title);
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int slot = findSlot(gameId);
+            if (slot >= 0) {
+                int doc = slotDocs[slot] - 1;
+                if (Arrays.equals(docTitles[doc], normalized)) return;
+                deleteSlot(slot);
+                docTitles[doc] = null;
+                docGramCounts[doc] = 0;
+                liveDocs--;
+            }
+            int doc = appendDoc(gameId, normalized);
+            insertSlot(gameId, doc);
+            liveDocs++;
+            compactIfStale();
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Removes a game's title.
+     * @param gameId ID of the game
+     * @return true if a title was indexed for the game
+     */
+    public boolean remove(int gameId) {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int slot = findSlot(gameId);
+            if (slot < 0) return false;
+            int doc = slotDocs[slot] - 1;
+            docTitles[doc] = null;
+            docGramCounts[doc] = 0;
+            deleteSlot(slot);
+            liveDocs--;
+            compactIfStale();
+            return true;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of titles indexed.
+     * @return the title count
+     */
+    public int size() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return liveDocs;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Finds the titles best matching a query. Queries need at least two letters or digits.
+     * At most 4096 candidate titles are scored per pass, taken in the order the titles
+     * were added, so a vague query matching more titles than that only ranks the
+     * earliest of them and may miss a better match added later.
+     * @param query Text typed by the customer, possibly misspelled or unfinished
+     * @param k Most results to return
+     * @return the matches, best first
+     */
+    public List<TitleMatch> search(String query, int k) {
+        byte[] normalized = normalize(query);
+        boolean prefixLast = !query.isEmpty() && symbol(query.charAt(query.length() - 1)) != 0;
+        int[] queryGrams = trigrams(normalized, prefixLast);
+        if (queryGrams.length == 0 || k <= 0) return new ArrayList<>();
+
+        int letters = 0;
+        for (byte b : normalized) {
+            if (b != 0) letters++;
+        }
+        int typos = letters <= 3 ? 0 : letters <= 7 ? 1 : 2;
+
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            // Only when no title contains the whole query, allow one typo, then two:
+            // each typo breaks up to three trigrams, but at least half must still match
+            int[] walk = walkOrder(normalized, prefixLast, queryGrams.length);
+            List<TitleMatch> found = search(normalized, queryGrams, walk, 0, k);
+            for (int t = 1; t <= typos && found.isEmpty(); t++) {
+                found = search(normalized, queryGrams, walk, Math.min(3 * t, queryGrams.length / 2), k);
+            }
+            return found;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    // Top k titles sharing all but `misses` of the query's trigrams; needs the read lock
+    private List<TitleMatch> search(byte[] normalized, int[] queryGrams, int[] walk, int misses, int k) {
+        int[] candidates;
+        int first;
+        if (misses == 0) {
+            // Titles in both of the first two lists, which are the rarest trigrams of
+            // different words when the query has several; stops once enough are found
+            candidates = walk.length == 1
+                    ? Arrays.copyOf(postingOrEmpty(walk[0]), Math.min(postingSizes[walk[0]], MAX_CANDIDATES))
+                    : intersect(walk[0], walk[1], MAX_CANDIDATES);
+            first = Math.min(2, walk.length);
+        } else {
+            // A title sharing all but `misses` trigrams has one of any misses + 1 of them; take the rarest
+            int[] order = queryGrams.clone();
+            sortByListSize(order);
+            IntSet seen = new IntSet();
+            for (int i = 0; i <= misses && seen.size() < MAX_CANDIDATES; i++) {
+                int[] list = postings[order[i]];
+                int size = postingSizes[order[i]];
+                for (int p = 0; p < size && seen.size() < MAX_CANDIDATES; p++) {
+                    seen.add(list[p]);
+                }
+            }
+            candidates = seen.toSortedArray();
+            first = 0;
+        }
+
+        // Count each candidate's shared trigrams by walking the posting lists
+        // alongside the sorted candidates, galloping through the longer of the two;
+        // lists and candidates both ascend by doc. After each list, candidates that
+        // can no longer reach the threshold are dropped, so long lists are walked
+        // against few candidates.
+        int needed = queryGrams.length - misses;
+        int[] shared = new int[candidates.length];
+        Arrays.fill(shared, first);
+        int count = candidates.length;
+        for (int i = first; i < walk.length && count > 0; i++) {
+            int[] list = postings[walk[i]];
+            int size = postingSizes[walk[i]];
+            if (size >= count) {
+                int p = 0;
+                for (int c = 0; c < count && p < size; c++) {
+                    p = gallop(list, p, size, candidates[c]);
+                    if (p < size && list[p] == candidates[c]) shared[c]++;
+                }
+            } else {
+                int c = 0;
+                for (int p = 0; p < size && c < count; p++) {
+                    c = gallop(candidates, c, count, list[p]);
+                    if (c < count && candidates[c] == list[p]) shared[c]++;
+                }
+            }
+            int remaining = walk.length - i - 1;
+            int kept = 0;
+            for (int c = 0; c < count; c++) {
+                if (shared[c] + remaining < needed) continue;
+                candidates[kept] = candidates[c];
+                shared[kept++] = shared[c];
+            }
+            count = kept;
+        }
+
+        PriorityQueue<TitleMatch> best = new PriorityQueue<>(k + 1,
+                (a, b) -> Double.compare(a.getScore(), b.getScore()));
+        for (int c = 0; c < count; c++) {
+            int doc = candidates[c];
+            int docGramCount = docGramCounts[doc];
+            if (docGramCount == 0) continue; // removed
+            double containment = (double) shared[c] / queryGrams.length;
+            double similarity = 2.0 * shared[c] / (queryGrams.length + docGramCount);
+            double score = 0.75 * containment + 0.25 * similarity;
+            // Only read the title if the prefix bonus could lift it into the top k
+            if (best.size() == k && score + PREFIX_BONUS <= best.peek().getScore()) continue;
+            if (startsWith(docTitles[doc], normalized)) score += PREFIX_BONUS;
+            if (best.size() < k) {
+                best.add(new TitleMatch(docGameIds[doc], score, similarity));
+            } else if (score > best.peek().getScore()) {
+                best.poll();
+                best.add(new TitleMatch(docGameIds[doc], score, similarity));
+            }
+        }
+
+        List<TitleMatch> out = new ArrayList<>(best);
+        out.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return out;
+    }
+
+    /**
+     * Orders the query's trigrams for counting: the rarest trigram of each word
+     * first, then the second rarest of each word, and so on. Trigrams of one word
+     * tend to occur together, so alternating words rules candidates out sooner
+     * than taking the rarest trigrams in order. Needs the read lock.
+     */
+    private int[] walkOrder(byte[] normalized, boolean prefixLast, int total) {
+        List<int[]> words = new ArrayList<>();
+        int start = 0;
+        while (start < normalized.length) {
+            int end = start;
+            while (end < normalized.length && normalized[end] != 0) end++;
+            int[] grams = trigrams(Arrays.copyOfRange(normalized, start, end), prefixLast && end == normalized.length);
+            if (grams.length > 0) {
+                sortByListSize(grams);
+                words.add(grams);
+            }
+            start = end + 1;
+        }
+        words.sort((a, b) -> Integer.compare(postingSizes[a[0]], postingSizes[b[0]]));
+
+        int[] walk = new int[total];
+        int n = 0;
+        for (int round = 0; n < total; round++) {
+            for (int[] grams : words) {
+                if (round >= grams.length || contains(walk, n, grams[round])) continue;
+                walk[n++] = grams[round];
+            }
+        }
+        return walk;
+    }
+
+    private void sortByListSize(int[] grams) {
+        for (int i = 1; i < grams.length; i++) {
+            int gram = grams[i];
+            int j = i - 1;
+            while (j >= 0 && postingSizes[grams[j]] > postingSizes[gram]) {
+                grams[j + 1] = grams[j];
+                j--;
+            }
+            grams[j + 1] = gram;
+        }
+    }
+
+    private static boolean contains(int[] values, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    // Docs in both posting lists, ascending, up to limit of them
+    private int[] intersect(int gramA, int gramB, int limit) {
+        int[] a = postingOrEmpty(gramA);
+        int[] b = postingOrEmpty(gramB);
+        int sizeA = postingSizes[gramA];
+        int sizeB = postingSizes[gramB];
+        int[] out = new int[Math.min(Math.min(sizeA, sizeB), limit)];
+        int n = 0;
+        int p = 0;
+        for (int q = 0; q < sizeA && n < out.length; q++) {
+            p = gallop(b, p, sizeB, a[q]);
+            if (p == sizeB) break;
+            if (b[p] == a[q]) out[n++] = a[q];
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private int[] postingOrEmpty(int gram) {
+        int[] list = postings[gram];
+        return list == null ? new int[0] : list;
+    }
+
+    // First position at or after `from` whose doc is at least `doc`, probing 1, 2, 4... ahead
+    private static int gallop(int[] list, int from, int size, int doc) {
+        if (from >= size || list[from] >= doc) return from;
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < size && list[high] < doc) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, size);
+        // list[low] < doc, and list[high] >= doc or high == size
+        while (low + 1 < high) {
+            int mid = (low + high) >>> 1;
+            if (list[mid] < doc) low = mid; else high = mid;
+        }
+        return high;
+    }
+
+    // === Normalizing and trigrams ===
+
+    /**
+     * Normalizes a title to symbols: lower-case letters and digits with single
+     * word boundaries between words.
+     */
+    static byte[] normalize(String title) {
+        String s = title;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                // Split accented letters so the accent can be dropped
+                s = Normalizer.normalize(s, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        byte[] out = new byte[s.length()];
+        int n = 0;
+        boolean boundary = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\'' || c == '’' || Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            int symbol = symbol(c);
+            if (symbol == 0) {
+                boundary = n > 0;
+                continue;
+            }
+            if (boundary) {
+                out[n++] = 0;
+                boundary = false;
+            }
+            out[n++] = (byte) symbol;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 1;
+        if (c >= '0' && c <= '9') return c - '0' + 27;
+        return Character.isLetterOrDigit(c) ? 37 : 0;
+    }
+
+    // Distinct trigrams of a normalized title, sorted
+    private static int[] trigrams(byte[] title, boolean prefixLast) {
+        int[] grams = new int[title.length];
+        return Arrays.copyOf(grams, trigrams(title, prefixLast, grams));
+    }
+
+    /**
+     * Writes the distinct trigrams of a normalized title to buffer, sorted.
+     * Each word yields one trigram per symbol, so the buffer needs title.length slots.
+     * Returns the number written.
+     */
+    private static int trigrams(byte[] title, boolean prefixLast, int[] buffer) {
+        int n = 0;
+        int start = 0;
+        while (start < title.length) {
+            int end = start;
+            while (end < title.length && title[end] != 0) end++;
+            int length = end - start;
+            // An unfinished last word has no closing boundary, so drop its final trigram
+            int count = prefixLast && end == title.length ? length - 1 : length;
+            for (int j = 0; j < count; j++) {
+                int a = j == 0 ? 0 : title[start + j - 1];
+                int c = j + 1 < length ? title[start + j + 1] : 0;
+                buffer[n++] = code(a, title[start + j], c);
+            }
+            start = end + 1;
+        }
+        Arrays.sort(buffer, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || buffer[i] != buffer[i - 1]) buffer[distinct++] = buffer[i];
+        }
+        return distinct;
+    }
+
+    private static int code(int a, int b, int c) {
+        return (a * SYMBOLS + b) * SYMBOLS + c;
+    }
+
+    private static boolean startsWith(byte[] title, byte[] prefix) {
+        if (prefix.length > title.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (title[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // === Docs and postings ===
+
+    private int appendDoc(int gameId, byte[] title) {
+        if (docCount == docGameIds.length) {
+            docGameIds = Arrays.copyOf(docGameIds, docCount * 2);
+            docGramCounts = Arrays.copyOf(docGramCounts, docCount * 2);
+            docTitles = Arrays.copyOf(docTitles, docCount * 2);
+        }
+        int doc = docCount++;
+        docGameIds[doc] = gameId;
+        docTitles[doc] = title;
+        int[] grams = trigrams(title, false);
+        docGramCounts[doc] = grams.length;
+        for (int gram : grams) {
+            int[] list = postings[gram];
+            int size = postingSizes[gram];
+            if (list == null) {
+                list = postings[gram] = new int[4];
+            } else if (size == list.length) {
+                list = postings[gram] = Arrays.copyOf(list, size * 2);
+            }
+            list[size] = doc;
+            postingSizes[gram] = size + 1;
+        }
+        return doc;
+    }
+
+    // Rebuilds the postings without removed titles once they outnumber the live ones
+    private void compactIfStale() {
+        int stale = docCount - liveDocs;
+        if (stale < 1024 || stale < liveDocs) return;
+        int[] ids = docGameIds;
+        byte[][] titles = docTitles;
+        int count = docCount;
+
+        postings = new int[TRIGRAMS][];
+        postingSizes = new int[TRIGRAMS];
+        docGameIds = new int[Math.max(16, liveDocs)];
+        docGramCounts = new int[docGameIds.length];
+        docTitles = new byte[docGameIds.length][];
+        docCount = 0;
+        Arrays.fill(slotDocs, 0);
+        for (int doc = 0; doc < count; doc++) {
+            if (titles[doc] == null) continue;
+            insertSlot(ids[doc], appendDoc(ids[doc], titles[doc]));
+        }
+    }
+
+    // === gameId -> doc table ===
+
+    private int findSlot(int gameId) {
+        int slot = mix(gameId) & mask;
+        while (slotDocs[slot] != 0) {
+            if (slotKeys[slot] == gameId) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertSlot(int gameId, int doc) {
+        if ((liveDocs + 1) * 2 > slotKeys.length) {
+            resizeSlots(slotKeys.length * 2);
+        }
+        int slot = mix(gameId) & mask;
+        while (slotDocs[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = gameId;
+        slotDocs[slot] = doc + 1;
+    }
+
+    private void resizeSlots(int capacity) {
+        int[] keys = slotKeys;
+        int[] docs = slotDocs;
+        slotKeys = new int[capacity];
+        slotDocs = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (docs[i] == 0) continue;
+            int slot = mix(keys[i]) & mask;
+            while (slotDocs[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = keys[i];
+            slotDocs[slot] = docs[i];
+        }
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slotDocs[next] != 0) {
+            int home = mix(slotKeys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slotKeys[hole] = slotKeys[next];
+                slotDocs[hole] = slotDocs[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slotDocs[hole] = 0;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Growable set of non-negative ints in insertion order, for collecting candidates.
+     */
+    private static final class IntSet {
+
+        private int[] slots = new int[256];   // value + 1, or 0 when empty
+        private int[] values = new int[128];
+        private int size;
+
+        void add(int value) {
+            if ((size + 1) * 2 > slots.length) grow();
+            int m = slots.length - 1;
+            int slot = mix(value) & m;
+            while (slots[slot] != 0) {
+                if (slots[slot] == value + 1) return;
+                slot = (slot + 1) & m;
+            }
+            slots[slot] = value + 1;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private void grow() {
+            slots = new int[slots.length * 2];
+            int m = slots.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = mix(values[i]) & m;
+                while (slots[slot] != 0) slot = (slot + 1) & m;
+                slots[slot] = values[i] + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * One result of a title search: the game and how well its title matched.
+ */
+
+public class TitleMatch {
+
+    private final int gameId;
+    private final double score;
+    private final double similarity;
+
+    /**
+     * Constructor to initialize a match.
+     * @param gameId ID of the matching game
+     * @param score Ranking score, higher is better
+     * @param similarity How alike the whole titles are, from 0 to 1
+     */
+    TitleMatch(int gameId, double score, double similarity) {
+        this.gameId = gameId;
+        this.score = score;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Gets the ID of the matching game.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the ranking score: mostly the share of the query found in the title,
+     * with a bonus for titles that start with the query. Only meaningful for
+     * comparing results of the same search.
+     * @return the score, higher is better
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets how alike the query and the whole title are, ignoring case, punctuation
+     * and accents. A short query matching part of a long title scores low here.
+     * @return the similarity, 1 for the same title
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * toString method to display the match
+     * @return string representation of the match
+     */
+    @Override
+    public String toString() {
+        return "TitleMatch{gameId=" + gameId +
+                ", score=" + Math.round(score * 1000) / 1000.0 +
+                ", similarity=" + Math.round(similarity * 1000) / 1000.0 + '}';
+    }
+}
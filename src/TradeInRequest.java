@@ -0,0 +1,110 @@
+/**
+ * Request from a registered customer to trade in copies of a game.
+ * The copies go into stock at the given price and the customer is credited that price.
+ */
+
+public class TradeInRequest {
+
+    private final int customerID;
+    private final int gameId;
+    private final String nameOfGame;
+    private final String consoleType;
+    private final int releaseYear;
+    private final int quantity;
+    private final long pricePence;
+
+    /**
+     * Constructor to initialize a trade-in request.
+     * @param customerID ID of the customer trading in
+     * @param gameId ID of the game
+     * @param nameOfGame Name of the game
+     * @param consoleType Console the game is for
+     * @param releaseYear Year the game was released
+     * @param quantity Number of copies traded in
+     * @param pricePence Price asked for the copies, in pence
+     */
+    public TradeInRequest(int customerID, int gameId, String nameOfGame, String consoleType,
+                          int releaseYear, int quantity, long pricePence) {
+        this.customerID = customerID;
+        this.gameId = gameId;
+        this.nameOfGame = nameOfGame;
+        this.consoleType = consoleType;
+        this.releaseYear = releaseYear;
+        this.quantity = quantity;
+        this.pricePence = pricePence;
+    }
+
+    /**
+     * Gets the ID of the customer trading in.
+     * @return the customer ID
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * Gets the ID of the game.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the name of the game.
+     * @return the name
+     */
+    public String getNameOfGame() {
+        return nameOfGame;
+    }
+
+    /**
+     * Gets the console the game is for.
+     * @return the console type
+     */
+    public String getConsoleType() {
+        return consoleType;
+    }
+
+    /**
+     * Gets the year the game was released.
+     * @return the release year
+     */
+    public int getReleaseYear() {
+        return releaseYear;
+    }
+
+    /**
+     * Gets the number of copies traded in.
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the price asked for the copies.
+     * @return the price in pence
+     */
+    public long getPricePence() {
+        return pricePence;
+    }
+
+    /**
+     * Builds the stock line the traded-in copies are added as.
+     * @return a game listed at the trade-in price
+     */
+    Game toGame() {
+        return toGame(gameId);
+    }
+
+    // The traded-in copies listed under another ID, e.g. an existing listing of the same game
+    Game toGame(int listedId) {
+        return new Game(listedId, nameOfGame, releaseYear, pricePence, consoleType, quantity);
+    }
+
+    // A listing of the traded-in game with no copies, which the copies are then put into
+    Game toListing(int listedId) {
+        return new Game(listedId, nameOfGame, releaseYear, pricePence, consoleType, 0);
+    }
+}
@@ -0,0 +1,107 @@
+import java.time.LocalDate;
+
+/**
+ * Result of a trade-in: what happened to the stock and the customer's new balance and discount.
+ * When the stock was rejected the customer was not credited.
+ */
+
+public class TradeInResult {
+
+    private final StockLineResult stockResult;
+    private final int gameId;
+    private final long creditedPence;
+    private final long balancePence;
+    private final double discountRate;
+    private final LocalDate discountExpiresOn;
+
+    /**
+     * Constructor to initialize a trade-in result.
+     * @param stockResult What happened to the traded-in copies
+     * @param gameId ID the copies were stocked under
+     * @param creditedPence Amount added to the balance, in pence
+     * @param balancePence Customer's balance after the trade-in, in pence
+     * @param discountRate Next purchase discount granted, as a fraction, 0 if none
+     * @param discountExpiresOn Expiry date of the discount, or null
+     */
+    TradeInResult(StockLineResult stockResult, int gameId, long creditedPence, long balancePence,
+                  double discountRate, LocalDate discountExpiresOn) {
+        this.stockResult = stockResult;
+        this.gameId = gameId;
+        this.creditedPence = creditedPence;
+        this.balancePence = balancePence;
+        this.discountRate = discountRate;
+        this.discountExpiresOn = discountExpiresOn;
+    }
+
+    /**
+     * Checks if the trade-in went through.
+     * @return true if the copies were stocked and the customer credited
+     */
+    public boolean isAccepted() {
+        return stockResult.isApplied();
+    }
+
+    /**
+     * Gets what happened to the traded-in copies.
+     * @return ADDED or RESTOCKED when accepted, otherwise the reason for rejecting them
+     */
+    public StockLineResult getStockResult() {
+        return stockResult;
+    }
+
+    /**
+     * Gets the ID the copies were stocked under. This differs from the requested
+     * ID when the copies matched a game that is already listed.
+     * @return the game ID
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the amount added to the customer's balance.
+     * @return the credit in pence, 0 if rejected
+     */
+    public long getCreditedPence() {
+        return creditedPence;
+    }
+
+    /**
+     * Gets the customer's balance after the trade-in.
+     * @return the balance in pence
+     */
+    public long getBalancePence() {
+        return balancePence;
+    }
+
+    /**
+     * Gets the next purchase discount granted by the trade-in.
+     * @return the discount as a fraction, 0 if none was granted
+     */
+    public double getDiscountRate() {
+        return discountRate;
+    }
+
+    /**
+     * Gets the date the next purchase discount expires.
+     * @return the expiry date, or null if no discount is held
+     */
+    public LocalDate getDiscountExpiresOn() {
+        return discountExpiresOn;
+    }
+
+    /**
+     * toString method to display the trade-in result
+     * @return string representation of the result
+     */
+    @Override
+    public String toString() {
+        return "TradeInResult{" +
+                "stock=" + stockResult +
+                ", gameId=" + gameId +
+                ", credited=" + Money.format(creditedPence) +
+                ", balance=" + Money.format(balancePence) +
+                (discountExpiresOn != null ? ", discountExpiresOn=" + discountExpiresOn : "") +
+                '}';
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded history of a customer's purchases or trade-ins.
+ * Each entry is a gameId, a price in pence and a timestamp held in primitive
+ * arrays used as a ring buffer. Once the bound is reached the oldest entry is
+ * rolled into a running count and total, so memory per customer stays fixed.
+ * Game names are not stored; they are looked up in the inventory when displayed.
+ */
+
+public class TransactionHistory {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int limit;
+    private int[] gameIds;
+    private long[] pricesPence;
+    private long[] timestamps;
+    private int head;   // index of the oldest retained entry
+    private int size;
+
+    // Aggregated entries that fell out of the ring
+    private long rolledUpCount;
+    private long rolledUpPence;
+
+    /**
+     * Constructor to initialize an empty history.
+     * @param limit Most entries kept individually before older ones are rolled up
+     */
+    public TransactionHistory(int limit) {
+        this.limit = Math.max(limit, 1);
+        int capacity = Math.min(INITIAL_CAPACITY, this.limit);
+        gameIds = new int[capacity];
+        pricesPence = new long[capacity];
+        timestamps = new long[capacity];
+    }
+
+    /**
+     * Records a transaction, rolling up the oldest entry if the history is full.
+     * @param gameId ID of the game
+     * @param pricePence Price paid or credited, in pence
+     * @param timestampMillis Time of the transaction in epoch milliseconds
+     */
+    public void record(int gameId, long pricePence, long timestampMillis) {
+        if (size == limit) {
+            rolledUpCount++;
+            rolledUpPence += pricesPence[head];
+            gameIds[head] = gameId;
+            pricesPence[head] = pricePence;
+            timestamps[head] = timestampMillis;
+            head = (head + 1) % limit;
+            return;
+        }
+        if (size == gameIds.length) {
+            grow();
+        }
+        int slot = (head + size) % gameIds.length;
+        gameIds[slot] = gameId;
+        pricesPence[slot] = pricePence;
+        timestamps[slot] = timestampMillis;
+        size++;
+    }
+
+    /**
+     * Gets the most entries kept individually.
+     * @return the bound
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the number of entries kept individually.
+     * @return the retained entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of transactions ever recorded, including rolled-up ones.
+     * @return the total transaction count
+     */
+    public long totalCount() {
+        return rolledUpCount + size;
+    }
+
+    /**
+     * Gets the total value of every transaction ever recorded.
+     * @return the total in pence
+     */
+    public long totalPence() {
+        long total = rolledUpPence;
+        for (int i = 0; i < size; i++) {
+            total += pricesPence[slot(i)];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the gameId of a retained entry.
+     * @param i Entry index, 0 being the oldest retained entry
+     * @return the game ID
+     */
+    public int getGameId(int i) {
+        return gameIds[slot(i)];
+    }
+
+    /**
+     * Gets the price of a retained entry.
+     * @param i Entry index, 0 being the oldest retained entry
+     * @return the price in pence
+     */
+    public long getPricePence(int i) {
+        return pricesPence[slot(i)];
+    }
+
+    /**
+     * Gets the timestamp of a retained entry.
+     * @param i Entry index, 0 being the oldest retained entry
+     * @return the time in epoch milliseconds
+     */
+    public long getTimestamp(int i) {
+        return timestamps[slot(i)];
+    }
+
+    /**
+     * Gets the number of transactions rolled into the aggregate.
+     * @return the rolled-up count
+     */
+    public long getRolledUpCount() {
+        return rolledUpCount;
+    }
+
+    /**
+     * Gets the total value of the transactions rolled into the aggregate.
+     * @return the rolled-up total in pence
+     */
+    public long getRolledUpPence() {
+        return rolledUpPence;
+    }
+
+    /**
+     * Restores the rolled-up aggregate, used when loading from disk.
+     * @param count Number of rolled-up transactions
+     * @param pence Total value of the rolled-up transactions
+     */
+    void restoreRolledUp(long count, long pence) {
+        this.rolledUpCount = count;
+        this.rolledUpPence = pence;
+    }
+
+    /**
+     * Resolves the retained entries to game names using the inventory.
+     * Games no longer listed are shown by ID.
+     * @param inventory Inventory to look the names up in
+     * @return the game names, oldest first
+     */
+    public List<String> gameNames(Inventory inventory) {
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Game game = inventory.findById(getGameId(i));
+            names.add(game != null ? game.getNameOfGame() : "Game #" + getGameId(i));
+        }
+        return names;
+    }
+
+    /**
+     * Returns the retained game IDs and the rolled-up count.
+     * @return a string representation of the history
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        if (rolledUpCount > 0) {
+            sb.append(rolledUpCount).append(" earlier");
+            if (size > 0) sb.append(", ");
+        }
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('#').append(getGameId(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    // === Internal helpers ===
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for history of " + size);
+        }
+        return (head + i) % gameIds.length;
+    }
+
+    private void grow() {
+        int capacity = Math.min(gameIds.length * 2, limit);
+        int[] ids = new int[capacity];
+        long[] prices = new long[capacity];
+        long[] times = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            int from = (head + i) % gameIds.length;
+            ids[i] = gameIds[from];
+            prices[i] = pricesPence[from];
+            times[i] = timestamps[from];
+        }
+        gameIds = ids;
+        pricesPence = prices;
+        timestamps = times;
+        head = 0;
+    }
+}
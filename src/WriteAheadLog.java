@@ -0,0 +1,499 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of inventory and customer mutations.
+ * Records are buffered and written with one write and one fsync per group, so
+ * many mutations share the cost of a disk flush. A group is committed when it
+ * reaches the configured record count, when the flush interval passes, or when
+ * sync() is called.
+ *
+ * Each record is framed as [int length][byte type][payload][int crc32]; replay
+ * stops at the first torn or corrupt record and the log is truncated there.
+ * A checkout or trade-in is one record holding both the stock change and the
+ * customer's new balance, so recovery never sees one without the other.
+ *
+ * Inventories change a quantity and append its record while holding this log's
+ * monitor, so the records of a game are in the order its quantity changed and
+ * replay fails rather than skip a sale that a listed game cannot cover.
+ */
+
+public class WriteAheadLog implements AutoCloseable {
+
+    // === Record types ===
+    static final byte ADD_STOCK = 1;
+    static final byte REMOVE_STOCK = 2;
+    static final byte SELL_STOCK = 3;
+    static final byte RESTOCK = 4;
+    static final byte CHECKOUT = 7;
+    static final byte STOCKED_TRADE_IN = 8;
+    static final byte TRANSFER_OUT = 9;
+
+    private static final int HEADER_BYTES = 5;   // length + type
+    private static final int TRAILER_BYTES = 4;  // crc32
+
+    private FileChannel channel;
+    private final int groupSize;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private int recordStart;
+    private int pendingRecords;
+    private long appendedRecords;
+    private long syncCount;
+    private boolean replaying;
+    private IOException flushFailure;   // from the flusher thread, reported to the next caller
+
+    /**
+     * Opens a log file for appending, creating it if needed.
+     * @param file Path of the log file
+     * @param groupSize Number of records to collect before writing and fsyncing them together
+     * @param flushIntervalMillis Longest time a record may wait before being fsynced, or 0 to only flush on group size and sync()
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(Path file, int groupSize, long flushIntervalMillis) throws IOException {
+        this.channel = openForAppend(file);
+        this.groupSize = Math.max(groupSize, 1);
+
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    // === Appending ===
+
+    /**
+     * Logs a game being added to the inventory.
+     * @param game the game that was added
+     */
+    public void logAddStock(Game game) {
+        byte[] name = utf8(game.getNameOfGame());
+        byte[] console = utf8(game.getConsoleType());
+        synchronized (this) {
+            if (replaying) return;
+            ByteBuffer b = begin(ADD_STOCK, 4 + 4 + name.length + 4 + 8 + 4 + console.length + 4);
+            b.putInt(game.getGameId());
+            putBytes(b, name);
+            b.putInt(game.getReleaseYear());
+            b.putLong(game.getPricePence());
+            putBytes(b, console);
+            b.putInt(game.getQuantity());
+            end();
+        }
+    }
+
+    /**
+     * Logs a game being delisted.
+     * @param gameId ID of the game
+     */
+    public synchronized void logRemoveStock(int gameId) {
+        if (replaying) return;
+        begin(REMOVE_STOCK, 4).putInt(gameId);
+        end();
+    }
+
+    /**
+     * Logs copies of a game being sold.
+     * @param gameId ID of the game
+     * @param count Number of copies sold
+     */
+    public synchronized void logSellStock(int gameId, int count) {
+        if (replaying) return;
+        begin(SELL_STOCK, 8).putInt(gameId).putInt(count);
+        end();
+    }
+
+    /**
+     * Logs copies of a game leaving stock to be moved to another store.
+     * @param gameId ID of the game
+     * @param count Number of copies moved out
+     */
+    public synchronized void logTransferOut(int gameId, int count) {
+        if (replaying) return;
+        begin(TRANSFER_OUT, 8).putInt(gameId).putInt(count);
+        end();
+    }
+
+    /**
+     * Logs copies of a game being put back into stock.
+     * @param gameId ID of the game
+     * @param count Number of copies added
+     */
+    public synchronized void logRestock(int gameId, int count) {
+        if (replaying) return;
+        begin(RESTOCK, 8).putInt(gameId).putInt(count);
+        end();
+    }
+
+    /**
+     * Logs a customer buying one copy of a game: the copy taken from stock and
+     * the customer's state after the purchase, in one record.
+     * @param customer the customer after the purchase
+     * @param gameId ID of the game bought
+     * @param pricePence price paid, in pence
+     * @param timestampMillis time of the purchase in epoch milliseconds
+     */
+    public void logPurchase(Customer customer, int gameId, long pricePence, long timestampMillis) {
+        logCheckout(customer, new int[] {gameId}, new int[] {1}, new long[] {pricePence}, timestampMillis);
+    }
+
+    /**
+     * Logs a basket checkout: the copies taken from stock and the customer's
+     * state after the purchase, in one record.
+     * @param customer the customer after the purchase
+     * @param gameIds IDs of the games bought, each listed once
+     * @param counts copies bought of each game
+     * @param prices price paid per copy of each game, in pence
+     * @param timestampMillis time of the purchase in epoch milliseconds
+     */
+    public void logCheckout(Customer customer, int[] gameIds, int[] counts, long[] prices, long timestampMillis) {
+        byte[] name = utf8(customer.getName());
+        byte[] address = utf8(customer.getAddress());
+        synchronized (this) {
+            if (replaying) return;
+            ByteBuffer b = begin(CHECKOUT, customerBytes(name, address) + 8 + 4 + gameIds.length * (4 + 4 + 8));
+            putCustomer(b, customer, name, address);
+            b.putLong(timestampMillis);
+            b.putInt(gameIds.length);
+            for (int i = 0; i < gameIds.length; i++) {
+                b.putInt(gameIds[i]).putInt(counts[i]).putLong(prices[i]);
+            }
+            end();
+        }
+    }
+
+    /**
+     * Logs a customer trading in copies of a listed game: the copies put into
+     * stock and the customer's state after the trade-in, in one record.
+     * @param customer the customer after the trade-in
+     * @param gameId ID of the game the copies were stocked under
+     * @param quantity copies traded in
+     * @param pricePence price credited, in pence
+     * @param timestampMillis time of the trade-in in epoch milliseconds
+     */
+    public void logTradeIn(Customer customer, int gameId, int quantity, long pricePence, long timestampMillis) {
+        byte[] name = utf8(customer.getName());
+        byte[] address = utf8(customer.getAddress());
+        synchronized (this) {
+            if (replaying) return;
+            ByteBuffer b = begin(STOCKED_TRADE_IN, customerBytes(name, address) + 4 + 4 + 8 + 8);
+            putCustomer(b, customer, name, address);
+            b.putInt(gameId).putInt(quantity).putLong(pricePence).putLong(timestampMillis);
+            end();
+        }
+    }
+
+    /**
+     * Writes and fsyncs every buffered record. Records that could not be written
+     * stay buffered for the next try.
+     * @throws IOException if the write fails, or the flusher thread's last write failed
+     */
+    public synchronized void sync() throws IOException {
+        IOException failed = flushFailure;
+        if (failed != null) {
+            flushFailure = null;
+            throw new IOException("Background flush of the inventory log failed", failed);
+        }
+        if (pendingRecords == 0) return;
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.compact();
+        }
+        channel.force(false);
+        pendingRecords = 0;
+        syncCount++;
+    }
+
+    /**
+     * Writes out every buffered record and carries on appending to another file,
+     * creating it if needed. The old file is left as it is; replay() reads the new one.
+     * @param file Path of the next log file
+     * @throws IOException if the buffered records cannot be written or the file cannot be opened
+     */
+    public synchronized void roll(Path file) throws IOException {
+        sync();
+        FileChannel next = openForAppend(file);
+        channel.close();
+        channel = next;
+    }
+
+    /**
+     * Gets the number of records appended since the log was opened.
+     * @return the record count
+     */
+    public synchronized long getAppendedRecords() {
+        return appendedRecords;
+    }
+
+    /**
+     * Gets the number of group commits (fsyncs) since the log was opened.
+     * @return the fsync count
+     */
+    public synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Flushes any buffered records and closes the file.
+     * @throws IOException if the final flush fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) flusher.shutdown();
+        synchronized (this) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // === Replay ===
+
+    /**
+     * Replays every intact record onto an inventory and a customer registry.
+     * Logging is suspended while replaying so the replayed mutations are not logged again.
+     * A torn or corrupt tail is cut off so new records follow the last good one.
+     * @param inventory Inventory to apply stock records to
+     * @param customers Registry filled in from customer records
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read
+     */
+    public int replay(Inventory inventory, CustomerRegistry customers) throws IOException {
+        synchronized (this) {
+            replaying = true;
+        }
+        try {
+            long size = channel.size();
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && channel.read(data, data.position()) > 0) {
+                // keep reading until the whole file is in memory
+            }
+            data.flip();
+
+            int replayed = 0;
+            int goodEnd = 0;
+            while (data.remaining() >= HEADER_BYTES + TRAILER_BYTES) {
+                int start = data.position();
+                int length = data.getInt();
+                if (length < 1 || length + TRAILER_BYTES > data.remaining()) break;
+
+                crc.reset();
+                crc.update(data.array(), start + 4, length);
+                int expected = data.getInt(start + 4 + length);
+                if ((int) crc.getValue() != expected) break;
+
+                byte type = data.get();
+                apply(type, data, inventory, customers);
+                data.position(start + 4 + length + TRAILER_BYTES);
+                goodEnd = data.position();
+                replayed++;
+            }
+
+            synchronized (this) {
+                if (goodEnd < size) {
+                    channel.truncate(goodEnd);
+                }
+                channel.position(goodEnd);
+            }
+            return replayed;
+        } finally {
+            synchronized (this) {
+                replaying = false;
+            }
+        }
+    }
+
+    private static void apply(byte type, ByteBuffer b, Inventory inventory, CustomerRegistry customers) {
+        switch (type) {
+            case ADD_STOCK: {
+                int gameId = b.getInt();
+                String name = getString(b);
+                int year = b.getInt();
+                long price = b.getLong();
+                String console = getString(b);
+                int quantity = b.getInt();
+                inventory.addStock(new Game(gameId, name, year, price, console, quantity));
+                break;
+            }
+            case REMOVE_STOCK:
+                inventory.removeStock(b.getInt());
+                break;
+            case SELL_STOCK:
+            case TRANSFER_OUT: {
+                int gameId = b.getInt();
+                take(type, inventory, gameId, b.getInt());
+                break;
+            }
+            case RESTOCK: {
+                int gameId = b.getInt();
+                inventory.restock(gameId, b.getInt());
+                break;
+            }
+            case CHECKOUT: {
+                Customer customer = getCustomer(b, customers);
+                long timestamp = b.getLong();
+                int lines = b.getInt();
+                for (int i = 0; i < lines; i++) {
+                    int gameId = b.getInt();
+                    int count = b.getInt();
+                    long pricePence = b.getLong();
+                    take(type, inventory, gameId, count);
+                    for (int c = 0; c < count; c++) customer.recordBought(gameId, pricePence, timestamp);
+                }
+                break;
+            }
+            case STOCKED_TRADE_IN: {
+                Customer customer = getCustomer(b, customers);
+                int gameId = b.getInt();
+                int quantity = b.getInt();
+                long pricePence = b.getLong();
+                long timestamp = b.getLong();
+                inventory.restock(gameId, quantity);
+                customer.recordTradedIn(gameId, pricePence, timestamp);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown log record type " + type);
+        }
+    }
+
+    // === Internal helpers ===
+
+    // Sales are logged in the order they happened, so a listed game that is short of
+    // a logged sale means the log does not belong to the snapshot. A game that is not
+    // listed was delisted while the sale was in flight, and the sale is skipped.
+    private static void take(byte type, Inventory inventory, int gameId, int count) {
+        boolean taken = type == TRANSFER_OUT ? inventory.transferOut(gameId, count) : inventory.sellStock(gameId, count);
+        if (!taken && inventory.findById(gameId) != null) {
+            throw new IllegalStateException("Log record of type " + type + " takes " + count
+                    + " copies of game " + gameId + " but there are not enough in stock");
+        }
+    }
+
+    private static int customerBytes(byte[] name, byte[] address) {
+        return 4 + 4 + name.length + 4 + address.length + 8 + 1 + 8;
+    }
+
+    // Customer ID, name, address and balance and discount state after the change
+    private static void putCustomer(ByteBuffer b, Customer customer, byte[] name, byte[] address) {
+        LocalDate expiresOn = customer.getDiscountExpiresOn();
+        b.putInt(customer.getCustomerID());
+        putBytes(b, name);
+        putBytes(b, address);
+        b.putLong(customer.getBalancePence());
+        b.put((byte) (customer.hasNextPurchaseDiscount() ? 1 : 0));
+        b.putLong(expiresOn == null ? -1 : expiresOn.toEpochDay());
+    }
+
+    private static Customer getCustomer(ByteBuffer b, CustomerRegistry customers) {
+        int id = b.getInt();
+        String name = getString(b);
+        String address = getString(b);
+        long balance = b.getLong();
+        boolean hasDiscount = b.get() != 0;
+        long expiresOn = b.getLong();
+        Customer customer = customers.findOrRegister(id, name, address);
+        customer.restoreState(balance, hasDiscount, expiresOn < 0 ? null : LocalDate.ofEpochDay(expiresOn));
+        return customer;
+    }
+
+    private static FileChannel openForAppend(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private ByteBuffer begin(byte type, int payloadBytes) {
+        if (flushFailure != null) {
+            flushQuietly();   // throws the flusher thread's failure
+        }
+        int needed = HEADER_BYTES + payloadBytes + TRAILER_BYTES;
+        if (buffer.remaining() < needed) {
+            flushForSpace(needed);
+        }
+        recordStart = buffer.position();
+        buffer.putInt(1 + payloadBytes);
+        buffer.put(type);
+        return buffer;
+    }
+
+    private void end() {
+        int length = buffer.getInt(recordStart);
+        ByteBuffer record = buffer.duplicate();
+        record.position(recordStart + 4).limit(recordStart + 4 + length);
+        crc.reset();
+        crc.update(record);
+        buffer.putInt((int) crc.getValue());
+
+        appendedRecords++;
+        if (++pendingRecords >= groupSize) {
+            flushQuietly();
+        }
+    }
+
+    private void flushForSpace(int needed) {
+        flushQuietly();
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(needed) << 1);
+        }
+    }
+
+    // Runs on the flusher thread. A failure is kept for the next append, sync or
+    // close to throw; letting it escape would cancel the scheduled flush for good.
+    private synchronized void flushInBackground() {
+        if (flushFailure != null) return;
+        try {
+            sync();
+        } catch (IOException e) {
+            flushFailure = e;
+        } catch (RuntimeException e) {
+            flushFailure = new IOException(e);
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the inventory log", e);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer b, byte[] bytes) {
+        b.putInt(bytes.length);
+        b.put(bytes);
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the inventory over a mapped catalog: sales racing with games being
+ * listed must not oversell, copies put back after a row is listed over or
+ * delisted are not silently dropped, console types match ignoring case, and
+ * the cache counters reach the metrics export.
+ */
+
+class CatalogInventoryTest {
+
+    private static final int GAMES = 200;
+    private static final int COPIES = 5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void salesRacingWithListingsNeverOversell() throws Exception {
+        try (MappedCatalog catalog = writeCatalog()) {
+            CatalogInventory inventory = new CatalogInventory(catalog, 64);
+            AtomicInteger sold = new AtomicInteger();
+
+            ConcurrentInventoryTest.race(worker -> {
+                for (int k = 0; k < 5_000; k++) {
+                    if (worker == 0) {
+                        // New games listed in memory while the others sell from the file
+                        inventory.addStockBatch(List.of(new Game(10_000 + k, "New " + k, 2024, 100, "PC", 1)));
+                    } else if (inventory.sellStock((k * 31 + worker) % GAMES)) {
+                        sold.incrementAndGet();
+                    }
+                }
+            });
+
+            int left = 0;
+            for (int id = 0; id < GAMES; id++) left += inventory.findById(id).getQuantity();
+            assertEquals(GAMES * COPIES, left + sold.get());
+            assertEquals(GAMES + 5_000, inventory.listGames().size());
+        }
+    }
+
+    @Test
+    void copiesPutBackAfterARowChangesAreNotDropped() throws IOException {
+        try (MappedCatalog catalog = writeCatalog()) {
+            CatalogInventory inventory = new CatalogInventory(catalog, 64);
+            Game overridden = inventory.findById(1);
+            Game delisted = inventory.findById(2);
+            assertTrue(overridden.tryTakeQuantity(2));
+            assertTrue(delisted.tryTakeQuantity(2));
+
+            // A view made before the row was listed over puts its copies into the new game
+            inventory.addStock(new Game(1, "Game 1", 2001, 100, "Switch", 10));
+            assertEquals(12, overridden.addQuantity(2));
+            assertEquals(12, inventory.findById(1).getQuantity());
+
+            // A delisted row reports that the copies went nowhere
+            inventory.removeStock(2);
+            assertEquals(-1, delisted.addQuantity(2));
+        }
+    }
+
+    @Test
+    void consoleTypesMatchIgnoringCase() throws IOException {
+        List<Game> games = List.of(
+                new Game(1, "Halo", 2001, 100, "Xbox", 1),
+                new Game(2, "Fable", 2004, 100, " xbox ", 1),
+                new Game(3, "Gears", 2006, 100, "XBOX", 1));
+        CompactInventory compact = new CompactInventory();
+        compact.addStockBatch(games);
+        assertEquals(3, compact.findByConsole("xBox").size());
+        assertEquals("Xbox", compact.findById(2).getConsoleType());
+
+        Path file = directory.resolve("consoles.gsc");
+        MappedCatalog.write(file, games);
+        try (MappedCatalog catalog = MappedCatalog.open(file)) {
+            CatalogInventory inventory = new CatalogInventory(catalog, 64);
+            assertEquals(3, inventory.findByConsole(" XBOX").size());
+            assertEquals(3, inventory.search("xbox", 2000, 2010, 0, 1_000).size());
+        }
+    }
+
+    @Test
+    void cacheCountersAreExported() throws IOException {
+        try (MappedCatalog catalog = writeCatalog()) {
+            ShopService service = new ShopService(new CatalogInventory(catalog, 64), new CustomerRegistry());
+            service.findGame(1);
+            service.findGame(1);
+
+            StringWriter text = new StringWriter();
+            service.getMetrics().writePrometheus(text);
+            assertTrue(text.toString().contains("shop_game_cache_lookups_total{result=\"hit\"} 1\n"), text.toString());
+            assertTrue(text.toString().contains("shop_game_cache_lookups_total{result=\"miss\"} 1\n"), text.toString());
+            service.close();
+        }
+    }
+
+    private MappedCatalog writeCatalog() throws IOException {
+        List<Game> games = new ArrayList<>();
+        for (int id = 0; id < GAMES; id++) games.add(new Game(id, "Game " + id, 2000 + id % 20, 100, "Switch", COPIES));
+        Path file = directory.resolve("catalog.gsc");
+        MappedCatalog.write(file, games);
+        return MappedCatalog.open(file);
+    }
+}
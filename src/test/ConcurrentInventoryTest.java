@@ -0,0 +1,237 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Stress tests proving that ConcurrentInventory never oversells when many
+ * tills and web checkouts race for the same copies, and that a basket which
+ * runs short puts back every copy it took, that the log replays racing
+ * sales and restocks to the same stock, and that paging rejects cursors it
+ * never handed out.
+ */
+
+class ConcurrentInventoryTest {
+
+    private static final int THREADS = 8;
+    private static final int GAMES = 32;
+    private static final int COPIES = 5;
+    private static final int ATTEMPTS_PER_THREAD = 20_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sellStockNeverOversells() throws Exception {
+        ConcurrentInventory inventory = stockedInventory();
+        AtomicInteger sold = new AtomicInteger();
+
+        race(worker -> {
+            for (int k = 0; k < ATTEMPTS_PER_THREAD; k++) {
+                if (inventory.sellStock((k + worker) % GAMES)) sold.incrementAndGet();
+            }
+        });
+
+        assertTrue(sold.get() <= GAMES * COPIES, "sold " + sold.get() + " of " + GAMES * COPIES);
+        assertEquals(GAMES * COPIES, sold.get());
+        for (int id = 0; id < GAMES; id++) {
+            assertEquals(0, inventory.findById(id).getQuantity(), "quantity of game " + id);
+        }
+    }
+
+    @Test
+    void basketCheckoutsNeverOversell() throws Exception {
+        ConcurrentInventory inventory = stockedInventory();
+        CheckoutEngine engine = new CheckoutEngine(inventory);
+        Customer[] buyers = new Customer[THREADS];
+        for (int c = 0; c < buyers.length; c++) {
+            buyers[c] = new Customer("Buyer " + c, "Nowhere", c);
+            buyers[c].restoreState(1_000_000_00L, false, null);
+        }
+        int[] boughtOf = new int[GAMES];
+
+        race(worker -> {
+            int[] mine = new int[GAMES];
+            for (int k = 0; k < ATTEMPTS_PER_THREAD; k++) {
+                // Overlapping baskets of three, one of them with a game twice
+                int a = (k + worker) % GAMES;
+                int b = (k * 7 + worker) % GAMES;
+                int[] basket = k % 4 == 0 ? new int[] {a, a, b} : new int[] {a, b, (a + 1) % GAMES};
+                if (engine.checkoutBasket(buyers[worker], basket).isPurchased()) {
+                    for (int id : basket) mine[id]++;
+                }
+            }
+            synchronized (boughtOf) {
+                for (int id = 0; id < GAMES; id++) boughtOf[id] += mine[id];
+            }
+        });
+
+        int sold = 0;
+        for (int id = 0; id < GAMES; id++) {
+            int left = inventory.findById(id).getQuantity();
+            assertTrue(boughtOf[id] <= COPIES, "game " + id + " sold " + boughtOf[id] + " of " + COPIES);
+            assertEquals(COPIES - boughtOf[id], left, "quantity of game " + id);
+            sold += boughtOf[id];
+        }
+        long recorded = 0;
+        for (Customer buyer : buyers) recorded += buyer.getPurchaseHistory().totalCount();
+        assertEquals(sold, recorded);
+    }
+
+    @Test
+    void basketThatRunsShortTakesNothing() {
+        ConcurrentInventory inventory = stockedInventory();
+        inventory.addStock(new Game(100, "Rare", 2020, 100, "Switch", 1));
+        Customer buyer = new Customer("Buyer", "Nowhere", 1);
+        buyer.restoreState(1_000_00L, false, null);
+
+        // Lines are taken in ID order, so the rare game runs short after the others were taken
+        CheckoutResult result = new CheckoutEngine(inventory).checkoutBasket(buyer, new int[] {0, 1, 1, 100, 100});
+
+        assertEquals(CheckoutOutcome.OUT_OF_STOCK, result.getOutcome());
+        assertEquals(100, result.getGameId());
+        assertEquals(COPIES, inventory.findById(0).getQuantity());
+        assertEquals(COPIES, inventory.findById(1).getQuantity());
+        assertEquals(1, inventory.findById(100).getQuantity());
+        assertEquals(1_000_00L, buyer.getBalancePence());
+        assertEquals(0, buyer.getPurchaseHistory().totalCount());
+    }
+
+    @Test
+    void basketsRacingForScarceGamesPutBackWhatTheyTook() throws Exception {
+        int plentiful = 1_000;
+        ConcurrentInventory inventory = new ConcurrentInventory(16);
+        for (int id = 0; id < 8; id++) inventory.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", plentiful));
+        for (int id = 100; id < 104; id++) inventory.addStock(new Game(id, "Rare " + id, 2020, 100, "Switch", COPIES));
+        CheckoutEngine engine = new CheckoutEngine(inventory);
+        int[] boughtOf = new int[8];
+        AtomicInteger shortBaskets = new AtomicInteger();
+
+        race(worker -> {
+            Customer buyer = new Customer("Buyer " + worker, "Nowhere", worker);
+            buyer.restoreState(1_000_000_00L, false, null);
+            int[] mine = new int[8];
+            for (int k = 0; k < ATTEMPTS_PER_THREAD; k++) {
+                // Each basket takes a common game first, then a rare one that soon runs out
+                int common = (k + worker) % 8;
+                CheckoutResult result = engine.checkoutBasket(buyer, new int[] {common, 100 + (k * 3 + worker) % 4});
+                if (result.isPurchased()) {
+                    mine[common]++;
+                } else if (result.getOutcome() == CheckoutOutcome.OUT_OF_STOCK) {
+                    shortBaskets.incrementAndGet();
+                }
+            }
+            synchronized (boughtOf) {
+                for (int id = 0; id < 8; id++) boughtOf[id] += mine[id];
+            }
+        });
+
+        int sold = 0;
+        for (int id = 0; id < 8; id++) {
+            assertEquals(plentiful - boughtOf[id], inventory.findById(id).getQuantity(), "quantity of game " + id);
+            sold += boughtOf[id];
+        }
+        for (int id = 100; id < 104; id++) assertEquals(0, inventory.findById(id).getQuantity(), "quantity of game " + id);
+        assertEquals(4 * COPIES, sold);
+        assertTrue(shortBaskets.get() > 0);
+    }
+
+    @Test
+    void racingSalesAndRestocksReplayToTheSameStock() throws Exception {
+        ConcurrentInventory inventory = new ConcurrentInventory(16);
+        ConcurrentInventory recovered = new ConcurrentInventory(16);
+        for (int id = 0; id < 4; id++) {
+            inventory.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", 0));
+            recovered.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", 0));
+        }
+        CheckoutEngine engine = new CheckoutEngine(inventory);
+        Path file = directory.resolve("race.wal");
+
+        try (WriteAheadLog log = new WriteAheadLog(file, 64, 0)) {
+            inventory.setLog(log);
+            // Stock hovers around zero, so a sale logged before the restock it needed fails on replay
+            race(worker -> {
+                Customer buyer = new Customer("Buyer " + worker, "Nowhere", worker);
+                buyer.restoreState(1_000_000_00L, false, null);
+                for (int k = 0; k < ATTEMPTS_PER_THREAD; k++) {
+                    int id = (k + worker) % 4;
+                    if (worker % 2 == 0) {
+                        inventory.restock(id, 1);
+                    } else if (k % 2 == 0) {
+                        inventory.sellStock(id);
+                    } else {
+                        engine.checkoutBasket(buyer, new int[] {id, (id + 1) % 4});
+                    }
+                }
+            });
+            inventory.setLog(null);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(file, 64, 0)) {
+            log.replay(recovered, new CustomerRegistry());
+        }
+        for (int id = 0; id < 4; id++) {
+            assertEquals(inventory.findById(id).getQuantity(), recovered.findById(id).getQuantity(), "quantity of game " + id);
+        }
+    }
+
+    @Test
+    void pagingRejectsForgedCursorsAndEmptyPages() {
+        ConcurrentInventory inventory = stockedInventory();
+        assertThrows(IllegalArgumentException.class, () -> inventory.page(-2, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> inventory.page((long) inventory.getStripeCount() << 32, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> inventory.page(CatalogPage.FIRST, 0, null));
+
+        int listed = 0;
+        for (long cursor = CatalogPage.FIRST; cursor != CatalogPage.END; ) {
+            CatalogPage page = inventory.page(cursor, 7, null);
+            listed += page.getGames().size();
+            cursor = page.getNextCursor();
+        }
+        assertEquals(GAMES, listed);
+    }
+
+    private static ConcurrentInventory stockedInventory() {
+        ConcurrentInventory inventory = new ConcurrentInventory(16);
+        for (int id = 0; id < GAMES; id++) {
+            inventory.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", COPIES));
+        }
+        return inventory;
+    }
+
+    /**
+     * Starts THREADS workers at once and waits for them, failing if any of them threw.
+     * @param body Work of one thread, given the worker's index
+     */
+    static void race(Worker body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[THREADS];
+        for (int w = 0; w < workers.length; w++) {
+            int worker = w;
+            workers[w] = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(worker);
+                } catch (Throwable e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            workers[w].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        if (failure[0] != null) throw new AssertionError("Worker failed", failure[0]);
+    }
+
+    interface Worker {
+        void run(int worker) throws Exception;
+    }
+}
@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a game never stays stuck on an order: an order that is not
+ * delivered in time is placed again, and a delisted game is forgotten.
+ */
+
+class ReorderSchedulerTest {
+
+    @Test
+    void undeliveredOrderIsPlacedAgain() throws Exception {
+        ConcurrentInventory inventory = stockedInventory();
+        ReorderScheduler reorders = watch(inventory);
+        reorders.setOrderTimeout(1);
+
+        inventory.sellStock(1);
+        assertEquals(1, reorders.batch().size());
+        Thread.sleep(5);
+
+        List<SupplierOrder> again = reorders.batch();
+        assertEquals(1, again.size());
+        assertEquals(1, again.get(0).getLines().get(0).getGameId());
+    }
+
+    @Test
+    void orderRestockedInTimeIsNotPlacedAgain() throws Exception {
+        ConcurrentInventory inventory = stockedInventory();
+        ReorderScheduler reorders = watch(inventory);
+        reorders.setOrderTimeout(1);
+
+        inventory.sellStock(1);
+        assertEquals(1, reorders.batch().size());
+        inventory.restock(1, ReorderScheduler.DEFAULT_REORDER_QUANTITY);
+        Thread.sleep(5);
+
+        assertTrue(reorders.batch().isEmpty());
+    }
+
+    @Test
+    void delistedGameIsForgotten() throws Exception {
+        ConcurrentInventory inventory = stockedInventory();
+        ReorderScheduler reorders = watch(inventory);
+        reorders.setOrderTimeout(1);
+        reorders.setThreshold(2, 10, 5, null);
+
+        // One game queued and one ordered when they are delisted
+        inventory.sellStock(1);
+        assertEquals(1, reorders.batch().size());
+        inventory.sellStock(2);
+        inventory.removeStock(1);
+        inventory.removeStock(2);
+        Thread.sleep(5);
+
+        assertTrue(reorders.getQueued().isEmpty());
+        assertTrue(reorders.batch().isEmpty());
+        assertEquals(ReorderScheduler.DEFAULT_REORDER_POINT, reorders.getReorderPoint(2));
+    }
+
+    private static ConcurrentInventory stockedInventory() {
+        ConcurrentInventory inventory = new ConcurrentInventory();
+        for (int id = 1; id <= 2; id++) {
+            inventory.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", ReorderScheduler.DEFAULT_REORDER_POINT + 1));
+        }
+        return inventory;
+    }
+
+    private static ReorderScheduler watch(Inventory inventory) {
+        ReorderScheduler reorders = new ReorderScheduler(inventory, ReorderScheduler.DEFAULT_REORDER_POINT,
+                ReorderScheduler.DEFAULT_REORDER_QUANTITY, 0);
+        inventory.setReorders(reorders);
+        return reorders;
+    }
+}
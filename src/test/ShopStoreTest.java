@@ -0,0 +1,162 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that recovery replays a checkout or trade-in as one unit: the stock
+ * change and the customer's balance change come back together or not at all,
+ * and that a checkpoint cut short never gets its changes replayed twice.
+ */
+
+class ShopStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void checkoutAndTradeInAreRecovered() throws IOException {
+        long[] balance = new long[1];
+        runShop(service -> {
+            service.signIn(1, "Ann", "1 Road");
+            service.tradeIn(new TradeInRequest(1, 2, "Traded", "Switch", 2021, 3, 50_00));
+            assertTrue(service.purchase(new PurchaseRequest(1, 1, 1, 2)).isPurchased());
+            balance[0] = service.getCustomers().findById(1).getBalancePence();
+        });
+
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        CustomerRegistry customers = new CustomerRegistry();
+        recover(inventory, customers);
+        assertEquals(3, inventory.findById(1).getQuantity());
+        assertEquals(2, inventory.findById(2).getQuantity());
+        Customer ann = customers.findById(1);
+        assertEquals(balance[0], ann.getBalancePence());
+        assertEquals(3, ann.getPurchaseHistory().totalCount());
+        assertEquals(1, ann.getTradeInHistory().totalCount());
+    }
+
+    @Test
+    void tornCheckoutIsNotHalfRecovered() throws IOException {
+        long[] balance = new long[1];
+        runShop(service -> {
+            service.signIn(1, "Ann", "1 Road");
+            service.tradeIn(new TradeInRequest(1, 2, "Traded", "Switch", 2021, 3, 50_00));
+            balance[0] = service.getCustomers().findById(1).getBalancePence();
+            assertTrue(service.purchase(new PurchaseRequest(1, 1, 2)).isPurchased());
+        });
+        // Lose the last byte of the checkout record, as in a crash mid-write
+        try (FileChannel log = FileChannel.open(directory.resolve("wal.log"), StandardOpenOption.WRITE)) {
+            log.truncate(log.size() - 1);
+        }
+
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        CustomerRegistry customers = new CustomerRegistry();
+        recover(inventory, customers);
+        assertEquals(5, inventory.findById(1).getQuantity());
+        assertEquals(3, inventory.findById(2).getQuantity());
+        Customer ann = customers.findById(1);
+        assertEquals(balance[0], ann.getBalancePence());
+        assertEquals(0, ann.getPurchaseHistory().totalCount());
+    }
+
+    @Test
+    void catalogShopIsServedFromTheFileAndCheckpointedIntoIt() throws IOException {
+        MappedCatalog.write(directory.resolve("catalog.gsc"),
+                List.of(new Game(1, "Listed", 2020, 20_00, "Switch", 5), new Game(2, "Other", 2021, 30_00, "PC", 1)));
+
+        ShopService service = Main.openShop(directory.toString(), new Inventory(" ", 0, 0, " ", 0, 0));
+        assertTrue(service.getInventory() instanceof CatalogInventory);
+        service.signIn(1, "Ann", "1 Road");
+        service.getCustomers().findById(1).restoreState(100_00, false, null);
+        assertTrue(service.purchase(new PurchaseRequest(1, 1)).isPurchased());
+        service.close();
+        assertTrue(Files.notExists(directory.resolve("wal.log")));
+        assertTrue(Files.notExists(directory.resolve("catalog.gsc")));
+        assertEquals(0, Files.size(directory.resolve("wal.1.log")));
+
+        ShopService reopened = Main.openShop(directory.toString(), new Inventory(" ", 0, 0, " ", 0, 0));
+        assertTrue(reopened.getInventory() instanceof CatalogInventory);
+        assertEquals(4, reopened.findGame(1).getQuantity());
+        assertEquals(1, reopened.findGame(2).getQuantity());
+        assertEquals(1, reopened.getCustomers().findById(1).getPurchaseHistory().totalCount());
+        reopened.close();
+    }
+
+    @Test
+    void crashBeforeTheOldLogIsDeletedDoesNotReplayIt() throws IOException {
+        byte[] oldLog = checkpointAfterSales();
+        // Stopped after the snapshot was renamed into place but before the old log was deleted
+        Files.write(directory.resolve("wal.log"), oldLog);
+
+        assertRecoveredOnce();
+        assertTrue(Files.notExists(directory.resolve("wal.log")));
+    }
+
+    @Test
+    void crashBeforeTheSnapshotIsRenamedReplaysEveryLog() throws IOException {
+        byte[] oldLog = checkpointAfterSales();
+        // Stopped after the log moved on but before the snapshot was renamed into place
+        Files.delete(directory.resolve("snapshot.bin"));
+        Files.write(directory.resolve("wal.log"), oldLog);
+
+        assertRecoveredOnce();
+    }
+
+    // Sells from a new shop, then checkpoints it, returning the log the checkpoint replaced
+    private byte[] checkpointAfterSales() throws IOException {
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        CustomerRegistry customers = new CustomerRegistry();
+        ShopStore store = new ShopStore(directory, 1, 0);
+        store.recover(inventory, customers);
+        inventory.addStock(new Game(1, "Listed", 2020, 20_00, "Switch", 5));
+        ShopService service = new ShopService(inventory, customers, store);
+        service.signIn(1, "Ann", "1 Road");
+        customers.findById(1).restoreState(100_00, false, null);
+        assertTrue(service.purchase(new PurchaseRequest(1, 1, 1)).isPurchased());
+        inventory.sellStock(1);
+        store.getLog().sync();
+        byte[] log = Files.readAllBytes(directory.resolve("wal.log"));
+        service.close();
+        assertTrue(Files.notExists(directory.resolve("wal.log")));
+        return log;
+    }
+
+    private void assertRecoveredOnce() throws IOException {
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        CustomerRegistry customers = new CustomerRegistry();
+        recover(inventory, customers);
+        assertEquals(2, inventory.findById(1).getQuantity());
+        assertEquals(2, customers.findById(1).getPurchaseHistory().totalCount());
+    }
+
+    // Runs a shop over the store and stops it without a checkpoint, as a crash would,
+    // leaving everything in the log
+    private void runShop(ShopAction action) throws IOException {
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        CustomerRegistry customers = new CustomerRegistry();
+        ShopStore store = new ShopStore(directory, 1, 0);
+        store.recover(inventory, customers);
+        inventory.addStock(new Game(1, "Listed", 2020, 20_00, "Switch", 5));
+        ShopService service = new ShopService(inventory, customers, store);
+        action.run(service);
+        inventory.getReorders().close();
+        store.close();
+    }
+
+    private void recover(Inventory inventory, CustomerRegistry customers) throws IOException {
+        try (ShopStore store = new ShopStore(directory, 1, 0)) {
+            store.recover(inventory, customers);
+        }
+    }
+
+    interface ShopAction {
+        void run(ShopService service);
+    }
+}
@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that selling and restocking adjust a game's quantity in place with a
+ * compare-and-set, on every backend that has its own quantity counter.
+ */
+
+class StockQuantityTest {
+
+    private static final int START = 10_000;
+    private static final int ATTEMPTS_PER_THREAD = 20_000;
+
+    @Test
+    void inventoryAdjustsQuantityAtomically() throws Exception {
+        racingSalesAndRestocks(new Inventory(" ", 0, 0, " ", 0, 0));
+    }
+
+    @Test
+    void concurrentInventoryAdjustsQuantityAtomically() throws Exception {
+        racingSalesAndRestocks(new ConcurrentInventory(16));
+    }
+
+    @Test
+    void compactInventoryAdjustsQuantityAtomically() throws Exception {
+        racingSalesAndRestocks(new CompactInventory(16));
+    }
+
+    @Test
+    void sellingOutKeepsTheGameListed() {
+        Inventory inventory = new Inventory(" ", 0, 0, " ", 0, 0);
+        inventory.addStock(new Game(1, "Game 1", 2020, 100, "Switch", 2));
+        assertTrue(inventory.sellStock(1, 2));
+        assertFalse(inventory.sellStock(1));
+        assertNotNull(inventory.findById(1));
+        assertTrue(inventory.restock(1, 1));
+        assertEquals(1, inventory.findById(1).getQuantity());
+    }
+
+    // Threads sell three copies and put two back at random; the final quantity
+    // must match the successful calls exactly and never go below zero
+    private static void racingSalesAndRestocks(Inventory inventory) throws Exception {
+        inventory.addStock(new Game(7, "Game 7", 2020, 100, "Switch", START));
+        AtomicInteger sales = new AtomicInteger();
+        AtomicInteger restocks = new AtomicInteger();
+        AtomicInteger lowest = new AtomicInteger(START);
+
+        ConcurrentInventoryTest.race(worker -> {
+            for (int k = 0; k < ATTEMPTS_PER_THREAD; k++) {
+                if ((k + worker) % 3 == 0) {
+                    if (inventory.restock(7, 2)) restocks.incrementAndGet();
+                } else if (inventory.sellStock(7, 3)) {
+                    sales.incrementAndGet();
+                }
+                lowest.accumulateAndGet(inventory.findById(7).getQuantity(), Math::min);
+            }
+        });
+
+        assertTrue(lowest.get() >= 0, "quantity went to " + lowest.get());
+        assertEquals(START - 3 * sales.get() + 2 * restocks.get(), inventory.findById(7).getQuantity());
+    }
+}
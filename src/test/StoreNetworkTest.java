@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that transfers between stores neither lose nor duplicate copies while
+ * tills sell the same games, and that a transfer is not counted as a sale.
+ */
+
+class StoreNetworkTest {
+
+    private static final int STORES = 4;
+    private static final int GAMES = 16;
+    private static final int COPIES = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void transfersRacingWithSalesKeepEveryCopy() throws Exception {
+        StoreNetwork network = new StoreNetwork();
+        for (int s = 0; s < STORES; s++) {
+            Inventory store = network.addStore("Store " + s);
+            // Half the games start in one store only, so transfers also list games
+            for (int id = 0; id < GAMES; id++) {
+                if (id % 2 == 0 || s == 0) store.addStock(new Game(id, "Game " + id, 2020, 100, "Switch", COPIES));
+            }
+        }
+        int stocked = (GAMES / 2 * STORES + GAMES / 2) * COPIES;
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger moved = new AtomicInteger();
+
+        ConcurrentInventoryTest.race(worker -> {
+            for (int k = 0; k < 20_000; k++) {
+                int id = (k * 7 + worker * 13) % GAMES;
+                int from = (k / GAMES + worker) % STORES;
+                // Even workers move copies; odd ones sell too slowly to drain the network
+                if (worker % 2 == 0) {
+                    int to = (from + 1 + k % (STORES - 1)) % STORES;
+                    if (network.transfer("Store " + from, "Store " + to, id, 1 + k % 3)) moved.incrementAndGet();
+                } else if (k % 8 == 0 && network.getStore("Store " + from).sellStock(id)) {
+                    sold.incrementAndGet();
+                }
+            }
+        });
+
+        int left = 0;
+        for (int id = 0; id < GAMES; id++) left += network.totalStock(id);
+        assertEquals(stocked, left + sold.get());
+        assertTrue(moved.get() > 0);
+    }
+
+    @Test
+    void transferIsLoggedAndNotReorderedAsASale() throws Exception {
+        StoreNetwork network = new StoreNetwork();
+        Inventory source = network.addStore("High Street");
+        network.addStore("Retail Park");
+        source.addStock(new Game(1, "Halo", 2001, 100, "Xbox", 5));
+        ReorderScheduler reorders = new ReorderScheduler(source, ReorderScheduler.DEFAULT_REORDER_POINT,
+                ReorderScheduler.DEFAULT_REORDER_QUANTITY, 0);
+        source.setReorders(reorders);
+        Path file = directory.resolve("store.wal");
+        try (WriteAheadLog log = new WriteAheadLog(file, 1, 0)) {
+            source.setLog(log);
+            assertTrue(network.transfer("High Street", "Retail Park", 1, 4));
+            source.setLog(null);
+        }
+
+        assertEquals(0, reorders.getQueuedCount());
+        assertEquals(1, source.findById(1).getQuantity());
+        assertEquals(4, network.getStore("Retail Park").findById(1).getQuantity());
+
+        // Replaying the source's log takes the copies out again without a sale
+        ConcurrentInventory recovered = new ConcurrentInventory();
+        recovered.addStock(new Game(1, "Halo", 2001, 100, "Xbox", 5));
+        ReorderScheduler replayed = new ReorderScheduler(recovered, ReorderScheduler.DEFAULT_REORDER_POINT,
+                ReorderScheduler.DEFAULT_REORDER_QUANTITY, 0);
+        recovered.setReorders(replayed);
+        try (WriteAheadLog log = new WriteAheadLog(file, 1, 0)) {
+            assertEquals(1, log.replay(recovered, new CustomerRegistry()));
+        }
+        assertEquals(1, recovered.findById(1).getQuantity());
+        assertEquals(0, replayed.getQueuedCount());
+    }
+}
@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a write failure on the flusher thread is reported to the next
+ * caller and does not stop the flusher.
+ */
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void backgroundFlushFailureIsReportedAndFlusherKeepsRunning() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(directory.resolve("wal.log"), 1_000, 1);
+        // Stands in for a failing disk: every write from now on throws
+        Field channel = WriteAheadLog.class.getDeclaredField("channel");
+        channel.setAccessible(true);
+        ((FileChannel) channel.get(log)).close();
+
+        log.logSellStock(1, 1);
+        Thread.sleep(100);
+        assertThrows(IllegalStateException.class, () -> log.logSellStock(1, 1));
+
+        // The first record is still buffered, so a running flusher fails on it again
+        Thread.sleep(100);
+        assertThrows(IllegalStateException.class, () -> log.logSellStock(1, 1));
+        assertThrows(IOException.class, log::close);
+    }
+}